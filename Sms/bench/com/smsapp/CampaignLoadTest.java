@@ -0,0 +1,143 @@
+package com.smsapp;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end load test: generates a roster where every row has a birthday today, then sends
+// it through the real campaign path (CampaignRunner, SendEngine, limiter, breaker, journal,
+// UltraMsgHttp) to an UltraMsgStubServer and reports throughput and API latency percentiles.
+// Starts an in-process stub unless a base URL is given; -Dstub.* shape its behaviour (see
+// UltraMsgStubServer). Rate limiting is effectively off so the pipeline itself is measured.
+//
+// -Dload.instances=N spreads the run over N stub instances (default 1); -Dload.journal=false
+// skips the send journal; -Dload.image=FILE attaches a local image to every message (compare
+// with -Dimage.preprocess=false to see what ImagePreprocessor saves); -Dload.dailyCap=N sets
+// each instance's daily cap (rows over it are deferred, not failed). Run with -Dlog.file= to
+// keep the per-message log off disk.
+//
+// Usage: CampaignLoadTest [rows] [concurrencyPerInstance] [latency spec] [baseUrl]   (default: 1000 16 50)
+class CampaignLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        String latency = args.length > 2 ? args[2] : "50";
+        int instances = Integer.getInteger("load.instances", 1);
+
+        UltraMsgStubServer stub = null;
+        if (args.length <= 3) {
+            stub = new UltraMsgStubServer(0, UltraMsgStubServer.Profile.fromSystemProperties(latency));
+            stub.start();
+            // UltraMsgHttp reads the base URL once, so this has to happen before it loads
+            System.setProperty("ultramsg.baseUrl", "http://localhost:" + stub.getPort());
+        } else {
+            System.setProperty("ultramsg.baseUrl", args[3]);
+        }
+
+        File dir = new File(System.getProperty("java.io.tmpdir"), "campaign-load-" + System.nanoTime());
+        dir.mkdirs();
+        ScheduledExecutorService healthMonitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "instance-health");
+            t.setDaemon(true);
+            return t;
+        });
+        SendJournal journal = null;
+        try {
+            LocalDate today = LocalDate.now();
+            File data = generate(new File(dir, "roster.csv"), rows, today);
+            long loadStart = System.nanoTime();
+            Roster roster = Roster.load(data, msg -> { });
+            System.out.printf("%,d rows loaded in %d ms%n", roster.employees.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart));
+
+            if (!"false".equals(System.getProperty("load.journal"))) {
+                journal = SendJournal.open(new File(dir, "send-journal.log"));
+            }
+            CampaignRunner runner = new CampaignRunner(msg -> { }, journal,
+                new MediaCache(64L * 1024 * 1024), healthMonitor);
+
+            StringBuilder extra = new StringBuilder();
+            for (int i = 2; i <= instances; i++) extra.append(i).append(",load\n");
+            InstancePool pool = InstancePool.parse("1", "load", extra.toString());
+            for (UltraMsgInstance instance : pool.getInstances()) runner.refreshInstanceHealth(instance);
+            if (pool.healthyCount() == 0) {
+                System.out.println("No authenticated instance at " + UltraMsgHttp.API_BASE);
+                return;
+            }
+
+            CampaignSettings settings = new CampaignSettings();
+            settings.messageTemplate = "Happy birthday {name} from everyone at {companyname}!";
+            settings.concurrencyPerInstance = concurrency;
+            settings.ratePerSecond = 1000000;
+            settings.burst = concurrency;
+            settings.resume = false;
+            settings.dailyCap = Integer.getInteger("load.dailyCap", 0);
+            settings.imagePath = System.getProperty("load.image", "");
+
+            List<Employee> recipients = runner.selectRecipients(roster, today, false);
+            Thread progress = new Thread(() -> {
+                try {
+                    while (true) {
+                        Thread.sleep(5000);
+                        System.out.println("  ... " + Metrics.summary().split("\n")[0].replace(" • ", ", "));
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            }, "load-progress");
+            progress.setDaemon(true);
+            progress.start();
+
+            long start = System.nanoTime();
+            CampaignRunner.Summary summary = runner.run(roster, recipients, pool, settings, today, () -> false);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            progress.interrupt();
+
+            LatencyHistogram.Snapshot api = (settings.imagePath.isEmpty() ? Metrics.Endpoint.CHAT
+                : Metrics.Endpoint.IMAGE).latency.snapshot();
+            Runtime rt = Runtime.getRuntime();
+            System.out.printf("%,d recipients, %d instance(s) x %d in flight: %,d sent, %,d failed in %.1f s = %,.0f msg/s%n",
+                summary.recipients, pool.size(), concurrency, summary.sent, summary.failed, seconds, summary.sent / seconds);
+            System.out.printf("API latency (%,d calls): p50 %.1f ms  p90 %.1f ms  p99 %.1f ms  p99.9 %.1f ms  max %.1f ms%n",
+                api.count, api.percentile(0.5) / 1e3, api.percentile(0.9) / 1e3, api.percentile(0.99) / 1e3,
+                api.percentile(0.999) / 1e3, api.maxMicros / 1e3);
+            System.out.println("Retries " + Metrics.RETRIES.sum() + ", uploaded " + Metrics.BYTES_UPLOADED.sum() +
+                " bytes, heap used " + (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024) + " MB");
+            if (stub != null) System.out.println("Stub: " + stub.getStats());
+        } finally {
+            healthMonitor.shutdownNow();
+            if (journal != null) journal.close();
+            if (stub != null) stub.stop();
+            UltraMsgHttp.shutdown();
+            deleteRecursively(dir);
+        }
+    }
+
+    private static File generate(File file, int rows, LocalDate birthday) throws IOException {
+        String dob = String.format("%02d/%02d", birthday.getDayOfMonth(), birthday.getMonthValue());
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            w.write("Name,WhatsAppNumber,DOB,Department,CompanyName\n");
+            for (int i = 0; i < rows; i++) {
+                w.write("Employee " + i + ",+91" + (7000000000L + i) + "," + dob + ",Dept " + (i % 20) + ",Acme\n");
+            }
+        }
+        return file;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) deleteRecursively(child);
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,131 @@
+package com.smsapp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+// Compares the old DOM loader (XSSFWorkbook) with StreamingExcelReader on generated
+// rosters, and both with Roster.load once a RosterSnapshot exists (columnar store forced, so
+// every size gets one). Reports wall time and peak heap; run with a fixed -Xmx so results are
+// comparable.
+//
+// Usage: ExcelLoadBenchmark [rows...]   (default: 10000 100000 1000000)
+class ExcelLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[] {10_000, 100_000, 1_000_000};
+        for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+
+        for (int rows : sizes) {
+            File file = generate(rows);
+            try {
+                System.out.printf("%,d rows (%,d KB)%n", rows, file.length() / 1024);
+                measure("  DOM (XSSFWorkbook)", () -> loadWithDom(file));
+                measure("  streaming (SAX)   ", () -> loadStreaming(file));
+                System.setProperty("roster.store", "columnar");
+                Roster.load(file, message -> { }); // parses and writes the snapshot
+                measure("  snapshot          ", () -> Roster.load(file, message -> { }).employees.size());
+            } finally {
+                RosterSnapshot.fileFor(file).delete();
+                file.delete();
+            }
+        }
+    }
+
+    interface Load {
+        int run() throws Exception;
+    }
+
+    private static void measure(String name, Load load) {
+        System.gc();
+        Runtime rt = Runtime.getRuntime();
+        long baseline = rt.totalMemory() - rt.freeMemory();
+        AtomicLong peak = new AtomicLong(baseline);
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(rt.totalMemory() - rt.freeMemory(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        long start = System.nanoTime();
+        String outcome;
+        try {
+            outcome = load.run() + " rows";
+        } catch (OutOfMemoryError e) {
+            outcome = "OutOfMemoryError";
+        } catch (Exception e) {
+            outcome = "failed: " + e;
+        }
+        long elapsed = System.nanoTime() - start;
+        sampler.interrupt();
+
+        System.out.printf("%s %8.0f ms  peak heap +%,d MB  (%s)%n",
+            name, elapsed / 1e6, (peak.get() - baseline) / (1024 * 1024), outcome);
+    }
+
+    private static int loadWithDom(File file) throws Exception {
+        DataFormatter formatter = new DataFormatter();
+        int count = 0;
+        try (Workbook workbook = new XSSFWorkbook(file)) {
+            for (Row row : workbook.getSheetAt(0)) {
+                if (row.getRowNum() == 0) continue;
+                if (!formatter.formatCellValue(row.getCell(1)).isEmpty()) count++;
+            }
+        }
+        return count;
+    }
+
+    private static int loadStreaming(File file) throws Exception {
+        int[] count = {-1}; // header row
+        StreamingExcelReader.read(file, (cells, physicalCells) -> {
+            if (!cells[1].isEmpty()) count[0]++;
+        });
+        return count[0];
+    }
+
+    private static File generate(int rows) throws Exception {
+        File file = File.createTempFile("roster-" + rows + "-", ".xlsx");
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(1000)) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm"));
+            String[] departments = {"Sales", "Marketing", "Engineering", "Finance", "HR"};
+
+            Sheet sheet = workbook.createSheet("Employees");
+            Row header = sheet.createRow(0);
+            String[] titles = {"Name", "WhatsAppNumber", "DOB", "Department", "CompanyName"};
+            for (int c = 0; c < titles.length; c++) header.createCell(c).setCellValue(titles[c]);
+
+            long epochDay = java.time.LocalDate.of(1990, 1, 1).toEpochDay();
+            for (int r = 1; r <= rows; r++) {
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue("Employee " + r);
+                row.createCell(1).setCellValue(919800000000L + r);
+                Cell dob = row.createCell(2);
+                dob.setCellValue(java.time.LocalDate.ofEpochDay(epochDay + r % 365));
+                dob.setCellStyle(dateStyle);
+                row.createCell(3).setCellValue(departments[r % departments.length]);
+                row.createCell(4).setCellValue("Your Company");
+            }
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                workbook.write(out);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,84 @@
+package com.smsapp;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Compares the old per-row number handling (replaceAll("[^0-9+]", "") and a HashSet<String> of
+// dedup keys) with PhoneNumbers.normalize and a LongHashSet on generated numbers written the
+// ways people write them. Reports time and the heap retained by the results; run with a fixed
+// -Xmx so results are comparable.
+//
+// Usage: PhoneNumberBenchmark [rows...]   (default: 100000 1000000)
+class PhoneNumberBenchmark {
+    private static final String[] FORMATS = {"+91 %s %s", "0%s%s", "91%s%s", "%s-%s", "(+91) %s %s"};
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[] {100_000, 1_000_000};
+        for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+
+        for (int rows : sizes) {
+            String[] raw = generate(rows);
+            System.out.printf("%,d numbers%n", rows);
+            for (int round = 0; round < 3; round++) {
+                // The last round is the one reported; the first two warm up the JIT
+                boolean report = round == 2;
+                measure("  String + regex + HashSet<String>", report, () -> stringApproach(raw));
+                measure("  E.164 long + LongHashSet        ", report, () -> longApproach(raw));
+            }
+        }
+    }
+
+    interface Run {
+        Object[] run(); // {unique count, retained results}
+    }
+
+    private static void measure(String name, boolean report, Run run) {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long before = rt.totalMemory() - rt.freeMemory();
+        long start = System.nanoTime();
+        Object[] result = run.run();
+        long elapsed = System.nanoTime() - start;
+        System.gc();
+        long retained = rt.totalMemory() - rt.freeMemory() - before;
+        if (report) {
+            System.out.printf("%s %6.0f ms  retained %,5d MB  %,d unique%n",
+                name, elapsed / 1e6, retained / (1024 * 1024), result[0]);
+        }
+    }
+
+    // What the loader and the campaign used to do: a stripped String per row, then a String key per recipient
+    private static Object[] stringApproach(String[] raw) {
+        List<String> numbers = new ArrayList<>(raw.length);
+        Set<String> keys = new HashSet<>();
+        for (String r : raw) {
+            String number = r.replaceAll("[^0-9+]", "");
+            numbers.add(number);
+            keys.add(SendJournal.idempotencyKey(java.time.LocalDate.of(2026, 1, 1), number));
+        }
+        return new Object[] {keys.size(), numbers, keys};
+    }
+
+    private static Object[] longApproach(String[] raw) {
+        long[] numbers = new long[raw.length];
+        LongHashSet unique = new LongHashSet(raw.length);
+        for (int i = 0; i < raw.length; i++) {
+            numbers[i] = PhoneNumbers.normalize(raw[i], 91);
+            if (numbers[i] != PhoneNumbers.INVALID) unique.add(numbers[i]);
+        }
+        return new Object[] {unique.size(), numbers, unique};
+    }
+
+    // Every tenth number repeats an earlier one in a different format
+    private static String[] generate(int rows) {
+        String[] raw = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            long national = 9800000000L + (i % 10 == 9 ? i - 9 : i);
+            String digits = Long.toString(national);
+            raw[i] = String.format(FORMATS[i % FORMATS.length], digits.substring(0, 5), digits.substring(5));
+        }
+        return raw;
+    }
+}
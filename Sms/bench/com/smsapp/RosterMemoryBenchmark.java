@@ -0,0 +1,85 @@
+package com.smsapp;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+// Loads a generated CSV roster once per store (-Droster.store=objects, then columnar, then
+// columnar again from the RosterSnapshot the previous load wrote) and reports load time and the
+// heap the Roster retains per row after a full GC, then renders a template for one day's
+// birthdays through each and prints a checksum of the output, which must match. Run with a
+// fixed -Xmx so results are comparable.
+//
+// Usage: RosterMemoryBenchmark [rows...]   (default: 100000 1000000)
+class RosterMemoryBenchmark {
+    private static final String[] FIRST = {"Aarav", "Priya", "Rohan", "Ananya", "Vikram", "Sneha", "Arjun", "Kavya"};
+    private static final String[] LAST = {"Sharma", "Iyer", "Patel", "Reddy", "Gupta", "Nair", "Singh", "Das"};
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[] {100_000, 1_000_000};
+        for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+
+        for (int rows : sizes) {
+            File file = generate(rows);
+            try {
+                System.out.printf("%,d rows (%,d KB)%n", rows, file.length() / 1024);
+                long objects = measure("objects ", file, rows);
+                long columnar = measure("columnar", file, rows);
+                measure("snapshot", file, rows);
+                System.out.printf("  %.1fx less heap per row%n", (double) objects / columnar);
+            } finally {
+                RosterSnapshot.fileFor(file).delete();
+                file.delete();
+            }
+        }
+    }
+
+    // Returns retained bytes per row
+    private static long measure(String store, File file, int rows) throws Exception {
+        System.setProperty("roster.store", store.equals("objects ") ? "objects" : "columnar");
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long before = rt.totalMemory() - rt.freeMemory();
+
+        long start = System.nanoTime();
+        Roster roster = Roster.load(file, message -> { });
+        long elapsed = System.nanoTime() - start;
+        System.gc();
+        long retained = rt.totalMemory() - rt.freeMemory() - before;
+
+        LocalDate day = LocalDate.of(2026, 3, 14);
+        MessageTemplate<Employee> template = new CampaignRunner(message -> { }, null, null, null)
+            .compileTemplate("Happy birthday {name} from {department} at {companyName}!", roster.columns);
+        long renderStart = System.nanoTime();
+        List<Employee> today = roster.birthdayIndex.on(day);
+        long checksum = 0;
+        for (Employee emp : today) checksum += template.render(emp).hashCode() + emp.phone().hashCode();
+        long renderMicros = (System.nanoTime() - renderStart) / 1000;
+
+        System.out.printf("  %s  load %5d ms  retained %,6d KB = %,4d B/row  %s: %,d rendered in %,d us (#%08x)%n",
+            store, elapsed / 1_000_000, retained / 1024, retained / rows, day, today.size(), renderMicros,
+            (int) checksum);
+        if (roster.employees.size() != rows) throw new IllegalStateException(roster.employees.size() + " rows loaded");
+        return retained / rows;
+    }
+
+    private static File generate(int rows) throws Exception {
+        File file = File.createTempFile("roster-bench", ".csv");
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            w.write("Name,WhatsAppNumber,DOB,Department,CompanyName,City\n");
+            for (int i = 0; i < rows; i++) {
+                int day = i % 28 + 1;
+                int month = i / 28 % 12 + 1;
+                w.write(FIRST[i % FIRST.length] + " " + LAST[i / FIRST.length % LAST.length] + " " + i +
+                    ",+91 " + (7000000000L + i) + "," + String.format("%02d/%02d", day, month) +
+                    ",Dept " + (i % 40) + ",Acme Industries,City " + (i % 300) + "\n");
+            }
+        }
+        return file;
+    }
+}
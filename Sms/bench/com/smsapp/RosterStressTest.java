@@ -0,0 +1,197 @@
+package com.smsapp;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Stress check for the concurrency contracts of the roster model and campaign cancellation.
+// Exits non-zero on the first violation.
+//
+// 1. Snapshots: one thread keeps appending rows to a CSV while several "reloader" threads
+//    (standing in for the file watcher, the scheduler and the Refresh button) race through
+//    RosterHolder.reloadIfStale, and reader threads check every snapshot they see: the
+//    employee list is a gap-free prefix of what was written, the birthday index covers
+//    exactly that list, and no snapshot is older than one the reader saw before. At the end the roster must hold every row exactly once - no update
+//    lost to a concurrent swap.
+// 2. Cancellation: SendEngine runs are cancelled at random points; once run() returns no send
+//    may start, and at most `concurrency` sends may start after cancel().
+//
+// Usage: RosterStressTest [seconds] [reloaders] [readers]   (default: 10 4 4)
+class RosterStressTest {
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int reloaders = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int readers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        boolean ok = snapshotStress(seconds, reloaders, readers);
+        ok &= cancellationStress(Math.max(1, seconds / 2));
+        System.out.println(ok ? "PASS" : "FAIL");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static boolean snapshotStress(int seconds, int reloaders, int readers) throws Exception {
+        File file = File.createTempFile("roster-stress", ".csv");
+        file.deleteOnExit();
+        RosterSnapshot.fileFor(file).deleteOnExit(); // written when the store is columnar
+        try (Writer w = new FileWriter(file)) {
+            w.write("Name,Phone,DOB,Department,Company\n");
+        }
+
+        RosterHolder holder = new RosterHolder();
+        holder.set(Roster.load(file, msg -> { }));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicInteger written = new AtomicInteger();
+        AtomicLong reloads = new AtomicLong();
+        AtomicLong snapshotsChecked = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(1 + reloaders + readers);
+
+        Thread writer = new Thread(() -> {
+            try (Writer w = new FileWriter(file, true)) {
+                while (running.get() && failure.get() == null) {
+                    int batch = 1 + (int) (Math.random() * 50);
+                    for (int i = 0; i < batch; i++) {
+                        int n = written.get() + i;
+                        w.write("E" + n + ",+91" + (7000000000L + n) + "," + (n % 28 + 1) + "/" + (n % 12 + 1) + ",Dept,Co\n");
+                    }
+                    // Sometimes leave a half-written row for a reloader to trip over
+                    if (batch % 7 == 0) {
+                        w.write("E" + (written.get() + batch) + ",+91");
+                        w.flush();
+                        Thread.sleep(1);
+                        w.write((7000000000L + written.get() + batch) + ",1/1,Dept,Co\n");
+                        batch++;
+                    }
+                    w.flush();
+                    written.addAndGet(batch);
+                    Thread.sleep(1);
+                }
+            } catch (IOException | InterruptedException ex) {
+                failure.compareAndSet(null, "writer: " + ex);
+            } finally {
+                done.countDown();
+            }
+        }, "stress-writer");
+
+        for (int r = 0; r < reloaders; r++) {
+            new Thread(() -> {
+                try {
+                    while (running.get() && failure.get() == null) {
+                        if (holder.reloadIfStale(msg -> { }) != null) reloads.incrementAndGet();
+                        Thread.yield();
+                    }
+                } catch (IOException ex) {
+                    failure.compareAndSet(null, "reloader: " + ex);
+                } finally {
+                    done.countDown();
+                }
+            }, "stress-reloader-" + r).start();
+        }
+
+        for (int r = 0; r < readers; r++) {
+            new Thread(() -> {
+                try {
+                    int lastSize = 0;
+                    while (running.get() && failure.get() == null) {
+                        Roster snapshot = holder.get();
+                        String problem = checkSnapshot(snapshot);
+                        // A reload publishing over a newer snapshot would make rows disappear
+                        if (problem == null && snapshot.employees.size() < lastSize) {
+                            problem = "lost update: snapshot shrank from " + lastSize + " to " + snapshot.employees.size() + " rows";
+                        }
+                        if (problem != null) failure.compareAndSet(null, problem);
+                        lastSize = snapshot.employees.size();
+                        snapshotsChecked.incrementAndGet();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "stress-reader-" + r).start();
+        }
+
+        writer.start();
+        long deadline = System.currentTimeMillis() + seconds * 1000L;
+        while (System.currentTimeMillis() < deadline && failure.get() == null) Thread.sleep(50);
+        running.set(false);
+        done.await(30, TimeUnit.SECONDS);
+
+        // Writer has stopped; one last reload must see every row exactly once
+        Roster last = holder.reloadIfStale(msg -> { });
+        String problem = failure.get();
+        if (problem == null) problem = checkSnapshot(last);
+        if (problem == null && last.employees.size() != written.get()) {
+            problem = "lost update: wrote " + written.get() + " rows, roster has " + last.employees.size();
+        }
+        System.out.println("snapshots: " + written.get() + " rows written, " + reloads.get() + " reload calls, " +
+            snapshotsChecked.get() + " snapshots checked" + (problem == null ? "" : " - " + problem));
+        return problem == null;
+    }
+
+    // Every snapshot must be rows E0..E(n-1) in order, indexed exactly once
+    private static String checkSnapshot(Roster roster) {
+        List<Employee> employees = roster.employees;
+        int n = employees.size();
+        for (int i = 0; i < n; i++) {
+            if (!("E" + i).equals(employees.get(i).name())) {
+                return "torn snapshot: row " + i + " is " + employees.get(i).name();
+            }
+        }
+        if (roster.birthdayIndex.size() != n) {
+            return "index out of step: " + roster.birthdayIndex.size() + " indexed, " + n + " rows";
+        }
+        return null;
+    }
+
+    private static boolean cancellationStress(int seconds) throws InterruptedException {
+        int concurrency = 8;
+        SendEngine engine = new SendEngine(concurrency);
+        long deadline = System.currentTimeMillis() + seconds * 1000L;
+        int runs = 0;
+        String problem = null;
+
+        while (System.currentTimeMillis() < deadline && problem == null) {
+            CancellationToken token = new CancellationToken();
+            AtomicInteger startedAfterCancel = new AtomicInteger();
+            AtomicInteger started = new AtomicInteger();
+            List<Integer> items = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) items.add(i);
+
+            Thread canceller = new Thread(() -> {
+                try {
+                    Thread.sleep((long) (Math.random() * 20));
+                } catch (InterruptedException ignored) {
+                }
+                token.cancel("stress");
+            });
+            canceller.start();
+            engine.run(items, (item, attempt, current, total) -> {
+                started.incrementAndGet();
+                if (token.isCancelled()) startedAfterCancel.incrementAndGet();
+                Thread.sleep(0, 100000);
+                return SendResult.sent("");
+            }, token);
+            int atReturn = started.get();
+            canceller.join();
+
+            Thread.sleep(5);
+            if (started.get() != atReturn) {
+                problem = (started.get() - atReturn) + " send(s) started after run() returned";
+            } else if (startedAfterCancel.get() > concurrency) {
+                problem = startedAfterCancel.get() + " sends started after cancel (limit " + concurrency + ")";
+            }
+            runs++;
+        }
+        System.out.println("cancellation: " + runs + " cancelled runs" + (problem == null ? "" : " - " + problem));
+        return problem == null;
+    }
+}
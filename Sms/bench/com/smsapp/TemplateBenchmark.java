@@ -0,0 +1,91 @@
+package com.smsapp;
+
+import java.util.function.Function;
+
+// Compares the old per-recipient chained String.replace rendering with a compiled
+// MessageTemplate. Warms up first, then times `renders` renders of each; run with a
+// fixed heap and -XX:+UseSerialGC (or similar) so allocation numbers are comparable.
+//
+// Usage: TemplateBenchmark [renders]   (default: 1000000)
+class TemplateBenchmark {
+
+    private static final String TEMPLATE =
+        "🎉 Happy Birthday {name}! 🎂\n\n" +
+        "Wishing you a fantastic year ahead! From all of us at {department} team.\n\n" +
+        "Best regards,\n{companyName}";
+
+    private static final class Row {
+        final String name;
+        final String department;
+        final String companyName;
+
+        Row(String name, String department, String companyName) {
+            this.name = name;
+            this.department = department;
+            this.companyName = companyName;
+        }
+    }
+
+    public static void main(String[] args) {
+        int renders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Row[] rows = new Row[1024];
+        String[] departments = {"Sales", "Marketing", "Engineering", "Finance", "HR"};
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Row("Employee " + i, departments[i % departments.length], "Your Company");
+        }
+        MessageTemplate<Row> compiled = MessageTemplate.compile(TEMPLATE, TemplateBenchmark::field);
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            runReplace(rows, renders / 10);
+            runCompiled(compiled, rows, renders / 10);
+        }
+
+        System.out.printf("%,d renders%n", renders);
+        measure("  chained replace   ", () -> runReplace(rows, renders), renders);
+        measure("  compiled template ", () -> runCompiled(compiled, rows, renders), renders);
+    }
+
+    private static Function<Row, String> field(String name) {
+        switch (name) {
+            case "name": return row -> row.name;
+            case "department": return row -> row.department;
+            case "companyName": return row -> row.companyName;
+            default: return null;
+        }
+    }
+
+    private static long runReplace(Row[] rows, int renders) {
+        long chars = 0;
+        for (int i = 0; i < renders; i++) {
+            Row row = rows[i & (rows.length - 1)];
+            chars += TEMPLATE
+                .replace("{name}", row.name)
+                .replace("{department}", row.department)
+                .replace("{companyName}", row.companyName)
+                .length();
+        }
+        return chars;
+    }
+
+    private static long runCompiled(MessageTemplate<Row> template, Row[] rows, int renders) {
+        long chars = 0;
+        for (int i = 0; i < renders; i++) {
+            chars += template.render(rows[i & (rows.length - 1)]).length();
+        }
+        return chars;
+    }
+
+    interface Run {
+        long run();
+    }
+
+    private static void measure(String name, Run run, int renders) {
+        System.gc();
+        long start = System.nanoTime();
+        long chars = run.run();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%s %8.0f ms  %6.0f ns/render  (%,d chars)%n",
+            name, elapsed / 1e6, (double) elapsed / renders, chars);
+    }
+}
@@ -0,0 +1,107 @@
+package com.smsapp;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Measures p50/p99 latency per message for the legacy per-call HttpURLConnection path
+// and the pooled UltraMsgHttp transport. Starts an UltraMsgStubServer unless a base URL is given.
+//
+// Usage: TransportBenchmark [messages] [concurrency] [stubLatencyMs] [baseUrl]
+class TransportBenchmark {
+
+    interface Transport {
+        String post(String url, String body) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        long stubLatency = args.length > 2 ? Long.parseLong(args[2]) : 20;
+
+        UltraMsgStubServer stub = null;
+        String baseUrl;
+        if (args.length > 3) {
+            baseUrl = args[3];
+        } else {
+            stub = new UltraMsgStubServer(0, stubLatency);
+            stub.start();
+            baseUrl = "http://localhost:" + stub.getPort();
+        }
+        String url = baseUrl + "/instance1/messages/chat";
+        String body = "token=bench&to=919876543210&body=Happy+Birthday";
+
+        try {
+            run("legacy HttpURLConnection", TransportBenchmark::legacyPost, url, body, messages, concurrency);
+            run("pooled UltraMsgHttp", UltraMsgHttp::postForm, url, body, messages, concurrency);
+            System.out.println("Pool: " + UltraMsgHttp.getPoolStats());
+        } finally {
+            if (stub != null) stub.stop();
+            UltraMsgHttp.shutdown();
+        }
+    }
+
+    private static void run(String name, Transport transport, String url, String body,
+                            int messages, int concurrency) throws Exception {
+        long[] latencies = new long[messages];
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            int slot = i;
+            pool.execute(() -> {
+                long t0 = System.nanoTime();
+                try {
+                    transport.post(url, body);
+                } catch (Exception ex) {
+                    System.err.println(name + ": " + ex.getMessage());
+                }
+                latencies[slot] = System.nanoTime() - t0;
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        System.out.printf("%-26s %6d msgs  %8.1f msg/s  p50 %6.2f ms  p99 %6.2f ms%n",
+            name, messages, messages / (elapsed / 1e9),
+            percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6);
+    }
+
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    // The transport used before UltraMsgHttp: a new connection per call, body read line by line
+    private static String legacyPost(String urlString, String postData) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(urlString).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setConnectTimeout(30000);
+        connection.setReadTimeout(30000);
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+
+        try (OutputStream os = connection.getOutputStream()) {
+            os.write(postData.getBytes(StandardCharsets.UTF_8));
+        }
+
+        StringBuilder response = new StringBuilder();
+        try (BufferedReader br = new BufferedReader(
+            new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                response.append(line);
+            }
+        }
+        connection.disconnect();
+        return response.toString();
+    }
+}
@@ -0,0 +1,274 @@
+package com.smsapp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Local stand-in for api.ultramsg.com so transport changes can be measured without
+// sending real WhatsApp messages. Run the app with -Dultramsg.baseUrl=http://localhost:<port>
+//
+// Implements the endpoints the app calls (/messages/chat, /messages/image, /instance/status,
+// /instance/qrCode, /instance/qr, /instance/logout) with bodies that isSuccessResponse and
+// SendResult.classify understand. Misbehaviour is opt-in through a Profile, read from
+// -Dstub.* properties when run from the command line:
+//
+//   -Dstub.latency=SPEC        50 | uniform:20:80 | normal:50:10 | lognormal:50:400 (median, p99) | exp:50  (ms)
+//   -Dstub.errorRate=0.01      fraction of sends answered 500 (transient)
+//   -Dstub.throttleRate=0.01   fraction of sends answered 429 with Retry-After
+//   -Dstub.rejectRate=0.01     fraction answered 200 with an error body (permanent, like an invalid number)
+//   -Dstub.maxPerSecond=N      per-instance ceiling; sends above it get 429 (0 = none)
+//   -Dstub.retryAfter=1        Retry-After seconds on 429s
+//   -Dstub.status=authenticated   accountStatus reported by /instance/status
+//
+// Usage: java -cp "WhatsAppSender.jar;out/test;libs/*" com.smsapp.UltraMsgStubServer [port] [latency spec]
+class UltraMsgStubServer {
+    // 1x1 transparent PNG used for the QR endpoints
+    private static final String QR_PNG_BASE64 =
+        "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR42mNkYAAAAAYAAjCB0C8AAAAASUVORK5CYII=";
+
+    static {
+        // Without TCP_NODELAY, small responses stall on delayed ACKs and dominate the measured latency
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    // Simulated response time in milliseconds
+    interface LatencyModel {
+        double sampleMillis(ThreadLocalRandom random);
+
+        static LatencyModel fixed(double millis) {
+            return random -> millis;
+        }
+
+        static LatencyModel parse(String spec) {
+            String[] p = spec.trim().split(":");
+            try {
+                switch (p[0].toLowerCase()) {
+                    case "fixed":
+                        return fixed(Double.parseDouble(p[1]));
+                    case "uniform": {
+                        double min = Double.parseDouble(p[1]);
+                        double max = Double.parseDouble(p[2]);
+                        return random -> min + random.nextDouble() * (max - min);
+                    }
+                    case "normal": {
+                        double mean = Double.parseDouble(p[1]);
+                        double sd = Double.parseDouble(p[2]);
+                        return random -> Math.max(0, mean + random.nextGaussian() * sd);
+                    }
+                    case "lognormal": {
+                        // Parameterised by median and p99, which is how API latency is usually quoted
+                        double median = Double.parseDouble(p[1]);
+                        double sigma = Math.log(Double.parseDouble(p[2]) / median) / 2.326;
+                        return random -> median * Math.exp(random.nextGaussian() * sigma);
+                    }
+                    case "exp": {
+                        double mean = Double.parseDouble(p[1]);
+                        return random -> -mean * Math.log(1 - random.nextDouble());
+                    }
+                    default:
+                        return fixed(Double.parseDouble(p[0]));
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException("Bad latency spec '" + spec +
+                    "' - expected ms, uniform:min:max, normal:mean:sd, lognormal:median:p99 or exp:mean");
+            }
+        }
+    }
+
+    // How the stub behaves; the defaults are a healthy server
+    static final class Profile {
+        LatencyModel latency = LatencyModel.fixed(50);
+        double errorRate;
+        double throttleRate;
+        double rejectRate;
+        double maxPerSecond;
+        int retryAfterSeconds = 1;
+        String accountStatus = "authenticated";
+
+        static Profile fromSystemProperties(String defaultLatency) {
+            Profile profile = new Profile();
+            profile.latency = LatencyModel.parse(System.getProperty("stub.latency", defaultLatency));
+            profile.errorRate = Double.parseDouble(System.getProperty("stub.errorRate", "0"));
+            profile.throttleRate = Double.parseDouble(System.getProperty("stub.throttleRate", "0"));
+            profile.rejectRate = Double.parseDouble(System.getProperty("stub.rejectRate", "0"));
+            profile.maxPerSecond = Double.parseDouble(System.getProperty("stub.maxPerSecond", "0"));
+            profile.retryAfterSeconds = Integer.getInteger("stub.retryAfter", 1);
+            profile.accountStatus = System.getProperty("stub.status", "authenticated");
+            return profile;
+        }
+    }
+
+    // Fixed one-second window per instance, for stub.maxPerSecond
+    private static final class Window {
+        long second;
+        int count;
+
+        synchronized boolean tryAcquire(double max) {
+            long now = System.currentTimeMillis() / 1000;
+            if (now != second) {
+                second = now;
+                count = 0;
+            }
+            return ++count <= max;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private final Profile profile;
+    private final AtomicLong messageIds = new AtomicLong();
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder other = new LongAdder();
+
+    UltraMsgStubServer(int port, long latencyMillis) throws IOException {
+        this(port, fixedLatency(latencyMillis));
+    }
+
+    UltraMsgStubServer(int port, Profile profile) throws IOException {
+        this.profile = profile;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 256);
+        server.createContext("/", this::handle);
+        server.setExecutor(handlers);
+    }
+
+    private static Profile fixedLatency(long latencyMillis) {
+        Profile profile = new Profile();
+        profile.latency = LatencyModel.fixed(latencyMillis);
+        return profile;
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    String getStats() {
+        return "sent " + sent.sum() + ", 500s " + errors.sum() + ", 429s " + throttled.sum() +
+            ", rejected " + rejected.sum() + ", other calls " + other.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // Drain the request body so the connection can be reused
+            }
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double latency = profile.latency.sampleMillis(random);
+        if (latency > 0) {
+            try {
+                long nanos = (long) (latency * 1000000);
+                Thread.sleep(nanos / 1000000, (int) (nanos % 1000000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        String body;
+        if (path.endsWith("/messages/chat") || path.endsWith("/messages/image")) {
+            sendMessage(exchange, path, random);
+            return;
+        } else if (path.endsWith("/instance/status")) {
+            body = "{\"status\":{\"accountStatus\":{\"status\":\"" + profile.accountStatus + "\",\"substatus\":\"connected\"}}}";
+        } else if (path.endsWith("/instance/qrCode")) {
+            body = "{\"qrCode\":\"data:image/png;base64," + QR_PNG_BASE64 + "\"}";
+        } else if (path.endsWith("/instance/qr")) {
+            other.increment();
+            respond(exchange, 200, "image/png", java.util.Base64.getDecoder().decode(QR_PNG_BASE64));
+            return;
+        } else if (path.endsWith("/instance/logout")) {
+            body = "{\"success\":true,\"message\":\"logout\"}";
+        } else {
+            respond(exchange, 404, "application/json",
+                "{\"error\":\"unknown endpoint\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        other.increment();
+        respond(exchange, 200, "application/json", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void sendMessage(HttpExchange exchange, String path, ThreadLocalRandom random) throws IOException {
+        if (profile.maxPerSecond > 0 && !windows.computeIfAbsent(instanceOf(path), id -> new Window())
+                .tryAcquire(profile.maxPerSecond)) {
+            throttle(exchange);
+            return;
+        }
+        double roll = random.nextDouble();
+        if (roll < profile.errorRate) {
+            errors.increment();
+            respond(exchange, 500, "application/json",
+                "{\"error\":\"Internal server error\"}".getBytes(StandardCharsets.UTF_8));
+        } else if ((roll -= profile.errorRate) < profile.throttleRate) {
+            throttle(exchange);
+        } else if (roll - profile.throttleRate < profile.rejectRate) {
+            rejected.increment();
+            respond(exchange, 200, "application/json",
+                "{\"error\":[{\"to\":\"invalid WhatsApp number\"}]}".getBytes(StandardCharsets.UTF_8));
+        } else {
+            sent.increment();
+            respond(exchange, 200, "application/json",
+                ("{\"sent\":\"true\",\"message\":\"ok\",\"id\":" + messageIds.incrementAndGet() + "}")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void throttle(HttpExchange exchange) throws IOException {
+        throttled.increment();
+        exchange.getResponseHeaders().set("Retry-After", String.valueOf(profile.retryAfterSeconds));
+        respond(exchange, 429, "application/json",
+            "{\"error\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // "/instance123/messages/chat" -> "123"
+    private static String instanceOf(String path) {
+        int start = path.indexOf("/instance") + "/instance".length();
+        int end = path.indexOf('/', start);
+        return end > start ? path.substring(start, end) : "";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        String latency = args.length > 1 ? args[1] : "50";
+
+        UltraMsgStubServer stub = new UltraMsgStubServer(port, Profile.fromSystemProperties(latency));
+        stub.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println("Stub totals: " + stub.getStats())));
+        System.out.println("UltraMSG stub listening on http://localhost:" + stub.getPort() +
+            " (latency " + System.getProperty("stub.latency", latency) + " ms)");
+    }
+}
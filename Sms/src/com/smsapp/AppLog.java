@@ -0,0 +1,213 @@
+package com.smsapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.slf4j.event.Level;
+
+// Asynchronous logging pipeline behind the slf4j facade (see AppLogServiceProvider). Callers
+// only build an Event and offer it to a lock-free ring. A single writer thread drains the ring
+// in batches to a rolling log file and hands the on-screen lines to the display at most once
+// per frame (-Dlog.fps, 20 by default), so the EDT gets one update per frame however chatty a
+// campaign is. A full ring drops new events (and says so) instead of blocking a sender.
+//
+// -Dlog.level (INFO), -Dlog.bufferSize (65536 events), -Dlog.file (whatsapp-sender.log, empty to
+// disable), -Dlog.maxBytes (5 MB per file), -Dlog.files (3 rolled files kept).
+final class AppLog {
+
+    static final class Event {
+        final long time;
+        final Level level;
+        final String logger;
+        final String thread;
+        final String message;
+        final Throwable thrown;
+
+        Event(long time, Level level, String logger, String thread, String message, Throwable thrown) {
+            this.time = time;
+            this.level = level;
+            this.logger = logger;
+            this.thread = thread;
+            this.message = message;
+            this.thrown = thrown;
+        }
+    }
+
+    private static final AppLog INSTANCE = new AppLog();
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DISPLAY_TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final int BATCH = 1024;
+    private static final int MAX_PENDING_DISPLAY = 512 * 1024;
+
+    private final Level threshold = parseLevel(System.getProperty("log.level", "INFO"));
+    private final LogRing<Event> ring = new LogRing<>(Integer.getInteger("log.bufferSize", 65536));
+    private final long frameMillis = 1000L / Math.max(1, Integer.getInteger("log.fps", 20));
+    private final AtomicLong dropped = new AtomicLong();
+    private final ZoneId zone = ZoneId.systemDefault();
+    private RollingLogFile file; // writer thread only; null when disabled or failed
+    private final StringBuilder pendingDisplay = new StringBuilder(); // writer thread only
+    private long lastFrameNanos;
+    private long cachedSecond = -1;
+    private String cachedFileTime, cachedDisplayTime;
+    private volatile Consumer<String> display;
+    private final Thread writer;
+    private final long wakeMask = ring.capacity() / 4 - 1;
+
+    private AppLog() {
+        String path = System.getProperty("log.file", "whatsapp-sender.log");
+        if (!path.isEmpty()) {
+            file = new RollingLogFile(new File(path), Long.getLong("log.maxBytes", 5L * 1024 * 1024),
+                Integer.getInteger("log.files", 3));
+        }
+        writer = new Thread(this::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        String level = System.getProperty("log.level", "INFO");
+        if (!threshold.name().equalsIgnoreCase(level.trim())) {
+            publish(Level.WARN, AppLog.class.getName(), "Unknown -Dlog.level '" + level + "', logging at INFO", null);
+        }
+        // Whatever is still queued at exit reaches the file
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            while (drain(BATCH) == BATCH) {
+                // until empty
+            }
+            if (file != null) file.close();
+        }, "log-flush"));
+    }
+
+    // A typo must not stop the logger (and with it the app) from starting
+    private static Level parseLevel(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    static AppLog get() {
+        return INSTANCE;
+    }
+
+    boolean isEnabled(Level level) {
+        return level.toInt() >= threshold.toInt();
+    }
+
+    // Never blocks; safe from any thread
+    void publish(Level level, String logger, String message, Throwable thrown) {
+        Event event = new Event(System.currentTimeMillis(), level, logger, Thread.currentThread().getName(), message, thrown);
+        long seq = ring.offer(event);
+        if (seq < 0) {
+            dropped.incrementAndGet();
+        } else if ((seq & wakeMask) == 0) {
+            // Every quarter ring, wake the writer early so a burst does not wait out a whole frame
+            LockSupport.unpark(writer);
+        }
+    }
+
+    // Receives each frame's on-screen lines, newline-terminated, from the writer thread
+    void setDisplay(Consumer<String> display) {
+        this.display = display;
+    }
+
+    File getFile() {
+        return file == null ? null : file.getFile();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            // Keep draining while events arrive; once caught up, park until the next frame
+            // (or until producers have filled a quarter of the ring)
+            if (drain(BATCH) < BATCH) {
+                LockSupport.parkNanos(frameMillis * 1000000L);
+                if (Thread.interrupted()) return;
+            }
+        }
+    }
+
+    // Writes up to `max` events to the file and, once per frame, pushes the pending on-screen
+    // lines to the display. Synchronized so the exit hook's final drain cannot race the writer
+    // thread (the ring allows a single consumer). Returns the number of events taken.
+    private synchronized int drain(int max) {
+        StringBuilder fileText = new StringBuilder();
+        int n = 0;
+        Event event;
+        while (n < max && (event = ring.poll()) != null) {
+            append(event, fileText);
+            n++;
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            append(new Event(System.currentTimeMillis(), Level.WARN, AppLog.class.getName(), "log-writer",
+                lost + " log message(s) dropped - logging faster than it can be written", null), fileText);
+        }
+
+        if (fileText.length() > 0 && file != null) {
+            try {
+                file.write(fileText);
+                if (n < max) file.flush(); // caught up
+            } catch (IOException ex) {
+                pendingDisplay.append('[').append(DISPLAY_TIME.format(LocalDateTime.now())).append("] Log file disabled: ")
+                    .append(ex.getMessage()).append('\n');
+                file.close();
+                file = null;
+            }
+        }
+
+        // A flood between frames only needs its tail on screen; the file has everything
+        if (pendingDisplay.length() > MAX_PENDING_DISPLAY) {
+            int cut = pendingDisplay.indexOf("\n", pendingDisplay.length() - MAX_PENDING_DISPLAY / 2);
+            pendingDisplay.delete(0, cut + 1);
+        }
+        long now = System.nanoTime();
+        Consumer<String> sink = display;
+        if (pendingDisplay.length() > 0 && sink != null && now - lastFrameNanos >= frameMillis * 1000000L) {
+            lastFrameNanos = now;
+            sink.accept(pendingDisplay.toString());
+            pendingDisplay.setLength(0);
+        }
+        return n;
+    }
+
+    private void append(Event event, StringBuilder fileText) {
+        long second = event.time / 1000;
+        if (second != cachedSecond) {
+            // Timestamps are formatted once per second, not once per event
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), zone);
+            cachedSecond = second;
+            cachedFileTime = FILE_TIME.format(time) + '.';
+            cachedDisplayTime = "[" + DISPLAY_TIME.format(time) + "] ";
+        }
+        String logger = event.logger.substring(event.logger.lastIndexOf('.') + 1);
+
+        int millis = (int) (event.time % 1000);
+        fileText.append(cachedFileTime);
+        if (millis < 100) fileText.append('0');
+        if (millis < 10) fileText.append('0');
+        fileText.append(millis).append(' ').append(event.level);
+        for (int pad = event.level.toString().length(); pad < 5; pad++) fileText.append(' ');
+        fileText.append(" [").append(event.thread).append("] ").append(logger).append(" - ")
+            .append(event.message).append('\n');
+        if (event.thrown != null) {
+            StringWriter trace = new StringWriter();
+            event.thrown.printStackTrace(new PrintWriter(trace));
+            fileText.append(trace);
+        }
+
+        pendingDisplay.append(cachedDisplayTime);
+        if (event.level != Level.INFO) pendingDisplay.append(event.level).append(' ');
+        pendingDisplay.append(event.message);
+        if (event.thrown != null) pendingDisplay.append(": ").append(event.thrown);
+        pendingDisplay.append('\n');
+    }
+}
@@ -0,0 +1,157 @@
+package com.smsapp;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+// Recipients bucketed by birthday. A birthday key is the day of a leap year (1..366), parsed
+// once at load time, so "who has a birthday on date X" is a single array lookup. People born
+// on 29/02 are celebrated on 28/02 or 01/03 in non-leap years, depending on LeapDayPolicy.
+final class BirthdayIndex<T> {
+    enum LeapDayPolicy { FEB_28, MAR_01 }
+
+    static final int NO_KEY = -1;
+    private static final int LEAP_DAY_KEY = 60;
+    private static final int[] DAYS_IN_MONTH = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    private static final int[] DAYS_BEFORE_MONTH = new int[13];
+
+    static {
+        for (int m = 0; m < 12; m++) DAYS_BEFORE_MONTH[m + 1] = DAYS_BEFORE_MONTH[m] + DAYS_IN_MONTH[m];
+    }
+
+    private final List<T> rows;
+    private final int[][] slots; // index 1..366, row numbers into `rows`
+    private final LeapDayPolicy leapDayPolicy;
+    private final int size;
+
+    private BirthdayIndex(List<T> rows, int[][] slots, LeapDayPolicy leapDayPolicy, int size) {
+        this.rows = rows;
+        this.slots = slots;
+        this.leapDayPolicy = leapDayPolicy;
+        this.size = size;
+    }
+
+    // Counting sort of row numbers into per-day slots; O(rows) with no date parsing. Slots hold
+    // ints rather than the rows themselves, so a RosterColumns store is indexed without creating
+    // a view per row. `rows` should be RandomAccess.
+    static <T> BirthdayIndex<T> build(List<T> rows, IntUnaryOperator keyOfRow, LeapDayPolicy policy) {
+        int n = rows.size();
+        int[] counts = new int[367];
+        for (int i = 0; i < n; i++) {
+            int key = keyOfRow.applyAsInt(i);
+            if (key != NO_KEY) counts[key]++;
+        }
+        int[][] slots = new int[367][];
+        for (int k = 1; k <= 366; k++) {
+            if (counts[k] > 0) slots[k] = new int[counts[k]];
+        }
+        int[] fill = new int[367];
+        int indexed = 0;
+        for (int i = 0; i < n; i++) {
+            int key = keyOfRow.applyAsInt(i);
+            if (key != NO_KEY) {
+                slots[key][fill[key]++] = i;
+                indexed++;
+            }
+        }
+        return new BirthdayIndex<>(rows, slots, policy, indexed);
+    }
+
+    static int keyOf(int day, int month) {
+        if (month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]) return NO_KEY;
+        return DAYS_BEFORE_MONTH[month - 1] + day;
+    }
+
+    static int keyOf(LocalDate date) {
+        return keyOf(date.getDayOfMonth(), date.getMonthValue());
+    }
+
+    // Parses "DD/MM" (or "D/M") without allocating; anything else yields NO_KEY
+    static int parseKey(String dob) {
+        if (dob == null) return NO_KEY;
+        int slash = dob.indexOf('/');
+        if (slash <= 0 || slash == dob.length() - 1 || dob.indexOf('/', slash + 1) >= 0) return NO_KEY;
+        int day = parseDigits(dob, 0, slash);
+        int month = parseDigits(dob, slash + 1, dob.length());
+        return day < 0 || month < 0 ? NO_KEY : keyOf(day, month);
+    }
+
+    private static int parseDigits(String s, int from, int to) {
+        if (to - from > 2) return -1;
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    LeapDayPolicy getLeapDayPolicy() {
+        return leapDayPolicy;
+    }
+
+    List<T> on(LocalDate date) {
+        int[] slot = slots[keyOf(date)];
+        int[] leap = leapDaySlotFor(date);
+        if (leap == null) return view(slot);
+
+        List<T> merged = new ArrayList<>(length(slot) + leap.length);
+        merged.addAll(view(slot));
+        merged.addAll(view(leap));
+        return merged;
+    }
+
+    int countOn(LocalDate date) {
+        int[] leap = leapDaySlotFor(date);
+        return length(slots[keyOf(date)]) + (leap == null ? 0 : leap.length);
+    }
+
+    // Inclusive range, in date order
+    List<T> between(LocalDate from, LocalDate to) {
+        List<T> result = new ArrayList<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            result.addAll(on(d));
+        }
+        return result;
+    }
+
+    List<T> nextDays(LocalDate from, int days) {
+        return days <= 0 ? Collections.<T>emptyList() : between(from, from.plusDays(days - 1));
+    }
+
+    // Leap-day birthdays that fall on this date in a non-leap year
+    private int[] leapDaySlotFor(LocalDate date) {
+        if (date.isLeapYear() || slots[LEAP_DAY_KEY] == null) return null;
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+        boolean celebrate = leapDayPolicy == LeapDayPolicy.FEB_28 ? month == 2 && day == 28 : month == 3 && day == 1;
+        return celebrate ? slots[LEAP_DAY_KEY] : null;
+    }
+
+    private List<T> view(int[] slot) {
+        if (slot == null) return Collections.emptyList();
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                return rows.get(slot[index]);
+            }
+
+            @Override
+            public int size() {
+                return slot.length;
+            }
+        };
+    }
+
+    private static int length(int[] slot) {
+        return slot == null ? 0 : slot.length;
+    }
+}
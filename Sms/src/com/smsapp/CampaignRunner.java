@@ -0,0 +1,658 @@
+package com.smsapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.apache.http.HttpEntity;
+
+// The send pipeline shared by the Swing UI and headless mode: recipient selection, the send
+// engine with retries, the per-instance limiter/breaker, journal and dead-letter bookkeeping.
+// Everything it reports goes through a Listener, so it never touches Swing.
+final class CampaignRunner {
+    private static final long MAX_PAUSE_MILLIS = Long.getLong("breaker.maxPauseMs", 10 * 60 * 1000L);
+
+    interface Listener {
+        void log(String message);
+
+        default void sent(Employee employee, int current, int total, SendResult result) {
+        }
+
+        default void failed(Employee employee, int attempts, SendResult last) {
+        }
+
+        // Instance health or a breaker changed; called from background threads
+        default void healthChanged(InstancePool pool) {
+        }
+    }
+
+    static final class Summary {
+        final int recipients;
+        final int sent;
+        final int failed;
+        final int deferred; // not attempted: daily cap reached or stopped; a resumed run sends them
+        final File deadLetterFile; // null when every row was delivered
+        final boolean stopped;
+
+        Summary(int recipients, int sent, int failed, int deferred, File deadLetterFile, boolean stopped) {
+            this.recipients = recipients;
+            this.sent = sent;
+            this.failed = failed;
+            this.deferred = deferred;
+            this.deadLetterFile = deadLetterFile;
+            this.stopped = stopped;
+        }
+    }
+
+    // Everything a send worker needs, captured when the campaign starts
+    private static final class Campaign {
+        final InstancePool pool;
+        final MessageTemplate<Employee> template;
+        final String imagePath;
+        final LocalDate date;
+        final BooleanSupplier stopRequested;
+        final AtomicInteger sent = new AtomicInteger();
+        final AtomicInteger deferred = new AtomicInteger();
+        final Set<String> capReached = ConcurrentHashMap.newKeySet(); // instances already logged
+
+        Campaign(InstancePool pool, MessageTemplate<Employee> template, String imagePath,
+                 LocalDate date, BooleanSupplier stopRequested) {
+            this.pool = pool;
+            this.template = template;
+            this.imagePath = imagePath;
+            this.date = date;
+            this.stopRequested = stopRequested;
+        }
+    }
+
+    private final Listener listener;
+    private final SendJournal journal; // null when the journal could not be opened
+    // Stands in for the journal when it could not be opened: idempotency keys this process sent
+    // or skipped, so a resumed run or a later scheduled window does not message anyone twice.
+    // Lost on exit; keys of days before yesterday are dropped as campaigns move on.
+    private final Set<String> completedWithoutJournal = ConcurrentHashMap.newKeySet();
+    private final MediaCache mediaCache;
+    private final ScheduledExecutorService healthMonitor;
+    private final AtomicBoolean sendingPaused = new AtomicBoolean();
+
+    CampaignRunner(Listener listener, SendJournal journal, MediaCache mediaCache, ScheduledExecutorService healthMonitor) {
+        this.listener = listener;
+        this.journal = journal;
+        this.mediaCache = mediaCache;
+        this.healthMonitor = healthMonitor;
+    }
+
+    private void log(String message) {
+        listener.log(message);
+    }
+
+    MediaCache getMediaCache() {
+        return mediaCache;
+    }
+
+    // Instance health
+
+    String refreshInstanceHealth(UltraMsgInstance instance) {
+        String statusUrl = UltraMsgHttp.instanceUrl(instance.instanceId, "/instance/status?token=" + instance.token);
+        String result;
+        long start = System.nanoTime();
+        try {
+            result = UltraMsgHttp.get(statusUrl);
+        } catch (Exception ex) {
+            result = "Error: " + ex.getMessage();
+        }
+        Metrics.Endpoint.STATUS.latency.recordNanos(System.nanoTime() - start);
+        instance.updateHealth(result);
+        return result;
+    }
+
+    // Re-checks every instance during a campaign; instances that drop to standby leave the rotation
+    void monitorInstanceHealth(InstancePool pool) {
+        for (UltraMsgInstance instance : pool.getInstances()) {
+            UltraMsgInstance.Health before = instance.getHealth();
+            refreshInstanceHealth(instance);
+            UltraMsgInstance.Health after = instance.getHealth();
+
+            if (before != after) {
+                log(instance.getLabel() + " is now " + after +
+                    (instance.isInRotation() ? " - back in rotation" : " - removed from rotation"));
+            }
+        }
+        listener.healthChanged(pool);
+    }
+
+    // Runs the half-open probe for every breaker whose open period has elapsed
+    void probeOpenCircuits(InstancePool pool) {
+        for (UltraMsgInstance instance : pool.getInstances()) {
+            if (!instance.breaker.tryStartProbe()) continue;
+
+            log(instance.getLabel() + ": circuit half-open, probing instance status...");
+            refreshInstanceHealth(instance);
+            boolean healthy = instance.getHealth() == UltraMsgInstance.Health.AUTHENTICATED;
+            instance.breaker.probeResult(healthy);
+            if (healthy) {
+                log(instance.getLabel() + ": circuit closed - back in rotation");
+            } else {
+                log(instance.getLabel() + ": probe failed (" + instance.getHealth() + "), circuit open for another " +
+                    instance.breaker.getOpenMillis() / 1000 + "s");
+            }
+        }
+        listener.healthChanged(pool);
+    }
+
+    // Templates
+
+    MessageTemplate<Employee> compileTemplate(String text, String[] columns) {
+        MessageTemplate<Employee> template = MessageTemplate.compile(text, field -> resolveTemplateField(field, columns));
+        if (!template.getUnknownFields().isEmpty()) {
+            log("Unknown placeholders left as-is: " + template.getUnknownFields());
+        }
+        return template;
+    }
+
+    private static Function<Employee, String> resolveTemplateField(String field, String[] columns) {
+        switch (field.toLowerCase()) {
+            case "name": return emp -> emp.name();
+            case "phone": return Employee::phone;
+            case "dob": return emp -> emp.dob();
+            case "department": return emp -> emp.department();
+            case "companyname": return emp -> emp.companyName();
+            default:
+                break;
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(field)) {
+                int column = i;
+                return emp -> emp.column(column);
+            }
+        }
+        return null;
+    }
+
+    // Recipients
+
+    // Today's birthdays (or every row of a dead-letter file), one per number, minus rows the
+    // journal (or, without one, this process) already shows as done when resuming
+    List<Employee> selectRecipients(Roster roster, LocalDate campaignDate, boolean resume) {
+        List<Employee> recipients = roster.isDeadLetter()
+            ? new ArrayList<>(roster.employees)
+            : new ArrayList<>(roster.birthdayIndex.on(campaignDate));
+        if (roster.isDeadLetter()) {
+            log("Dead-letter file loaded - re-running all " + recipients.size() + " rows");
+        }
+
+        // The same number listed twice gets one message (numbers are already in E.164 form, so
+        // "+91 98765 43210" and "9876543210" are the same number)
+        LongHashSet numbers = new LongHashSet(recipients.size());
+        for (Iterator<Employee> it = recipients.iterator(); it.hasNext();) {
+            Employee emp = it.next();
+            if (emp.phoneNumber() != PhoneNumbers.INVALID && !numbers.add(emp.phoneNumber())) {
+                log("Skipping " + emp.name() + ": duplicate of an earlier row with the same number");
+                it.remove();
+            }
+        }
+
+        if (journal != null && resume && !recipients.isEmpty()) {
+            journal.forgetExpired();
+            boolean resendInDoubt = Boolean.getBoolean("journal.resendInDoubt");
+            int alreadyDone = 0;
+            int inDoubt = 0;
+            int alreadyFailed = 0;
+            List<Employee> remaining = new ArrayList<>(recipients.size());
+            for (Employee emp : recipients) {
+                SendJournal.State state = journal.stateOf(SendJournal.idempotencyKey(campaignDate, emp));
+                if (state != null && state.isCompleted()) {
+                    alreadyDone++;
+                } else if (state == SendJournal.State.QUEUED && !resendInDoubt) {
+                    inDoubt++;
+                } else if (state == SendJournal.State.FAILED_PERMANENT && !roster.isDeadLetter()) {
+                    // Already dead-lettered today; loading that file is how they are re-run
+                    alreadyFailed++;
+                } else {
+                    remaining.add(emp);
+                }
+            }
+            if (alreadyDone > 0) log("Resume: skipping " + alreadyDone + " recipient(s) already sent today");
+            if (alreadyFailed > 0) {
+                log("Resume: skipping " + alreadyFailed + " recipient(s) that already failed today" +
+                    " (load the dead-letter file to retry them)");
+            }
+            if (inDoubt > 0) {
+                log("Resume: skipping " + inDoubt + " recipient(s) whose last send was interrupted" +
+                    " (check WhatsApp, or run with -Djournal.resendInDoubt=true)");
+            }
+            recipients = remaining;
+        } else if (journal == null && resume && !recipients.isEmpty()) {
+            // Keys start with the ISO campaign date, so they sort by day
+            String cutoff = campaignDate.minusDays(1).toString();
+            completedWithoutJournal.removeIf(key -> key.compareTo(cutoff) < 0);
+            int before = recipients.size();
+            recipients.removeIf(emp -> completedWithoutJournal.contains(SendJournal.idempotencyKey(campaignDate, emp)));
+            if (recipients.size() < before) {
+                log("Resume: skipping " + (before - recipients.size()) + " recipient(s) already sent today by this" +
+                    " session (no send journal, so this is forgotten on exit)");
+            }
+        }
+        return recipients;
+    }
+
+    // Campaign
+
+    // Sends to every recipient and blocks until done or stopped. Instances must have been
+    // status-checked so the pool knows which are in rotation.
+    Summary run(Roster roster, List<Employee> recipients, InstancePool pool, CampaignSettings settings,
+                LocalDate campaignDate, BooleanSupplier stopRequested) throws InterruptedException {
+        int healthy = Math.max(1, pool.healthyCount());
+        int concurrency = settings.concurrencyPerInstance * healthy;
+
+        File deadLetterDir = roster.file != null ? roster.file.getAbsoluteFile().getParentFile() : new File(".");
+        DeadLetterFile deadLetters = new DeadLetterFile(new File(deadLetterDir,
+            "dead-letter-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv"),
+            roster.columns.length > 0 ? roster.columns : new String[] {"Name", "WhatsAppNumber", "DOB", "Department", "CompanyName"});
+        Campaign campaign = new Campaign(pool, compileTemplate(settings.messageTemplate, roster.columns),
+            settings.imagePath, campaignDate, stopRequested);
+        RetryPolicy retryPolicy = RetryPolicy.withRetries(settings.retries);
+
+        log("STARTING BULK SENDING TO " + recipients.size() + " EMPLOYEES");
+        if (!settings.imagePath.isEmpty()) {
+            log("Including images with messages");
+            prepareImage(settings.imagePath);
+        }
+
+        for (UltraMsgInstance instance : pool.getInstances()) {
+            instance.limiter.configure(settings.ratePerSecond, settings.burst, settings.jitterMillis, settings.dailyCap);
+            // Sends made before a restart still count against today's cap
+            instance.limiter.startDay(settings.zone, journal == null ? 0
+                : journal.sentOn(LocalDate.now(settings.zone), settings.zone, instance.instanceId));
+        }
+        log("Send engine: " + concurrency + " parallel sends on " + ExecutionLanes.describeSendLane() + " across " +
+            pool.healthyCount() + " instance(s), each limited to " + settings.ratePerSecond +
+            " messages/sec (burst " + settings.burst + ")");
+
+        SendEngine engine = new SendEngine(concurrency);
+        ScheduledFuture<?> healthCheck =
+            healthMonitor.scheduleWithFixedDelay(() -> monitorInstanceHealth(pool), 30, 30, TimeUnit.SECONDS);
+        ScheduledFuture<?> circuitProbe =
+            healthMonitor.scheduleWithFixedDelay(() -> probeOpenCircuits(pool), 1, 1, TimeUnit.SECONDS);
+        try {
+            engine.run(recipients, (emp, attempt, current, total) ->
+                    sendBirthdayMessage(campaign, emp, attempt, current, total),
+                retryPolicy, new SendEngine.RetryListener<Employee>() {
+                    @Override
+                    public void retrying(Employee emp, int nextAttempt, long delayMillis, SendResult last) {
+                        Metrics.RETRIES.increment();
+                        log("Will retry " + emp.name() + " in " + (delayMillis + 500) / 1000 + "s (attempt " +
+                            nextAttempt + "/" + retryPolicy.maxAttempts + "): " + last.describe());
+                    }
+
+                    @Override
+                    public void gaveUp(Employee emp, int attempts, SendResult last) {
+                        Metrics.FAILED.increment();
+                        String reason = last == null ? "stopped" : last.describe();
+                        log("Giving up on " + emp.name() + " after " + attempts + " attempt(s): " + reason);
+                        // Rejected or out of retries: later windows today skip it. A retry still
+                        // pending when stopped stays FAILED, so the next window picks it up.
+                        if (journal != null && last != null && !retryPolicy.shouldRetry(last, attempts)) {
+                            journal.record(SendJournal.idempotencyKey(campaignDate, emp),
+                                SendJournal.State.FAILED_PERMANENT, null);
+                        }
+                        try {
+                            deadLetters.add(emp.copyColumns(), reason);
+                        } catch (IOException ex) {
+                            log("Could not write dead-letter row for " + emp.name() + ": " + ex.getMessage());
+                        }
+                        listener.failed(emp, attempts, last);
+                    }
+                },
+                stopRequested);
+        } finally {
+            healthCheck.cancel(false);
+            circuitProbe.cancel(false);
+            deadLetters.close();
+        }
+
+        log("BULK SENDING COMPLETED!");
+        log("Successfully sent to " + campaign.sent.get() + " out of " + recipients.size() + " employees");
+        if (mediaCache.getHits() + mediaCache.getMisses() > 0) {
+            log(mediaCache.getSummary());
+        }
+        log("Metrics: " + Metrics.summary().replace(" • ", ", ").replace("\n", "; "));
+        if (deadLetters.getRows() > 0) {
+            log(deadLetters.getRows() + " row(s) could not be delivered. Saved to " +
+                deadLetters.getFile().getAbsolutePath() + " - load that file to re-run them.");
+        }
+        if (campaign.deferred.get() > 0) {
+            log(campaign.deferred.get() + " recipient(s) not contacted (daily cap reached or stopped)" +
+                " - run the campaign again with resume to send them.");
+        }
+        return new Summary(recipients.size(), campaign.sent.get(), deadLetters.getRows(), campaign.deferred.get(),
+            deadLetters.getRows() > 0 ? deadLetters.getFile() : null, stopRequested.getAsBoolean());
+    }
+
+    private SendResult sendBirthdayMessage(Campaign campaign, Employee employee, int attempt, int current, int total) {
+        InstancePool pool = campaign.pool;
+        String key = SendJournal.idempotencyKey(campaign.date, employee);
+
+        // Normalized to E.164 at load time; rows that could not be are reported then and skipped here
+        if (employee.phoneNumber() == PhoneNumbers.INVALID) {
+            log("Skipping " + employee.name() + ": invalid phone number '" + employee.column(1) + "'");
+            if (journal != null) {
+                journal.record(key, SendJournal.State.SKIPPED, null);
+            } else {
+                completedWithoutJournal.add(key);
+            }
+            return SendResult.failed("Invalid phone number");
+        }
+        String phone = PhoneNumbers.format(employee.phoneNumber());
+
+        UltraMsgInstance instance = pool.acquire();
+        if (instance == null) {
+            // Every instance is out of rotation: hold this send until one recovers
+            if (sendingPaused.compareAndSet(false, true)) {
+                log("No instance in rotation - sending paused until an instance recovers");
+            }
+            try {
+                instance = pool.acquire(MAX_PAUSE_MILLIS, campaign.stopRequested);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            if (instance == null) {
+                log("Failed to send to " + employee.name() + ": no authenticated instance in rotation");
+                return SendResult.transientFailure("No authenticated instance in rotation");
+            }
+            if (sendingPaused.compareAndSet(true, false)) {
+                log(instance.getLabel() + " is available again - sending resumed");
+            }
+        }
+
+        // Nothing more goes out through this instance today; leave the row for a resumed run
+        if (instance.limiter.isCapReached()) {
+            instance.leave();
+            campaign.deferred.incrementAndGet();
+            logCapReached(campaign, instance);
+            return SendResult.deferred("Daily cap reached");
+        }
+
+        SendResult result = null;
+        try {
+            String instanceId = instance.instanceId;
+            String token = instance.token;
+            String message = campaign.template.render(employee);
+
+            // The QUEUED record must be on disk before the API call, so a crash can never
+            // lose track of a message that might have gone out
+            if (journal != null) {
+                try {
+                    journal.awaitDurable(journal.record(key, SendJournal.State.QUEUED, null));
+                } catch (IOException ex) {
+                    log("Not sending to " + employee.name() + ": send journal write failed: " + ex.getMessage());
+                    return SendResult.failed("Send journal write failed: " + ex.getMessage());
+                }
+            }
+
+            log("Sending to " + employee.name() + " (" + current + "/" + total + ")" +
+                (attempt > 1 ? " attempt " + attempt : "") +
+                (pool.size() > 1 ? " via " + instance.getLabel() : "") + "...");
+
+            String imagePath = campaign.imagePath;
+            if (!imagePath.isEmpty()) {
+                // Check if it's a URL or local file
+                if (imagePath.startsWith("http://") || imagePath.startsWith("https://")) {
+                    // It's a URL - use directly
+                    result = sendImageWithURL(instanceId, token, phone, message, imagePath, key);
+                } else {
+                    // It's a local file - use enhanced handling
+                    result = sendImageWithUpload(instanceId, token, phone, message, imagePath, key);
+                }
+
+                // Fall back to text only when the image itself was rejected. A transient failure
+                // (timeout, 429, 5xx) goes back to SendEngine for a backed-off retry instead: the
+                // image may already have been delivered, and the instance needs the pause.
+                if (result.outcome == SendResult.Outcome.PERMANENT) {
+                    log("Image send failed, falling back to text message only");
+                    // The rejected image was not delivered; the text takes over its daily-cap slot
+                    if (result.status > 0) instance.limiter.uncount();
+                    Metrics.FALLBACKS.increment();
+                    result = sendTextMessage(instanceId, token, phone, message, key);
+                }
+            } else {
+                // Text only message
+                result = sendTextMessage(instanceId, token, phone, message, key);
+            }
+
+            if (result.success) {
+                campaign.sent.incrementAndGet();
+                Metrics.SENT.increment();
+                listener.sent(employee, current, total, result);
+            } else if (result.isDeferred()) {
+                campaign.deferred.incrementAndGet();
+                if (!Thread.currentThread().isInterrupted()) logCapReached(campaign, instance);
+            }
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            log("Failed to send to " + employee.name() + ": " + ex.getMessage());
+            result = SendResult.failed(ex.getMessage());
+        } finally {
+            instance.leave();
+            if (journal != null && journal.stateOf(key) == SendJournal.State.QUEUED) {
+                boolean sent = result != null && result.success;
+                SendJournal.State state = sent ? SendJournal.State.SENT
+                    : result != null && result.isDeferred() ? SendJournal.State.DEFERRED : SendJournal.State.FAILED;
+                journal.record(key, state, sent ? result.messageId : null, sent ? instance.instanceId : null);
+            } else if (journal == null && result != null && result.success) {
+                completedWithoutJournal.add(key);
+            }
+        }
+        return result;
+    }
+
+    // UltraMSG send calls
+
+    private SendResult sendImageWithURL(String instanceId, String token, String phone, String caption, String imageUrl,
+                                        String referenceId) {
+        try {
+            SendResult denied = acquireSendPermit(instanceId);
+            if (denied != null) return denied;
+
+            log("Using image URL: " + imageUrl);
+
+            String url = UltraMsgHttp.instanceUrl(instanceId, "/messages/image");
+            String postData = "token=" + URLEncoder.encode(token, "UTF-8") +
+                            "&to=" + URLEncoder.encode(phone, "UTF-8") +
+                            "&caption=" + URLEncoder.encode(caption, "UTF-8") +
+                            "&image=" + URLEncoder.encode(imageUrl, "UTF-8") +
+                            "&referenceId=" + URLEncoder.encode(referenceId, "UTF-8");
+
+            SendResult result = sendMessageRequest(instanceId, Metrics.Endpoint.IMAGE, url, UltraMsgHttp.formEntity(postData));
+
+            if (result.success) {
+                log("Image message sent successfully via URL");
+            } else {
+                log("Image URL send failed: " + result.describe());
+            }
+            return result;
+        } catch (Exception ex) {
+            log("Image URL send error: " + ex.getMessage());
+            return SendResult.failed(ex.getMessage());
+        }
+    }
+
+    // Shrinks and encodes a local image before the first send, so no send worker waits on it
+    // and the log shows what recipients will get once rather than per send
+    private void prepareImage(String imagePath) {
+        if (imagePath.startsWith("http://") || imagePath.startsWith("https://")) return;
+        File imageFile = new File(imagePath);
+        if (!imageFile.exists()) return; // each send reports it
+        try {
+            String fileName = imageFile.getName();
+            EncodedMedia image = mediaCache.get(imageFile, getMimeType(fileName.substring(fileName.lastIndexOf(".") + 1)));
+            log(image.preprocessed != null
+                ? "Image resized for upload: " + image.preprocessed
+                : "Image sent as is: " + fileName + " (" + imageFile.length() / 1024 + " KB)");
+        } catch (IOException ex) {
+            log("Could not read image " + imagePath + ": " + ex.getMessage());
+        }
+    }
+
+    private SendResult sendImageWithUpload(String instanceId, String token, String phone, String caption, String imagePath,
+                                           String referenceId) {
+        try {
+            File imageFile = new File(imagePath);
+            if (!imageFile.exists()) {
+                log("Image file not found: " + imagePath);
+                return SendResult.failed("Image file not found: " + imagePath);
+            }
+
+            SendResult denied = acquireSendPermit(instanceId);
+            if (denied != null) return denied;
+
+            log("Using local image file: " + imageFile.getName());
+
+            // Get MIME type and extension
+            String fileName = imageFile.getName();
+            String extension = fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
+            String mimeType = getMimeType(extension);
+
+            // Encoded once per file version, then streamed into each request body
+            EncodedMedia encodedImage = mediaCache.get(imageFile, mimeType);
+
+            // ✅ Use /messages/image endpoint instead of /messages/document
+            String url = UltraMsgHttp.instanceUrl(instanceId, "/messages/image");
+            FormBody postData = new FormBody()
+                .add("token", token)
+                .add("to", phone)
+                .add("caption", caption)
+                .add("referenceId", referenceId)
+                .add("image", encodedImage);
+
+            SendResult result = sendMessageRequest(instanceId, Metrics.Endpoint.IMAGE, url, postData);
+
+            if (result.success) {
+                log("✅ Image sent successfully as visible image");
+            } else {
+                log("❌ Image send failed: " + result.describe());
+            }
+            return result;
+
+        } catch (Exception ex) {
+            log("⚠️ Image upload error: " + ex.getMessage());
+            return SendResult.failed(ex.getMessage());
+        }
+    }
+
+    private SendResult sendTextMessage(String instanceId, String token, String phone, String message, String referenceId) {
+        try {
+            SendResult denied = acquireSendPermit(instanceId);
+            if (denied != null) return denied;
+
+            String url = UltraMsgHttp.instanceUrl(instanceId, "/messages/chat");
+            String postData = "token=" + URLEncoder.encode(token, "UTF-8") +
+                            "&to=" + URLEncoder.encode(phone, "UTF-8") +
+                            "&body=" + URLEncoder.encode(message, "UTF-8") +
+                            "&referenceId=" + URLEncoder.encode(referenceId, "UTF-8");
+
+            SendResult result = sendMessageRequest(instanceId, Metrics.Endpoint.CHAT, url, UltraMsgHttp.formEntity(postData));
+
+            if (result.success) {
+                log("Text message sent successfully");
+            } else {
+                log("Text send failed: " + result.describe());
+            }
+            return result;
+        } catch (Exception ex) {
+            log("Text message error: " + ex.getMessage());
+            return SendResult.failed(ex.getMessage());
+        }
+    }
+
+    // Null once the instance may send; otherwise a deferred result saying why not. Nothing has
+    // been sent at this point, so the recipient must not be failed or dead-lettered.
+    private SendResult acquireSendPermit(String instanceId) {
+        if (RateLimiter.forInstance(instanceId).acquire()) return null;
+        return SendResult.deferred(Thread.currentThread().isInterrupted() ? "Stopped" : "Daily cap reached");
+    }
+
+    private void logCapReached(Campaign campaign, UltraMsgInstance instance) {
+        if (campaign.capReached.add(instance.instanceId)) {
+            log("Daily cap of " + instance.limiter.getDailyCap() + " messages reached for " +
+                (campaign.pool.size() > 1 ? instance.getLabel() : "this instance") +
+                " - its remaining recipients are left for the next run");
+        }
+    }
+
+    static boolean isSuccessResponse(String result) {
+        if (result == null || result.isEmpty()) {
+            return false;
+        }
+
+        return result.contains("\"sent\":\"true\"") ||
+               result.contains("\"sent\":true") ||
+               result.contains("\"success\":true") ||
+               result.contains("\"success\":\"true\"") ||
+               result.contains("\"message\":\"ok\"");
+    }
+
+    static String getMimeType(String extension) {
+        switch (extension.toLowerCase()) {
+            case "jpg": case "jpeg": return "image/jpeg";
+            case "png": return "image/png";
+            case "gif": return "image/gif";
+            case "bmp": return "image/bmp";
+            case "webp": return "image/webp";
+            default: return "image/jpeg";
+        }
+    }
+
+    // Message sends keep the HTTP status so transient failures can be told apart from rejections
+    // and feed the instance's circuit breaker. An open breaker fails the call without touching the network.
+    private SendResult sendMessageRequest(String instanceId, Metrics.Endpoint endpoint, String urlString, HttpEntity body) {
+        CircuitBreaker breaker = CircuitBreaker.forInstance(instanceId);
+        if (!breaker.allowRequest()) {
+            return SendResult.transientFailure("Circuit open for instance" + instanceId);
+        }
+
+        long start = System.nanoTime();
+        SendResult result;
+        Metrics.IN_FLIGHT.increment();
+        try {
+            UltraMsgHttp.Response response = UltraMsgHttp.postForResponse(urlString, body);
+            Metrics.BYTES_UPLOADED.add(Math.max(0, body.getContentLength()));
+            result = SendResult.classify(response.status, response.body, isSuccessResponse(response.body),
+                response.retryAfterMillis);
+        } catch (Exception ex) {
+            result = SendResult.transientFailure("Error: " + ex.getMessage());
+        } finally {
+            Metrics.IN_FLIGHT.decrement();
+        }
+        long elapsed = System.nanoTime() - start;
+        endpoint.latency.recordNanos(elapsed);
+
+        // Recipient-specific rejections (invalid number, bad request) say nothing about the instance
+        int status = result.status;
+        boolean instanceFailure = !result.success
+            && (status == 0 || status >= 500 || status == 429 || status == 401 || status == 403);
+        if (breaker.record(instanceFailure, TimeUnit.NANOSECONDS.toMillis(elapsed))) {
+            log("instance" + instanceId + ": circuit OPEN (" + breaker.getTripReason() + ") - out of rotation for " +
+                breaker.getOpenMillis() / 1000 + "s, queued sends move to other instances");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,148 @@
+package com.smsapp;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Fires the birthday campaign every day at a local time in a given time zone. A day can be
+// split into `windows` staggered runs, `windowMinutes` apart, so a large day is spread out
+// instead of sent in one burst; window i sends its share of whoever is still unsent (see
+// windowShare), so the last window also picks up anything an earlier one missed. "Still
+// unsent" comes from the send journal, or from CampaignRunner's in-memory record when the
+// journal could not be opened.
+//
+// The schedule is checked against the wall clock every few seconds instead of sleeping until
+// the fire time, so DST changes, clock adjustments and laptop sleep cannot make it drift.
+// Jobs run one at a time on the scheduler's own thread; a window that comes due while the
+// previous one is still sending fires as soon as it finishes.
+final class CampaignScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(CampaignScheduler.class);
+
+    interface Job {
+        // campaignDate is the day the window belongs to, even if the window runs past midnight
+        void fire(LocalDate campaignDate, int window, int windows) throws Exception;
+    }
+
+    private static final long TICK_SECONDS = Long.getLong("scheduler.tickSeconds", 15);
+
+    private final LocalTime sendAt;
+    private final ZoneId zone;
+    private final int windows;
+    private final long windowMinutes;
+    private final Job job;
+    private final ScheduledExecutorService executor;
+
+    private ScheduledFuture<?> ticker;
+    private volatile LocalDate nextDate;
+    private volatile int nextWindow;
+
+    CampaignScheduler(LocalTime sendAt, ZoneId zone, int windows, long windowMinutes, Job job) {
+        if (windows < 1) throw new IllegalArgumentException("windows must be >= 1");
+        if (windows > 1 && windowMinutes < 1) throw new IllegalArgumentException("window spacing must be >= 1 minute");
+        if ((windows - 1) * windowMinutes >= 24 * 60) throw new IllegalArgumentException("windows must all fit within one day");
+        this.sendAt = sendAt;
+        this.zone = zone;
+        this.windows = windows;
+        this.windowMinutes = windowMinutes;
+        this.job = job;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "campaign-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    synchronized void start() {
+        if (ticker != null) return;
+        skipTo(ZonedDateTime.now(zone));
+        ticker = executor.scheduleWithFixedDelay(this::tick, 0, TICK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Stops future firings; a job that is already running is left to finish
+    synchronized void stop() {
+        if (ticker != null) ticker.cancel(false);
+        ticker = null;
+        executor.shutdown();
+    }
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    ZonedDateTime getNextFireTime() {
+        return slotTime(nextDate, nextWindow);
+    }
+
+    String describe() {
+        String at = sendAt + " " + zone.getId();
+        return windows == 1 ? "daily at " + at
+            : "daily at " + at + " in " + windows + " windows " + windowMinutes + " min apart";
+    }
+
+    private void tick() {
+        LocalDate date = nextDate;
+        int window = nextWindow;
+        ZonedDateTime now = ZonedDateTime.now(zone);
+        if (now.isBefore(slotTime(date, window))) return;
+
+        // Slept through to the next day's first window: drop the stale slots rather than
+        // send yesterday's birthdays
+        if (!now.isBefore(slotTime(date.plusDays(1), 0))) {
+            skipTo(now);
+            return;
+        }
+
+        // Advance first so a failing job cannot fire the same slot again
+        if (window + 1 < windows) {
+            nextWindow = window + 1;
+        } else {
+            nextWindow = 0;
+            nextDate = date.plusDays(1);
+        }
+
+        try {
+            job.fire(date, window, windows);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Keep the schedule alive; the next window or day tries again
+            LOG.error("Scheduled campaign failed", e);
+        }
+    }
+
+    // Moves to the first slot after `now`; starting from yesterday covers windows past midnight
+    void skipTo(ZonedDateTime now) {
+        LocalDate date = now.toLocalDate().minusDays(1);
+        int window = 0;
+        while (!slotTime(date, window).isAfter(now)) {
+            if (++window == windows) {
+                window = 0;
+                date = date.plusDays(1);
+            }
+        }
+        nextDate = date;
+        nextWindow = window;
+    }
+
+    private ZonedDateTime slotTime(LocalDate date, int window) {
+        return date.atTime(sendAt).atZone(zone).plusMinutes(window * windowMinutes);
+    }
+
+    // The part of `remaining` window `window` (0-based) of `windows` should send: an even share
+    // of what is left, and everything in the last window
+    static <T> List<T> windowShare(List<T> remaining, int window, int windows) {
+        int windowsLeft = windows - window;
+        if (windowsLeft <= 1) return remaining;
+        int share = (remaining.size() + windowsLeft - 1) / windowsLeft;
+        return remaining.subList(0, share);
+    }
+}
@@ -0,0 +1,17 @@
+package com.smsapp;
+
+import java.time.ZoneId;
+
+// Per-run send settings, filled from the Sending tab or from command-line/config options
+final class CampaignSettings {
+    String messageTemplate = "";
+    String imagePath = ""; // URL or local file; empty for text only
+    int concurrencyPerInstance = 4;
+    double ratePerSecond = 1.0;
+    int burst = 1;
+    long jitterMillis = 0;
+    int dailyCap = 0; // 0 = unlimited
+    ZoneId zone = ZoneId.systemDefault(); // the daily cap restarts at midnight here
+    int retries = 3;
+    boolean resume = true; // skip recipients the journal shows as sent
+}
@@ -0,0 +1,30 @@
+package com.smsapp;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+// Cooperative stop signal for one campaign run. Every run gets a fresh token, so stopping one
+// run cannot leak into the next the way a shared flag that is reset at the end can. Passes
+// straight to SendEngine/CampaignRunner as their stop condition.
+final class CancellationToken implements BooleanSupplier {
+    private final AtomicReference<String> reason = new AtomicReference<>();
+
+    // Returns true for the call that actually cancelled
+    boolean cancel(String why) {
+        return reason.compareAndSet(null, why == null ? "cancelled" : why);
+    }
+
+    boolean isCancelled() {
+        return reason.get() != null;
+    }
+
+    // null until cancelled
+    String getReason() {
+        return reason.get();
+    }
+
+    @Override
+    public boolean getAsBoolean() {
+        return isCancelled();
+    }
+}
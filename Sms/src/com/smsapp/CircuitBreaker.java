@@ -0,0 +1,141 @@
+package com.smsapp;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+// Per-instance circuit breaker. CLOSED: sends flow and the outcome of the last `windowSize`
+// calls is tracked. When enough of them failed or were slow, the breaker trips OPEN and the
+// instance leaves the rotation. Once the open period has passed, one HALF_OPEN probe (an
+// /instance/status call) decides whether to close again or re-open for a longer period.
+// Tunable with -Dbreaker.* system properties.
+class CircuitBreaker {
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final ConcurrentMap<String, CircuitBreaker> INSTANCES = new ConcurrentHashMap<>();
+
+    private static final int WINDOW_SIZE = Integer.getInteger("breaker.windowSize", 20);
+    private static final int MIN_CALLS = Integer.getInteger("breaker.minCalls", 8);
+    private static final int FAILURE_RATE_PERCENT = Integer.getInteger("breaker.failureRatePercent", 50);
+    private static final long SLOW_CALL_MILLIS = Long.getLong("breaker.slowCallMs", 10000);
+    private static final int SLOW_CALL_RATE_PERCENT = Integer.getInteger("breaker.slowCallRatePercent", 50);
+    private static final long OPEN_MILLIS = Long.getLong("breaker.openMs", 30000);
+    private static final long MAX_OPEN_MILLIS = Long.getLong("breaker.maxOpenMs", 300000);
+
+    private final long baseOpenMillis;
+    private final long maxOpenMillis;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private final boolean[] failed = new boolean[WINDOW_SIZE];
+    private final boolean[] slow = new boolean[WINDOW_SIZE];
+    private int calls, next, failures, slowCalls;
+    private long openedAt, openMillis;
+    private int trips; // consecutive trips without closing; lengthens the open period
+    private String tripReason = "";
+
+    CircuitBreaker() {
+        this(OPEN_MILLIS, MAX_OPEN_MILLIS, System::currentTimeMillis);
+    }
+
+    // Open periods start at `baseOpenMillis` and double per consecutive trip up to `maxOpenMillis`
+    CircuitBreaker(long baseOpenMillis, long maxOpenMillis, LongSupplier clock) {
+        this.baseOpenMillis = baseOpenMillis;
+        this.maxOpenMillis = maxOpenMillis;
+        this.clock = clock;
+    }
+
+    static CircuitBreaker forInstance(String instanceId) {
+        return INSTANCES.computeIfAbsent(instanceId, id -> new CircuitBreaker());
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized String getTripReason() {
+        return tripReason;
+    }
+
+    synchronized long getOpenMillis() {
+        return openMillis;
+    }
+
+    synchronized boolean allowRequest() {
+        return state == State.CLOSED;
+    }
+
+    // Records one API call; returns true if this call tripped the breaker
+    synchronized boolean record(boolean failure, long latencyMillis) {
+        if (state != State.CLOSED) return false; // late result from before the trip
+
+        boolean isSlow = latencyMillis >= SLOW_CALL_MILLIS;
+        if (calls == WINDOW_SIZE) {
+            if (failed[next]) failures--;
+            if (slow[next]) slowCalls--;
+        } else {
+            calls++;
+        }
+        failed[next] = failure;
+        slow[next] = isSlow;
+        if (failure) failures++;
+        if (isSlow) slowCalls++;
+        next = (next + 1) % WINDOW_SIZE;
+
+        if (calls < MIN_CALLS) return false;
+        if (failures * 100 >= FAILURE_RATE_PERCENT * calls) {
+            trip(failures + " of the last " + calls + " calls failed");
+            return true;
+        }
+        if (slowCalls * 100 >= SLOW_CALL_RATE_PERCENT * calls) {
+            trip(slowCalls + " of the last " + calls + " calls took over " + SLOW_CALL_MILLIS + " ms");
+            return true;
+        }
+        return false;
+    }
+
+    // Moves an OPEN breaker whose open period has elapsed to HALF_OPEN. Only the caller that
+    // gets true runs the probe.
+    synchronized boolean tryStartProbe() {
+        if (state != State.OPEN || clock.getAsLong() - openedAt < openMillis) return false;
+        state = State.HALF_OPEN;
+        return true;
+    }
+
+    synchronized void probeResult(boolean healthy) {
+        if (state != State.HALF_OPEN) return;
+        if (healthy) {
+            close();
+        } else {
+            trip("status probe failed");
+        }
+    }
+
+    // Manual status check confirmed the instance is fine
+    synchronized void reset() {
+        close();
+    }
+
+    private void trip(String reason) {
+        state = State.OPEN;
+        tripReason = reason;
+        openedAt = clock.getAsLong();
+        openMillis = Math.min(maxOpenMillis, baseOpenMillis << Math.min(trips, 16));
+        trips++;
+        clearWindow();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        trips = 0;
+        tripReason = "";
+        clearWindow();
+    }
+
+    private void clearWindow() {
+        calls = next = failures = slowCalls = 0;
+        Arrays.fill(failed, false);
+        Arrays.fill(slow, false);
+    }
+}
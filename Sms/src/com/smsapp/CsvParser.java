@@ -0,0 +1,257 @@
+package com.smsapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// RFC 4180 CSV reader over a UTF-8 file read onto the heap in one go. Handles quoted fields (with embedded
+// delimiters, newlines and "" escapes), CRLF/LF endings, a leading BOM and "//" comment lines.
+// Fields are decoded from a reusable byte buffer into a reusable String[] per parser. Files
+// above PARALLEL_THRESHOLD are split into record-aligned chunks parsed on a ForkJoinPool;
+// results keep file order.
+//
+// The file is read, not memory-mapped: a mapping lives until its buffer is garbage-collected,
+// and on Windows it keeps Excel from saving the file (and a reload from seeing the edit).
+final class CsvParser {
+    static final int PARALLEL_THRESHOLD = 8 * 1024 * 1024;
+    private static final int HEADER_PROBE_BYTES = 64 * 1024;
+    private static final char[] DELIMITER_CANDIDATES = {',', ';', '\t', '|'};
+
+    interface HeaderHandler {
+        void header(String[] fields, int count);
+    }
+
+    interface RowMapper<T> {
+        // Return null to skip the row. `fields` is reused for the next row.
+        T map(String[] fields, int count);
+    }
+
+    private final byte delimiter;
+    private byte[] field = new byte[256];
+    private String[] fields = new String[8];
+    private int fieldCount;
+
+    private CsvParser(byte delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    // Parses the file; the delimiter is detected from the header line when `delimiter` is 0
+    static <T> List<T> parseFile(File file, char delimiter, HeaderHandler headerHandler, RowMapper<T> mapper)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("CSV file too large: " + size + " bytes");
+            if (size == 0) return new ArrayList<>();
+
+            int end = (int) size;
+            ByteBuffer data = read(channel, 0, end);
+            int start = hasBom(data, end) ? 3 : 0;
+
+            byte delim = (byte) (delimiter != 0 ? delimiter : detectDelimiter(data, start, end));
+            CsvParser headerParser = new CsvParser(delim);
+            int bodyStart = headerParser.parseRecord(data, start, end);
+            if (headerHandler != null) headerHandler.header(headerParser.fields, headerParser.fieldCount);
+
+            int workers = ForkJoinPool.getCommonPoolParallelism();
+            if (end - bodyStart < PARALLEL_THRESHOLD || workers < 2) {
+                List<T> out = new ArrayList<>();
+                headerParser.parseRange(data, bodyStart, end, mapper, out);
+                return out;
+            }
+            return parseParallel(data, bodyStart, end, delim, workers * 2, mapper);
+        }
+    }
+
+    // Parses only the records in [from, to) - rows appended after an earlier parseFile. `from`
+    // must be a record start; the delimiter is re-detected from the header when `delimiter` is 0.
+    // Only the range (and, for detection, the start of the header line) is read.
+    static <T> List<T> parseRange(File file, char delimiter, long from, long to, RowMapper<T> mapper)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (to > channel.size() || to > Integer.MAX_VALUE) throw new IOException("CSV range beyond end of file");
+            List<T> out = new ArrayList<>();
+            if (from >= to) return out;
+
+            byte delim = (byte) delimiter;
+            if (delim == 0) {
+                ByteBuffer header = read(channel, 0, (int) Math.min(from, HEADER_PROBE_BYTES));
+                int headerEnd = header.limit();
+                delim = (byte) detectDelimiter(header, hasBom(header, headerEnd) ? 3 : 0, headerEnd);
+            }
+            int length = (int) (to - from);
+            new CsvParser(delim).parseRange(read(channel, from, length), 0, length, mapper, out);
+            return out;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(length);
+        while (data.hasRemaining()) {
+            if (channel.read(data, position + data.position()) < 0) throw new IOException("CSV file shrank while reading");
+        }
+        return data;
+    }
+
+    static <T> List<T> parseParallel(ByteBuffer data, int start, int end, byte delim, int chunks,
+                                     RowMapper<T> mapper) throws IOException {
+        int[] bounds = recordBoundaries(data, start, end, chunks);
+        List<Callable<List<T>>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            int from = bounds[i];
+            int to = bounds[i + 1];
+            tasks.add(() -> {
+                List<T> out = new ArrayList<>((to - from) / 48 + 16);
+                new CsvParser(delim).parseRange(data, from, to, mapper, out);
+                return out;
+            });
+        }
+
+        List<T> result = new ArrayList<>();
+        try {
+            for (Future<List<T>> chunk : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                result.addAll(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("CSV parsing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("CSV parsing failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return result;
+    }
+
+    // Splits [start, end) into roughly equal ranges that begin at a record start. A single pass
+    // tracks quote parity so newlines inside quoted fields are never used as split points.
+    static int[] recordBoundaries(ByteBuffer data, int start, int end, int chunks) {
+        int[] bounds = new int[chunks + 1];
+        int n = 0;
+        bounds[n++] = start;
+        long step = (long) (end - start) / chunks;
+        long target = start + step;
+        boolean inQuotes = false;
+        for (int i = start; i < end && n < chunks; i++) {
+            byte b = data.get(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes && i >= target) {
+                bounds[n++] = i + 1;
+                target = i + 1 + step;
+            }
+        }
+        bounds[n++] = end;
+        int[] trimmed = new int[n];
+        System.arraycopy(bounds, 0, trimmed, 0, n);
+        return trimmed;
+    }
+
+    private <T> void parseRange(ByteBuffer data, int pos, int end, RowMapper<T> mapper, List<T> out) {
+        while (pos < end) {
+            // "//" comment lines are skipped up to the next newline, as before
+            if (pos + 1 < end && data.get(pos) == '/' && data.get(pos + 1) == '/') {
+                while (pos < end && data.get(pos) != '\n') pos++;
+                pos++;
+                continue;
+            }
+            pos = parseRecord(data, pos, end);
+            T row = mapper.map(fields, fieldCount);
+            if (row != null) out.add(row);
+        }
+    }
+
+    // Reads one record starting at pos into fields/fieldCount; returns the start of the next record
+    private int parseRecord(ByteBuffer data, int pos, int end) {
+        fieldCount = 0;
+        while (true) {
+            int len = 0;
+            if (pos < end && data.get(pos) == '"') {
+                pos++;
+                while (pos < end) {
+                    byte b = data.get(pos++);
+                    if (b == '"') {
+                        if (pos < end && data.get(pos) == '"') {
+                            len = append(len, (byte) '"');
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        len = append(len, b);
+                    }
+                }
+                // Anything between the closing quote and the delimiter is kept verbatim
+                while (pos < end) {
+                    byte b = data.get(pos);
+                    if (b == delimiter || b == '\n' || b == '\r') break;
+                    len = append(len, b);
+                    pos++;
+                }
+            } else {
+                while (pos < end) {
+                    byte b = data.get(pos);
+                    if (b == delimiter || b == '\n' || b == '\r') break;
+                    len = append(len, b);
+                    pos++;
+                }
+            }
+            addField(len);
+
+            if (pos >= end) return end;
+            byte b = data.get(pos++);
+            if (b == delimiter) continue;
+            if (b == '\r' && pos < end && data.get(pos) == '\n') pos++;
+            return pos;
+        }
+    }
+
+    private int append(int len, byte b) {
+        if (len == field.length) {
+            byte[] bigger = new byte[field.length * 2];
+            System.arraycopy(field, 0, bigger, 0, len);
+            field = bigger;
+        }
+        field[len] = b;
+        return len + 1;
+    }
+
+    private void addField(int len) {
+        if (fieldCount == fields.length) {
+            String[] bigger = new String[fields.length * 2];
+            System.arraycopy(fields, 0, bigger, 0, fieldCount);
+            fields = bigger;
+        }
+        fields[fieldCount++] = len == 0 ? "" : new String(field, 0, len, StandardCharsets.UTF_8);
+    }
+
+    private static boolean hasBom(ByteBuffer data, int end) {
+        return end >= 3 && (data.get(0) & 0xff) == 0xEF && (data.get(1) & 0xff) == 0xBB && (data.get(2) & 0xff) == 0xBF;
+    }
+
+    // Picks the candidate that occurs most often (outside quotes) in the header line; ',' on ties
+    private static char detectDelimiter(ByteBuffer data, int start, int end) {
+        int[] counts = new int[DELIMITER_CANDIDATES.length];
+        boolean inQuotes = false;
+        for (int i = start; i < end; i++) {
+            byte b = data.get(i);
+            if (b == '"') inQuotes = !inQuotes;
+            if (inQuotes) continue;
+            if (b == '\n' || b == '\r') break;
+            for (int c = 0; c < DELIMITER_CANDIDATES.length; c++) {
+                if (b == DELIMITER_CANDIDATES[c]) counts[c]++;
+            }
+        }
+        int best = 0;
+        for (int c = 1; c < counts.length; c++) {
+            if (counts[c] > counts[best]) best = c;
+        }
+        return DELIMITER_CANDIDATES[best];
+    }
+}
@@ -0,0 +1,81 @@
+package com.smsapp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// Rows that could not be delivered, written as a CSV in the same layout as the data file
+// plus a LastError column. Loading the file back into the app re-runs exactly these rows.
+final class DeadLetterFile {
+    static final String ERROR_COLUMN = "LastError";
+
+    private final File file;
+    private final String[] header;
+    private Writer writer;
+    private int rows;
+
+    DeadLetterFile(File file, String[] header) {
+        this.file = file;
+        this.header = header;
+    }
+
+    // True when a loaded header belongs to a dead-letter file
+    static boolean isDeadLetterHeader(String[] columns) {
+        return columns.length > 0 && ERROR_COLUMN.equalsIgnoreCase(columns[columns.length - 1]);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    synchronized int getRows() {
+        return rows;
+    }
+
+    synchronized void add(String[] columns, String error) throws IOException {
+        if (writer == null) {
+            boolean fresh = !file.exists() || file.length() == 0;
+            writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+            if (fresh) writeRow(header, ERROR_COLUMN);
+        }
+        String[] padded = columns;
+        if (columns.length < header.length) {
+            padded = new String[header.length];
+            for (int i = 0; i < padded.length; i++) padded[i] = i < columns.length ? columns[i] : "";
+        }
+        writeRow(padded, error);
+        writer.flush();
+        rows++;
+    }
+
+    synchronized void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+        }
+        writer = null;
+    }
+
+    private void writeRow(String[] columns, String last) throws IOException {
+        // A dead-letter source already ends in LastError; replace it rather than add another
+        int count = isDeadLetterHeader(header) ? header.length - 1 : Math.max(header.length, columns.length);
+        for (int i = 0; i < count; i++) {
+            writer.write(quote(i < columns.length ? columns[i] : ""));
+            writer.write(',');
+        }
+        writer.write(quote(last));
+        writer.write('\n');
+    }
+
+    // RFC 4180 quoting, matching what CsvParser reads
+    private static String quote(String value) {
+        if (value == null) return "";
+        boolean needsQuotes = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+            || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0 || value.startsWith("//");
+        return needsQuotes ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
@@ -0,0 +1,98 @@
+package com.smsapp;
+
+// One recipient row from the data file. Immutable, so a Roster snapshot can be shared by the
+// EDT, the send workers and a reload in progress without locking. A row is either an object of
+// its own (Employee.of) or a flyweight view into a RosterColumns store that decodes a field
+// only when it is read; callers cannot tell the two apart.
+abstract class Employee {
+    // Data file columns with a meaning of their own; anything further is a template field
+    static final int NAME = 0;
+    static final int PHONE = 1;
+    static final int DOB = 2; // Format: DD/MM
+    static final int DEPARTMENT = 3;
+    static final int COMPANY = 4;
+
+    // E.164 digits (PhoneNumbers), PhoneNumbers.INVALID if unparseable
+    abstract long phoneNumber();
+
+    // Day of leap year, parsed once at load time
+    abstract int birthdayKey();
+
+    // Raw value of a data file column, "" past the end of a short row
+    abstract String column(int index);
+
+    abstract int columnCount();
+
+    // Takes ownership of `columns`; callers pass a fresh, trimmed array and never touch it again
+    static Employee of(long phoneNumber, String[] columns) {
+        return new Fields(phoneNumber, columns);
+    }
+
+    String name() {
+        return column(NAME);
+    }
+
+    String dob() {
+        return column(DOB);
+    }
+
+    String department() {
+        return column(DEPARTMENT);
+    }
+
+    // The company column when the file has one, otherwise the department
+    String companyName() {
+        String company = column(COMPANY);
+        return !company.isEmpty() ? company : department();
+    }
+
+    // "+919876543210", or the number as written in the file when it could not be normalized
+    String phone() {
+        long number = phoneNumber();
+        return number != PhoneNumbers.INVALID ? PhoneNumbers.format(number) : column(PHONE);
+    }
+
+    String[] copyColumns() {
+        String[] copy = new String[columnCount()];
+        for (int i = 0; i < copy.length; i++) copy[i] = column(i);
+        return copy;
+    }
+
+    // A row that holds its own values
+    private static final class Fields extends Employee {
+        private final long phoneNumber;
+        private final int birthdayKey;
+        private final String[] columns;
+
+        Fields(long phoneNumber, String[] columns) {
+            this.phoneNumber = phoneNumber;
+            this.columns = columns;
+            this.birthdayKey = BirthdayIndex.parseKey(column(DOB));
+        }
+
+        @Override
+        long phoneNumber() {
+            return phoneNumber;
+        }
+
+        @Override
+        int birthdayKey() {
+            return birthdayKey;
+        }
+
+        @Override
+        String column(int index) {
+            return index < columns.length ? columns[index] : "";
+        }
+
+        @Override
+        int columnCount() {
+            return columns.length;
+        }
+
+        @Override
+        String[] copyColumns() {
+            return columns.clone();
+        }
+    }
+}
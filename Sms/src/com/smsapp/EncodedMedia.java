@@ -0,0 +1,248 @@
+package com.smsapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+// A local image as a form-encoded "data:<mime>;base64,..." value. The encoding is done in
+// fixed-size chunks straight from a FileChannel, so the exact byte length is known up front
+// and the value can be written to a request without building it as a String. Small files
+// may be held pre-encoded (see MediaCache); large ones are re-streamed from disk per send.
+// Images shrunk by ImagePreprocessor are always held in memory.
+final class EncodedMedia {
+    private static final int CHUNK = 3 * 16 * 1024; // multiple of 3 so only the last chunk is padded
+    private static final byte[] ALPHABET =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PLUS = "%2B".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SLASH = "%2F".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PAD = "%3D".getBytes(StandardCharsets.US_ASCII);
+
+    final File file;
+    final String mimeType;
+    private final byte[] prefix;
+    private final long length;
+    private final byte[] encoded; // null when streamed from disk
+    final String preprocessed; // what ImagePreprocessor did, null when the file is sent as it is
+
+    private EncodedMedia(File file, String mimeType, byte[] prefix, long length, byte[] encoded, String preprocessed) {
+        this.file = file;
+        this.mimeType = mimeType;
+        this.prefix = prefix;
+        this.length = length;
+        this.encoded = encoded;
+        this.preprocessed = preprocessed;
+    }
+
+    static EncodedMedia streamed(File file, String mimeType) throws IOException {
+        byte[] prefix = prefixFor(mimeType);
+        CountingOutputStream counter = new CountingOutputStream();
+        encodeFile(file, counter);
+        return new EncodedMedia(file, mimeType, prefix, prefix.length + counter.count, null, null);
+    }
+
+    static EncodedMedia inMemory(File file, String mimeType) throws IOException {
+        byte[] prefix = prefixFor(mimeType);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(estimateCapacity(file.length()));
+        buffer.write(prefix, 0, prefix.length);
+        encodeFile(file, buffer);
+        return new EncodedMedia(file, mimeType, prefix, buffer.size(), buffer.toByteArray(), null);
+    }
+
+    // The preprocessed bytes of `file`, in place of its content
+    static EncodedMedia preprocessed(File file, ImagePreprocessor.Result image) throws IOException {
+        byte[] prefix = prefixFor(image.mimeType);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(estimateCapacity(image.data.length));
+        buffer.write(prefix, 0, prefix.length);
+        encode(Channels.newChannel(new ByteArrayInputStream(image.data)), buffer);
+        return new EncodedMedia(file, image.mimeType, prefix, buffer.size(), buffer.toByteArray(), image.summary);
+    }
+
+    // Exact number of bytes writeTo will produce
+    long length() {
+        return length;
+    }
+
+    boolean isInMemory() {
+        return encoded != null;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        if (encoded != null) {
+            out.write(encoded);
+        } else {
+            out.write(prefix);
+            encodeFile(file, out);
+        }
+    }
+
+    // The bytes writeTo produces, as a stream; a file is opened on the first read and encoded
+    // chunk by chunk as it is consumed
+    InputStream openStream() {
+        if (encoded != null) return new ByteArrayInputStream(encoded);
+        return new SequenceInputStream(new ByteArrayInputStream(prefix), new EncodingInputStream(file));
+    }
+
+    private static byte[] prefixFor(String mimeType) throws IOException {
+        return URLEncoder.encode("data:" + mimeType + ";base64,", "UTF-8").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Base64 size plus headroom for the %2B/%2F escapes
+    private static int estimateCapacity(long fileSize) {
+        long base64 = (fileSize + 2) / 3 * 4;
+        return (int) Math.min(Integer.MAX_VALUE - 8, base64 + base64 / 16 + 64);
+    }
+
+    private static void encodeFile(File file, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            encode(channel, out);
+        }
+    }
+
+    // Base64-encodes the channel's content and URL-escapes the output in one pass, using constant memory
+    private static void encode(ReadableByteChannel channel, OutputStream out) throws IOException {
+        ByteBuffer in = ByteBuffer.allocate(CHUNK);
+        byte[] outChunk = new byte[CHUNK / 3 * 4 * 3];
+        boolean more = true;
+        while (more) {
+            more = readChunk(channel, in);
+            if (in.hasRemaining()) {
+                int n = encodeChunk(in.array(), in.limit(), outChunk);
+                out.write(outChunk, 0, n);
+            }
+        }
+    }
+
+    // Fills `in` (flipped on return) with the next CHUNK bytes, fewer only at the end of the
+    // channel; false once the end is reached
+    private static boolean readChunk(ReadableByteChannel channel, ByteBuffer in) throws IOException {
+        in.clear();
+        boolean more = true;
+        while (in.hasRemaining()) {
+            if (channel.read(in) < 0) {
+                more = false;
+                break;
+            }
+        }
+        in.flip();
+        return more;
+    }
+
+    private static int encodeChunk(byte[] src, int len, byte[] dst) {
+        int d = 0;
+        int i = 0;
+        for (; i + 2 < len; i += 3) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            d = put(dst, d, ALPHABET[bits >>> 18 & 0x3f]);
+            d = put(dst, d, ALPHABET[bits >>> 12 & 0x3f]);
+            d = put(dst, d, ALPHABET[bits >>> 6 & 0x3f]);
+            d = put(dst, d, ALPHABET[bits & 0x3f]);
+        }
+        int remaining = len - i;
+        if (remaining > 0) {
+            int bits = (src[i] & 0xff) << 16 | (remaining == 2 ? (src[i + 1] & 0xff) << 8 : 0);
+            d = put(dst, d, ALPHABET[bits >>> 18 & 0x3f]);
+            d = put(dst, d, ALPHABET[bits >>> 12 & 0x3f]);
+            if (remaining == 2) {
+                d = put(dst, d, ALPHABET[bits >>> 6 & 0x3f]);
+            } else {
+                System.arraycopy(PAD, 0, dst, d, 3);
+                d += 3;
+            }
+            System.arraycopy(PAD, 0, dst, d, 3);
+            d += 3;
+        }
+        return d;
+    }
+
+    private static int put(byte[] dst, int d, byte c) {
+        if (c == '+') {
+            System.arraycopy(PLUS, 0, dst, d, 3);
+            return d + 3;
+        }
+        if (c == '/') {
+            System.arraycopy(SLASH, 0, dst, d, 3);
+            return d + 3;
+        }
+        dst[d] = c;
+        return d + 1;
+    }
+
+    // encodeFile as a pull stream, one encoded chunk buffered at a time
+    private static final class EncodingInputStream extends InputStream {
+        private final File file;
+        private final ByteBuffer in = ByteBuffer.allocate(CHUNK);
+        private final byte[] chunk = new byte[CHUNK / 3 * 4 * 3];
+        private FileChannel channel;
+        private int pos;
+        private int limit;
+        private boolean more = true;
+
+        EncodingInputStream(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? chunk[pos++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(len, limit - pos);
+            System.arraycopy(chunk, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return limit - pos;
+        }
+
+        // False at the end of the encoded data
+        private boolean fill() throws IOException {
+            while (pos == limit) {
+                if (!more) return false;
+                if (channel == null) channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                more = readChunk(channel, in);
+                pos = 0;
+                limit = in.hasRemaining() ? encodeChunk(in.array(), in.limit(), chunk) : 0;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            more = false;
+            pos = limit;
+            if (channel != null) channel.close();
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.smsapp;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executors for the app's blocking work, kept in separate lanes so one kind of work can
+// never queue behind another:
+//   control  - status checks, QR codes, logout: a few platform threads of their own, so an
+//              interactive click is served even while a campaign saturates the send lane
+//   campaign - the long-running campaign driver (one at a time)
+//   send     - one task per in-flight HTTP send. On Java 21+ these are virtual threads, so
+//              thousands of blocked sends cost no platform threads and the instance rate
+//              limiter, not the thread count, sets throughput. Older JVMs get a fixed pool.
+//
+// -Dsend.threads=auto (default: virtual when the JVM has them) | virtual | platform.
+// The app targets Java 8, so virtual threads are reached by reflection.
+final class ExecutionLanes {
+    private static final ThreadFactory VIRTUAL = virtualThreadFactory();
+    private static final Method NEW_THREAD_PER_TASK = threadPerTaskMethod();
+
+    private ExecutionLanes() {
+    }
+
+    static boolean virtualThreadsAvailable() {
+        return VIRTUAL != null && NEW_THREAD_PER_TASK != null;
+    }
+
+    static boolean useVirtualThreads() {
+        String mode = System.getProperty("send.threads", "auto");
+        return !"platform".equalsIgnoreCase(mode) && virtualThreadsAvailable();
+    }
+
+    static String describeSendLane() {
+        if (useVirtualThreads()) return "virtual threads";
+        return "platform threads" + ("virtual".equalsIgnoreCase(System.getProperty("send.threads"))
+            ? " (virtual threads need Java 21+)" : "");
+    }
+
+    static ExecutorService newControlLane() {
+        return Executors.newFixedThreadPool(Integer.getInteger("control.threads", 2), platformThreads("control"));
+    }
+
+    static ExecutorService newCampaignLane() {
+        return Executors.newSingleThreadExecutor(platformThreads("campaign"));
+    }
+
+    // At most `concurrency` tasks run at once - callers bound in-flight work themselves
+    static ExecutorService newSendLane(int concurrency) {
+        if (useVirtualThreads()) {
+            try {
+                return (ExecutorService) NEW_THREAD_PER_TASK.invoke(null, VIRTUAL);
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // Fall back to platform threads
+            }
+        }
+        return Executors.newFixedThreadPool(concurrency, platformThreads("send-worker"));
+    }
+
+    static ThreadFactory platformThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // Thread.ofVirtual().name("send-vt-", 1).factory()
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, "send-vt-", 1L);
+            return (ThreadFactory) ofVirtual.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; // before Java 21
+        }
+    }
+
+    private static Method threadPerTaskMethod() {
+        try {
+            return Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.smsapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+// application/x-www-form-urlencoded request body that writes its fields straight to the
+// connection. Media fields stream from EncodedMedia, so no image is ever held as a String,
+// and Content-Length is the exact byte count computed before anything is sent.
+class FormBody extends AbstractHttpEntity {
+    private static final byte[] EQUALS = {'='};
+    private static final byte[] AMPERSAND = {'&'};
+
+    private final List<Object> parts = new ArrayList<>();
+
+    FormBody() {
+        setContentType(ContentType.APPLICATION_FORM_URLENCODED.toString());
+    }
+
+    FormBody add(String name, String value) {
+        try {
+            byte[] encoded = (URLEncoder.encode(name, "UTF-8") + "=" + URLEncoder.encode(value, "UTF-8"))
+                .getBytes(StandardCharsets.US_ASCII);
+            parts.add(encoded);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return this;
+    }
+
+    FormBody add(String name, EncodedMedia media) {
+        try {
+            parts.add(URLEncoder.encode(name, "UTF-8").getBytes(StandardCharsets.US_ASCII));
+            parts.add(media);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public long getContentLength() {
+        long length = 0;
+        boolean first = true;
+        for (Object part : parts) {
+            if (part instanceof EncodedMedia) {
+                length += 1 + ((EncodedMedia) part).length(); // '=' + value
+            } else {
+                if (!first) length += 1; // '&'
+                length += ((byte[]) part).length;
+                first = false;
+            }
+        }
+        return length;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        boolean first = true;
+        for (Object part : parts) {
+            if (part instanceof EncodedMedia) {
+                out.write('=');
+                ((EncodedMedia) part).writeTo(out);
+            } else {
+                if (!first) out.write('&');
+                out.write((byte[]) part);
+                first = false;
+            }
+        }
+        out.flush();
+    }
+
+    // The same bytes as writeTo, for callers that read the entity (EntityUtils, retry and
+    // redirect handling). Media is encoded as the stream is read, not buffered up front.
+    @Override
+    public InputStream getContent() {
+        List<InputStream> streams = new ArrayList<>();
+        boolean first = true;
+        for (Object part : parts) {
+            if (part instanceof EncodedMedia) {
+                streams.add(new ByteArrayInputStream(EQUALS));
+                streams.add(((EncodedMedia) part).openStream());
+            } else {
+                if (!first) streams.add(new ByteArrayInputStream(AMPERSAND));
+                streams.add(new ByteArrayInputStream((byte[]) part));
+                first = false;
+            }
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
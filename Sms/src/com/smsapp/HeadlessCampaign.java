@@ -0,0 +1,430 @@
+package com.smsapp;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Runs one birthday campaign without the Swing UI, for cron jobs and headless servers. Never
+// touches AWT, so startup is just the JVM plus the HTTP client. Options come from the command
+// line or a properties file (same keys without the leading dashes; the command line wins).
+//
+// Usage: HeadlessCampaign --data roster.csv --instance ID --token TOKEN --message "Happy Birthday {name}!"
+//
+// Exit codes: 0 all delivered (or nobody to message), 1 some rows dead-lettered, 2 bad options,
+// 3 no authenticated instance, 4 data file or template unreadable, 5 stopped or daily cap reached
+// before everyone was messaged (run again to resume). Ctrl+C or SIGTERM lets in-flight sends
+// finish and be journaled, then the JVM exits with the signal's status (130/143), not 5.
+//
+// Library logging (HTTP client etc.) goes through AppLog to whatsapp-sender.log in the working
+// directory; --log-file moves it, --log-file "" turns it off.
+// With --at it stays up as a daemon and runs the campaign every day (see CampaignScheduler).
+final class HeadlessCampaign {
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILURES = 1;
+    static final int EXIT_USAGE = 2;
+    static final int EXIT_NO_INSTANCE = 3;
+    static final int EXIT_DATA = 4;
+    static final int EXIT_STOPPED = 5;
+
+    private static final AtomicBoolean SHUTTING_DOWN = new AtomicBoolean();
+
+    private static final String USAGE = String.join("\n",
+        "Usage: HeadlessCampaign [options]",
+        "  --config FILE          properties file with any of the options below (without --)",
+        "  --data FILE            CSV/TXT/XLS/XLSX roster (required)",
+        "  --message TEXT         message template, or",
+        "  --template FILE        read the template from a file",
+        "  --image PATH|URL       image to send with each message",
+        "  --country-code N       country code for numbers written without one (default 91)",
+        "  --instance ID          UltraMSG instance id (required)",
+        "  --token TOKEN          UltraMSG token (required)",
+        "  --instances FILE       extra 'instanceId,token' lines",
+        "  --strategy NAME        round-robin (default) or least-loaded",
+        "  --concurrency N        parallel sends per instance (default 4)",
+        "  --rate N               messages/sec per instance (default 1.0)",
+        "  --burst N              burst per instance (default 1)",
+        "  --jitter-ms N          random delay per send (default 0)",
+        "  --daily-cap N          per-instance daily cap, 0 = none (default 0)",
+        "  --retries N            retries for transient failures (default 3)",
+        "  --no-resume            also message people the journal shows as sent today",
+        "  --date YYYY-MM-DD      campaign date (default today)",
+        "  --journal FILE         send journal (default send-journal.log)",
+        "  --dry-run              list today's recipients without sending",
+        "  --at HH:MM             stay running and send every day at this time",
+        "  --zone ZONE            time zone for --at and the daily cap, e.g. Asia/Kolkata (default system)",
+        "  --windows N            spread each day over N staggered runs (default 1)",
+        "  --window-minutes N     minutes between windows (default 30)",
+        "  --metrics-port N       serve Prometheus metrics on 127.0.0.1:N (default off)",
+        "  --json                 one JSON object per line on stdout instead of log text",
+        "  --log-file FILE        diagnostic log (default whatsapp-sender.log in the working directory,",
+        "                         \"\" for none)",
+        "",
+        "Exit codes: 0 done, 1 some rows dead-lettered, 2 bad options, 3 no authenticated instance,",
+        "4 data or template unreadable, 5 stopped or daily cap reached (run again to resume).",
+        "Ctrl+C/SIGTERM finishes in-flight sends, then exits with the signal's status (130/143).");
+
+    private final Properties options;
+    private final boolean json;
+    private final PrintStream out = System.out;
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+    private final CancellationToken stop = new CancellationToken();
+
+    private CampaignSettings settings;
+    private InstancePool pool;
+    private CampaignRunner runner;
+    private final RosterHolder roster = new RosterHolder();
+    private volatile boolean networkUsed;
+
+    private HeadlessCampaign(Properties options) {
+        this.options = options;
+        this.json = flag("json");
+    }
+
+    public static void main(String[] args) {
+        int status = run(args);
+        // After Ctrl+C/SIGTERM the JVM is already exiting with the signal's status, and
+        // System.exit would block forever behind the running shutdown hooks
+        if (!SHUTTING_DOWN.get()) System.exit(status);
+    }
+
+    static int run(String[] args) {
+        Properties options;
+        try {
+            options = parseOptions(args);
+        } catch (IllegalArgumentException | IOException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        if (options.containsKey("help")) {
+            System.out.println(USAGE);
+            return EXIT_OK;
+        }
+        // Read by AppLog when the first library message is logged
+        if (options.containsKey("log-file")) System.setProperty("log.file", options.getProperty("log-file"));
+        return new HeadlessCampaign(options).execute();
+    }
+
+    // --key value, --key=value or a bare --flag; --config FILE is loaded first
+    static Properties parseOptions(String[] args) throws IOException {
+        Properties cli = new Properties();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + arg);
+            String key = arg.substring(2);
+            String value = "true";
+            int eq = key.indexOf('=');
+            if (eq >= 0) {
+                value = key.substring(eq + 1);
+                key = key.substring(0, eq);
+            } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                value = args[++i];
+            }
+            cli.setProperty(key, value);
+        }
+
+        Properties options = new Properties();
+        String config = cli.getProperty("config");
+        if (config != null) {
+            try (Reader reader = new InputStreamReader(new FileInputStream(config), StandardCharsets.UTF_8)) {
+                options.load(reader);
+            }
+        }
+        options.putAll(cli);
+        return options;
+    }
+
+    private int execute() {
+        CountDownLatch stopRequested = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // Ctrl+C / SIGTERM: stop dispatching and let in-flight sends finish and be journaled
+            SHUTTING_DOWN.set(true);
+            stop.cancel("Shutdown signal");
+            stopRequested.countDown();
+            try {
+                finished.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+        }, "headless-stop"));
+
+        ScheduledExecutorService healthMonitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "instance-health");
+            t.setDaemon(true);
+            return t;
+        });
+        SendJournal journal = null;
+        MetricsServer metrics = null;
+        try {
+            LocalDate campaignDate;
+            File dataFile;
+            CampaignScheduler scheduler = null;
+            try {
+                dataFile = new File(required("data"));
+                if (options.containsKey("country-code")) PhoneNumbers.setDefaultCountryCode(intOption("country-code", 0));
+                settings = readSettings();
+                pool = InstancePool.parse(required("instance"), required("token"), readOptionalFile("instances"));
+                pool.setStrategy("least-loaded".equalsIgnoreCase(options.getProperty("strategy"))
+                    ? InstancePool.Strategy.LEAST_LOADED : InstancePool.Strategy.ROUND_ROBIN);
+                campaignDate = options.containsKey("date") ? LocalDate.parse(options.getProperty("date"))
+                    : LocalDate.now(settings.zone);
+                if (options.containsKey("at")) {
+                    // Staggered windows rely on resume (journal or in-memory) to know who is still unsent
+                    if (!settings.resume) throw new IllegalArgumentException("--no-resume cannot be combined with --at");
+                    scheduler = new CampaignScheduler(LocalTime.parse(options.getProperty("at")), settings.zone,
+                        intOption("windows", 1), intOption("window-minutes", 30), this::fireScheduled);
+                }
+                metrics = MetricsServer.start(intOption("metrics-port", Integer.getInteger("metrics.port", 0)), this::log);
+            } catch (IllegalArgumentException | DateTimeException ex) {
+                error(ex.getMessage());
+                return EXIT_USAGE;
+            }
+
+            try {
+                roster.set(Roster.load(dataFile, this::log));
+            } catch (IOException ex) {
+                error("Data file error: " + ex.getMessage());
+                return EXIT_DATA;
+            }
+
+            File journalFile = new File(options.getProperty("journal", System.getProperty("journal.file", "send-journal.log")));
+            try {
+                journal = SendJournal.open(journalFile);
+            } catch (IOException ex) {
+                log("Send journal unavailable (" + journalFile.getAbsolutePath() + "): " + ex.getMessage() +
+                    (scheduler != null ? " - who was sent is kept in memory only, so a restart can resend today's messages" : ""));
+            }
+
+            runner = new CampaignRunner(new CampaignRunner.Listener() {
+                @Override
+                public void log(String message) {
+                    HeadlessCampaign.this.log(message);
+                }
+
+                @Override
+                public void sent(Employee employee, int current, int total, SendResult result) {
+                    if (json) {
+                        emit("{\"event\":\"sent\",\"name\":" + quote(employee.name()) + ",\"phone\":" + quote(employee.phone()) +
+                            ",\"current\":" + current + ",\"total\":" + total +
+                            ",\"messageId\":" + quote(result.messageId) + "}");
+                    }
+                }
+
+                @Override
+                public void failed(Employee employee, int attempts, SendResult last) {
+                    if (json) {
+                        emit("{\"event\":\"failed\",\"name\":" + quote(employee.name()) + ",\"phone\":" + quote(employee.phone()) +
+                            ",\"attempts\":" + attempts + ",\"reason\":" + quote(last == null ? "stopped" : last.describe()) + "}");
+                    }
+                }
+            }, journal, new MediaCache(Long.getLong("media.cache.maxBytes", 64L * 1024 * 1024)), healthMonitor);
+
+            if (scheduler == null) return runCampaign(campaignDate, 0, 1);
+
+            // Daemon mode: runs until SIGTERM
+            scheduler.start();
+            log("Scheduled " + scheduler.describe() + "; first run at " + scheduler.getNextFireTime());
+            stopRequested.await();
+            scheduler.stop();
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            return EXIT_OK;
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return EXIT_STOPPED;
+        } catch (IOException ex) {
+            error(ex.getMessage());
+            return EXIT_DATA;
+        } finally {
+            healthMonitor.shutdownNow();
+            if (metrics != null) metrics.stop();
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException ex) {
+                    error("Send journal close failed: " + ex.getMessage());
+                }
+            }
+            // Dry runs and empty days never load the HTTP client at all
+            if (networkUsed) UltraMsgHttp.shutdown();
+            finished.countDown();
+        }
+    }
+
+    private void fireScheduled(LocalDate campaignDate, int window, int windows) throws InterruptedException {
+        try {
+            roster.reloadIfStale(this::log);
+        } catch (IOException ex) {
+            error("Data file error: " + ex.getMessage() + " - keeping the previous data");
+        }
+        runCampaign(campaignDate, window, windows);
+    }
+
+    // One campaign run (or one staggered window of it); returns the exit code
+    private int runCampaign(LocalDate campaignDate, int window, int windows) throws InterruptedException {
+        Roster current = roster.get();
+        List<Employee> recipients = runner.selectRecipients(current, campaignDate, settings.resume);
+        if (windows > 1) {
+            int remaining = recipients.size();
+            recipients = CampaignScheduler.windowShare(recipients, window, windows);
+            log("Window " + (window + 1) + "/" + windows + " for " + campaignDate + ": " +
+                recipients.size() + " of " + remaining + " remaining recipient(s)");
+        } else {
+            log("Campaign " + campaignDate + ": " + recipients.size() + " recipient(s) out of " +
+                current.employees.size() + " employees");
+        }
+        if (recipients.isEmpty()) {
+            summary(0, 0, 0, 0, null);
+            return EXIT_OK;
+        }
+        if (flag("dry-run")) {
+            for (Employee emp : recipients) log("Would send to " + emp.name() + " (" + emp.phone() + ")");
+            summary(recipients.size(), 0, 0, 0, null);
+            return EXIT_OK;
+        }
+
+        networkUsed = true;
+        for (UltraMsgInstance instance : pool.getInstances()) {
+            runner.refreshInstanceHealth(instance);
+            log(instance.getLabel() + ": " + instance.getHealth());
+        }
+        if (pool.healthyCount() == 0) {
+            error("No authenticated instance - scan the QR code in the app first");
+            return EXIT_NO_INSTANCE;
+        }
+
+        CampaignRunner.Summary result = runner.run(current, recipients, pool, settings, campaignDate, stop);
+        summary(result.recipients, result.sent, result.failed, result.deferred, result.deadLetterFile);
+        if (result.deferred > 0 || result.stopped && result.sent + result.failed < result.recipients) return EXIT_STOPPED;
+        return result.failed > 0 ? EXIT_FAILURES : EXIT_OK;
+    }
+
+    private CampaignSettings readSettings() throws IOException {
+        CampaignSettings settings = new CampaignSettings();
+        String template = options.getProperty("message");
+        if (template == null && options.containsKey("template")) {
+            template = new String(Files.readAllBytes(new File(options.getProperty("template")).toPath()), StandardCharsets.UTF_8);
+        }
+        if (template == null || template.trim().isEmpty()) {
+            throw new IllegalArgumentException("--message or --template is required");
+        }
+        settings.messageTemplate = template;
+        settings.imagePath = options.getProperty("image", "");
+        settings.concurrencyPerInstance = intOption("concurrency", settings.concurrencyPerInstance);
+        settings.ratePerSecond = Double.parseDouble(options.getProperty("rate", String.valueOf(settings.ratePerSecond)));
+        settings.burst = intOption("burst", settings.burst);
+        settings.jitterMillis = intOption("jitter-ms", (int) settings.jitterMillis);
+        settings.dailyCap = intOption("daily-cap", settings.dailyCap);
+        settings.retries = intOption("retries", settings.retries);
+        settings.resume = !flag("no-resume");
+        if (options.containsKey("zone")) settings.zone = ZoneId.of(options.getProperty("zone"));
+        if (settings.concurrencyPerInstance < 1 || settings.ratePerSecond <= 0 || settings.burst < 1 || settings.retries < 0) {
+            throw new IllegalArgumentException("concurrency, rate and burst must be positive and retries >= 0");
+        }
+        return settings;
+    }
+
+    private String required(String key) {
+        String value = options.getProperty(key);
+        if (value == null || value.trim().isEmpty()) throw new IllegalArgumentException("--" + key + " is required");
+        return value.trim();
+    }
+
+    private String readOptionalFile(String key) throws IOException {
+        String path = options.getProperty(key);
+        return path == null ? "" : new String(Files.readAllBytes(new File(path).toPath()), StandardCharsets.UTF_8);
+    }
+
+    private int intOption(String key, int defaultValue) {
+        String value = options.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("--" + key + " expects a number but got: " + value);
+        }
+    }
+
+    private boolean flag(String key) {
+        return Boolean.parseBoolean(options.getProperty(key, "false"));
+    }
+
+    // Output
+
+    private void log(String message) {
+        if (json) {
+            emit("{\"event\":\"log\",\"time\":" + quote(timestamp()) + ",\"message\":" + quote(message) + "}");
+        } else {
+            emit("[" + timestamp() + "] " + message);
+        }
+    }
+
+    private void error(String message) {
+        if (json) {
+            emit("{\"event\":\"error\",\"message\":" + quote(message) + "}");
+        } else {
+            System.err.println(message);
+        }
+    }
+
+    private void summary(int recipients, int sent, int failed, int deferred, File deadLetterFile) {
+        if (json) {
+            emit("{\"event\":\"summary\",\"recipients\":" + recipients + ",\"sent\":" + sent + ",\"failed\":" + failed +
+                ",\"deferred\":" + deferred +
+                ",\"deadLetterFile\":" + quote(deadLetterFile == null ? null : deadLetterFile.getAbsolutePath()) + "}");
+        } else {
+            log("Done: " + sent + " sent, " + failed + " failed, " + (deferred > 0 ? deferred + " deferred, " : "") +
+                recipients + " recipient(s)");
+        }
+    }
+
+    private synchronized String timestamp() {
+        return timeFormat.format(new Date());
+    }
+
+    private void emit(String line) {
+        synchronized (out) {
+            out.println(line);
+        }
+    }
+
+    static String quote(String value) {
+        if (value == null) return "null";
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,271 @@
+package com.smsapp;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+// Shrinks a local campaign image before it is Base64-encoded and uploaded once per recipient.
+// A phone photo is typically 8-12 MB at 4000x3000; WhatsApp recompresses it to ~1600 px
+// anyway, so sending the full file only costs upload bandwidth and send latency.
+//
+// The image is decoded once, turned upright per its EXIF orientation (the tag is lost on
+// re-encoding), scaled so the longer side is at most -Dimage.maxDimension (1600), and written
+// as a JPEG at the highest quality that fits -Dimage.maxBytes (300 KB), found by binary search.
+// PNGs without any transparent pixel become JPEGs; transparent ones stay PNG and are only
+// scaled. Files already within both limits, formats other than JPEG/PNG (an animated GIF would
+// lose its frames) and images ImageIO cannot decode (e.g. CMYK JPEGs) are sent unchanged.
+//
+// -Dimage.preprocess=false sends every file as it is. Results are cached by MediaCache.
+final class ImagePreprocessor {
+    private static final int MAX_DIMENSION = Integer.getInteger("image.maxDimension", 1600);
+    private static final long MAX_BYTES = Long.getLong("image.maxBytes", 300 * 1024);
+    private static final float MIN_QUALITY = 0.5f;
+    private static final float MAX_QUALITY = 0.92f;
+    private static final int QUALITY_STEPS = 6;
+
+    // A re-encoded image; `summary` says what was done, for the campaign log
+    static final class Result {
+        final byte[] data;
+        final String mimeType;
+        final String summary;
+
+        Result(byte[] data, String mimeType, String summary) {
+            this.data = data;
+            this.mimeType = mimeType;
+            this.summary = summary;
+        }
+    }
+
+    private ImagePreprocessor() {
+    }
+
+    static boolean enabled() {
+        return !"false".equalsIgnoreCase(System.getProperty("image.preprocess"));
+    }
+
+    // Null when the file should be sent as it is
+    static Result process(File file, String mimeType) throws IOException {
+        boolean jpeg = "image/jpeg".equals(mimeType);
+        if (!enabled() || !(jpeg || "image/png".equals(mimeType))) return null;
+
+        long start = System.nanoTime();
+        byte[] original = Files.readAllBytes(file.toPath());
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(original));
+        if (image == null) return null;
+        int sourceWidth = image.getWidth();
+        int sourceHeight = image.getHeight();
+        int orientation = jpeg ? exifOrientation(original) : 1;
+        if (original.length <= MAX_BYTES && Math.max(sourceWidth, sourceHeight) <= MAX_DIMENSION) return null;
+
+        image = upright(image, orientation);
+        image = scaleToFit(image, MAX_DIMENSION);
+
+        byte[] data;
+        String outputType;
+        String detail;
+        if (hasTransparency(image)) {
+            data = encode(image, "png", 0);
+            outputType = "image/png";
+            detail = "PNG";
+        } else {
+            BufferedImage rgb = toRgb(image);
+            float[] quality = {0};
+            data = encodeJpegWithin(rgb, MAX_BYTES, quality);
+            // Still over budget at the lowest quality: give up pixels rather than quality
+            for (int i = 0; i < 3 && data.length > MAX_BYTES; i++) {
+                rgb = scale(rgb, (int) (rgb.getWidth() * 0.75), (int) (rgb.getHeight() * 0.75));
+                data = encodeJpegWithin(rgb, MAX_BYTES, quality);
+            }
+            image = rgb;
+            outputType = "image/jpeg";
+            detail = String.format("JPEG q%.2f", quality[0]);
+        }
+        // The original keeps its EXIF orientation, so sending it instead is always safe
+        if (data.length >= original.length) return null;
+
+        String summary = String.format("%s %dx%d %,d KB -> %dx%d %s %,d KB in %d ms", file.getName(),
+            sourceWidth, sourceHeight, original.length / 1024, image.getWidth(), image.getHeight(), detail,
+            data.length / 1024, (System.nanoTime() - start) / 1_000_000);
+        return new Result(data, outputType, summary);
+    }
+
+    // Highest quality whose output fits `maxBytes`, or the lowest quality's output if none does.
+    // quality[0] receives the quality used.
+    private static byte[] encodeJpegWithin(BufferedImage image, long maxBytes, float[] quality) throws IOException {
+        byte[] best = encode(image, "jpeg", MAX_QUALITY);
+        quality[0] = MAX_QUALITY;
+        if (best.length <= maxBytes) return best;
+
+        float low = MIN_QUALITY;
+        float high = MAX_QUALITY;
+        best = encode(image, "jpeg", low);
+        quality[0] = low;
+        if (best.length > maxBytes) return best;
+        for (int i = 0; i < QUALITY_STEPS; i++) {
+            float mid = (low + high) / 2;
+            byte[] candidate = encode(image, "jpeg", mid);
+            if (candidate.length <= maxBytes) {
+                best = candidate;
+                quality[0] = mid;
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return best;
+    }
+
+    private static byte[] encode(BufferedImage image, String format, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) throw new IOException("No " + format + " encoder");
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        try (MemoryCacheImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (quality > 0 && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // Halves the size in bilinear steps before the last resize; one big bilinear jump skips
+    // most source pixels and aliases badly
+    private static BufferedImage scaleToFit(BufferedImage image, int maxDimension) {
+        int longest = Math.max(image.getWidth(), image.getHeight());
+        if (longest <= maxDimension) return image;
+        double factor = (double) maxDimension / longest;
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * factor));
+        while (image.getWidth() / 2 >= targetWidth && image.getHeight() / 2 >= targetHeight) {
+            image = scale(image, image.getWidth() / 2, image.getHeight() / 2);
+        }
+        return image.getWidth() == targetWidth && image.getHeight() == targetHeight
+            ? image : scale(image, targetWidth, targetHeight);
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, image.getColorModel().hasAlpha()
+            ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    // Any pixel that is not fully opaque; an alpha channel alone does not count
+    private static boolean hasTransparency(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) return false;
+        int width = image.getWidth();
+        int[] row = new int[width];
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int argb : row) {
+                if (argb >>> 24 != 0xff) return true;
+            }
+        }
+        return false;
+    }
+
+    // JPEG has no alpha; flatten onto white
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    // Applies EXIF orientation 2-8 (mirrored and/or rotated); 1 is already upright
+    private static BufferedImage upright(BufferedImage image, int orientation) {
+        if (orientation < 2 || orientation > 8) return image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = orientation >= 5;
+        AffineTransform t = new AffineTransform();
+        switch (orientation) {
+            case 2: t.scale(-1, 1); t.translate(-w, 0); break;
+            case 3: t.translate(w, h); t.rotate(Math.PI); break;
+            case 4: t.scale(1, -1); t.translate(0, -h); break;
+            case 5: t.rotate(Math.PI / 2); t.scale(1, -1); break;
+            case 6: t.translate(h, 0); t.rotate(Math.PI / 2); break;
+            case 7: t.scale(-1, 1); t.translate(-h, 0); t.translate(0, w); t.rotate(3 * Math.PI / 2); break;
+            default: t.translate(0, w); t.rotate(3 * Math.PI / 2); break; // 8
+        }
+        BufferedImage turned = new BufferedImage(swap ? h : w, swap ? w : h, image.getColorModel().hasAlpha()
+            ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = turned.createGraphics();
+        try {
+            g.drawImage(image, t, null);
+        } finally {
+            g.dispose();
+        }
+        return turned;
+    }
+
+    // Orientation tag (0x0112) from the EXIF APP1 segment of a JPEG; 1 when absent or unreadable
+    static int exifOrientation(byte[] jpeg) {
+        ByteBuffer in = ByteBuffer.wrap(jpeg);
+        try {
+            if (in.getShort() != (short) 0xFFD8) return 1;
+            while (in.remaining() > 4) {
+                int marker = in.getShort() & 0xffff;
+                int length = in.getShort() & 0xffff;
+                int segmentEnd = in.position() + length - 2;
+                if (marker == 0xFFDA) return 1; // image data starts; no EXIF before it
+                if (marker == 0xFFE1 && length > 16 && in.getInt() == 0x45786966 && in.getShort() == 0) { // "Exif\0\0"
+                    int tiff = in.position();
+                    in.order(in.getShort() == 0x4949 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+                    in.position(tiff + 4);
+                    in.position(tiff + in.getInt());
+                    int entries = in.getShort() & 0xffff;
+                    for (int i = 0; i < entries; i++) {
+                        int entry = in.position();
+                        if ((in.getShort() & 0xffff) == 0x0112) {
+                            in.position(entry + 8);
+                            return in.getShort() & 0xffff;
+                        }
+                        in.position(entry + 12);
+                    }
+                    return 1;
+                }
+                in.position(segmentEnd);
+            }
+        } catch (RuntimeException ex) {
+            // Truncated or malformed EXIF: treat as upright
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,115 @@
+package com.smsapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+// Spreads campaign sends across every registered UltraMSG instance that is in rotation.
+class InstancePool {
+    enum Strategy {
+        ROUND_ROBIN("Round robin"),
+        LEAST_LOADED("Least loaded");
+
+        private final String label;
+
+        Strategy(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final List<UltraMsgInstance> instances;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private volatile Strategy strategy = Strategy.ROUND_ROBIN;
+
+    InstancePool(List<UltraMsgInstance> instances) {
+        this.instances = Collections.unmodifiableList(new ArrayList<>(instances));
+    }
+
+    // Parses the primary pair plus extra "instanceId,token" lines (blank lines and // comments ignored)
+    static InstancePool parse(String primaryId, String primaryToken, String extraLines) {
+        List<UltraMsgInstance> list = new ArrayList<>();
+        if (!primaryId.isEmpty()) {
+            list.add(new UltraMsgInstance(primaryId, primaryToken));
+        }
+        for (String line : extraLines.split("\\r?\\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("//")) continue;
+
+            String[] parts = line.split("[,;\\s]+");
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Expected 'instanceId,token' but got: " + line);
+            }
+            String id = parts[0].startsWith("instance") ? parts[0].substring("instance".length()) : parts[0];
+            boolean duplicate = false;
+            for (UltraMsgInstance existing : list) {
+                if (existing.instanceId.equals(id)) duplicate = true;
+            }
+            if (!duplicate) list.add(new UltraMsgInstance(id, parts[1]));
+        }
+        return new InstancePool(list);
+    }
+
+    List<UltraMsgInstance> getInstances() {
+        return instances;
+    }
+
+    int size() {
+        return instances.size();
+    }
+
+    void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    int healthyCount() {
+        int count = 0;
+        for (UltraMsgInstance instance : instances) {
+            if (instance.isInRotation()) count++;
+        }
+        return count;
+    }
+
+    // Picks the next instance for a send and counts it against that instance's queue depth.
+    // The caller must call leave() on the returned instance. Returns null if none is in rotation.
+    UltraMsgInstance acquire() {
+        UltraMsgInstance chosen = strategy == Strategy.LEAST_LOADED ? leastLoaded() : roundRobin();
+        if (chosen != null) chosen.enter();
+        return chosen;
+    }
+
+    // Like acquire(), but while no instance is in rotation (all unauthenticated or their breakers
+    // open) waits up to `timeoutMillis` for one to come back. Returns null on timeout or cancel.
+    UltraMsgInstance acquire(long timeoutMillis, BooleanSupplier cancelled) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            UltraMsgInstance chosen = acquire();
+            if (chosen != null || cancelled.getAsBoolean() || System.currentTimeMillis() >= deadline) return chosen;
+            Thread.sleep(250);
+        }
+    }
+
+    private UltraMsgInstance roundRobin() {
+        int n = instances.size();
+        for (int attempt = 0; attempt < n; attempt++) {
+            UltraMsgInstance candidate = instances.get(Math.floorMod(cursor.getAndIncrement(), n));
+            if (candidate.isInRotation()) return candidate;
+        }
+        return null;
+    }
+
+    private UltraMsgInstance leastLoaded() {
+        UltraMsgInstance best = null;
+        for (UltraMsgInstance candidate : instances) {
+            if (!candidate.isInRotation()) continue;
+            if (best == null || candidate.getQueueDepth() < best.getQueueDepth()) best = candidate;
+        }
+        return best;
+    }
+}
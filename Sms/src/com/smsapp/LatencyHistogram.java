@@ -0,0 +1,94 @@
+package com.smsapp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free latency histogram in microseconds with log-linear buckets (the HdrHistogram
+// layout): values under 32 us are exact, above that each power of two is split into 32
+// buckets, so any recorded value is within ~3% of its bucket. Recording is an index
+// computation and two atomic adds - no allocation, no lock.
+final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final long MAX_VALUE = (1L << 40) - 1; // ~12.7 days
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    // Point-in-time copy for reporting; counts may be a few events apart from sum under load
+    static final class Snapshot {
+        private final long[] counts;
+        final long count;
+        final long sumMicros;
+        final long maxMicros;
+
+        private Snapshot(long[] counts, long sumMicros, long maxMicros) {
+            long total = 0;
+            for (long c : counts) total += c;
+            this.counts = counts;
+            this.count = total;
+            this.sumMicros = sumMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        // Upper bound of the bucket holding the q-th quantile (0 < q <= 1); 0 when empty
+        long percentile(double q) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(maxMicros, upperBound(i));
+            }
+            return maxMicros;
+        }
+
+        // Values recorded at or below `micros` (to bucket precision)
+        long countAtOrBelow(long micros) {
+            long seen = 0;
+            for (int i = 0; i < counts.length && lowerBound(i) <= micros; i++) {
+                seen += counts[i];
+            }
+            return seen;
+        }
+    }
+
+    void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    void record(long micros) {
+        long value = Math.min(Math.max(0, micros), MAX_VALUE);
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // lost the race to a larger or concurrent value; re-check
+        }
+    }
+
+    Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) copy[i] = counts.get(i);
+        return new Snapshot(copy, sum.sum(), max.get());
+    }
+
+    static int index(long value) {
+        if (value < SUB) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB + (int) ((value >>> shift) - SUB);
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB) return index;
+        int shift = index / SUB - 1;
+        return (long) (index % SUB + SUB) << shift;
+    }
+
+    static long upperBound(int index) {
+        return index + 1 < BUCKETS ? lowerBound(index + 1) - 1 : MAX_VALUE;
+    }
+}
@@ -0,0 +1,21 @@
+package com.smsapp;
+
+import java.util.Arrays;
+
+// Main-Class of WhatsAppSender.jar. `java -jar WhatsAppSender.jar --headless <options>` runs a
+// campaign without the UI (see HeadlessCampaign); anything else opens the window. Kept apart
+// from WhatsAppSender so java.awt.headless is set before any AWT class (its Font and Color
+// constants) is initialized.
+final class Launcher {
+    private Launcher() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0 && "--headless".equals(args[0])) {
+            System.setProperty("java.awt.headless", "true");
+            HeadlessCampaign.main(Arrays.copyOfRange(args, 1, args.length));
+        } else {
+            WhatsAppSender.main(args);
+        }
+    }
+}
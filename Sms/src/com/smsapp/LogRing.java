@@ -0,0 +1,61 @@
+package com.smsapp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded multi-producer / single-consumer ring buffer. Producers claim a slot with one CAS
+// and never block or lock: when the ring is full, offer() returns -1 and the caller drops
+// the element. Each slot carries a sequence number (the Vyukov bounded-queue scheme), so the
+// consumer only reads slots whose writer has finished publishing.
+final class LogRing<T> {
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // consumer thread only
+
+    LogRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    // Returns the claimed sequence number, or -1 when the ring is full
+    long offer(T element) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots[index] = element;
+                    sequences.lazySet(index, pos + 1); // publish
+                    return pos;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return -1; // full: the consumer has not freed this slot yet
+            } else {
+                pos = tail.get(); // another producer took it
+            }
+        }
+    }
+
+    // Consumer thread only; null when nothing is ready
+    @SuppressWarnings("unchecked")
+    T poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) return null;
+        T element = (T) slots[index];
+        slots[index] = null;
+        sequences.lazySet(index, head + slots.length); // free for the producer one lap ahead
+        head++;
+        return element;
+    }
+}
@@ -0,0 +1,67 @@
+package com.smsapp;
+
+// Open-addressing set of primitive longs (linear probing, power-of-two table kept at most half
+// full). Eight bytes per slot and no boxing, where a HashSet<String> of phone numbers costs
+// ~100 bytes per entry. 0 marks an empty slot and cannot be stored.
+final class LongHashSet {
+    private long[] slots;
+    private int mask;
+    private int shift;
+    private int size;
+
+    LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        resize(capacity);
+    }
+
+    // Returns false when the value was already present
+    boolean add(long value) {
+        if (value == 0) throw new IllegalArgumentException("0 cannot be stored");
+        int i = index(value);
+        while (true) {
+            long slot = slots[i];
+            if (slot == value) return false;
+            if (slot == 0) break;
+            i = (i + 1) & mask;
+        }
+        slots[i] = value;
+        if (++size * 2 > slots.length) grow();
+        return true;
+    }
+
+    boolean contains(long value) {
+        int i = index(value);
+        while (true) {
+            long slot = slots[i];
+            if (slot == value) return value != 0;
+            if (slot == 0) return false;
+            i = (i + 1) & mask;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int index(long value) {
+        // Fibonacci hashing: phone numbers are dense in their low digits
+        return (int) ((value * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void resize(int capacity) {
+        slots = new long[capacity];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private void grow() {
+        long[] old = slots;
+        resize(old.length * 2);
+        for (long value : old) {
+            if (value == 0) continue;
+            int i = index(value);
+            while (slots[i] != 0) i = (i + 1) & mask;
+            slots[i] = value;
+        }
+    }
+}
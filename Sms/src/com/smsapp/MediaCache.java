@@ -0,0 +1,174 @@
+package com.smsapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps the form-encoded data: URI of local campaign images so each file is read, shrunk by
+// ImagePreprocessor and Base64-encoded once per campaign instead of once per recipient.
+// Entries are keyed by path, size, mtime and MIME type, and evicted least-recently-used once
+// `maxBytes` is exceeded.
+// Images too large to hold comfortably are cached as streamed entries (length only)
+// and re-encoded from disk in constant memory on every send.
+// Loading (preprocessing and encoding) runs outside the monitor, which only guards the LRU map:
+// senders that miss on the same image wait for one shared load, the others carry on.
+class MediaCache {
+
+    static final class Key {
+        final String path;
+        final long size;
+        final long lastModified;
+        final String mimeType; // as requested; a preprocessed PNG may be sent as a JPEG
+
+        Key(File file, String mimeType) {
+            this.path = file.getAbsolutePath();
+            this.size = file.length();
+            this.lastModified = file.lastModified();
+            this.mimeType = mimeType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return size == other.size && lastModified == other.lastModified && path.equals(other.path)
+                && mimeType.equals(other.mimeType);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((path.hashCode() * 31 + Long.hashCode(size)) * 31 + Long.hashCode(lastModified)) * 31
+                + mimeType.hashCode();
+        }
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, EncodedMedia> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<Key, FutureTask<EncodedMedia>> loading = new ConcurrentHashMap<>();
+    private long usedBytes = 0;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    MediaCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    EncodedMedia get(File file, String mimeType) throws IOException {
+        Key key = new Key(file, mimeType);
+        EncodedMedia cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        FutureTask<EncodedMedia> task = new FutureTask<>(() -> {
+            // The previous loader may have finished between the lookup and computeIfAbsent
+            EncodedMedia media = lookup(key);
+            if (media != null) {
+                hits.incrementAndGet();
+                return media;
+            }
+            misses.incrementAndGet();
+            media = load(file, mimeType);
+            store(key, media);
+            return media;
+        });
+        FutureTask<EncodedMedia> loader = loading.computeIfAbsent(key, k -> task);
+        if (loader == task) {
+            try {
+                task.run();
+            } finally {
+                loading.remove(key, task);
+            }
+        } else {
+            hits.incrementAndGet(); // loaded once, by the sender that missed first
+        }
+        return result(loader);
+    }
+
+    private synchronized EncodedMedia lookup(Key key) {
+        return entries.get(key);
+    }
+
+    private synchronized void store(Key key, EncodedMedia media) {
+        EncodedMedia previous = entries.put(key, media);
+        if (previous != null) usedBytes -= weigh(previous);
+        usedBytes += weigh(media);
+        evict();
+    }
+
+    private static EncodedMedia result(FutureTask<EncodedMedia> loader) throws IOException {
+        try {
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the image to load");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private EncodedMedia load(File file, String mimeType) throws IOException {
+        ImagePreprocessor.Result shrunk = null;
+        try {
+            shrunk = ImagePreprocessor.process(file, mimeType);
+        } catch (IOException | RuntimeException ex) {
+            // Undecodable or unusual image: send the file as it is
+        }
+        return shrunk != null ? EncodedMedia.preprocessed(file, shrunk) : encode(file, mimeType);
+    }
+
+    private EncodedMedia encode(File file, String mimeType) throws IOException {
+        // Base64 grows the file by a third, URL escaping adds a little more
+        long estimatedEncoded = file.length() / 3 * 4 * 11 / 10;
+        return estimatedEncoded <= maxBytes / 4
+            ? EncodedMedia.inMemory(file, mimeType)
+            : EncodedMedia.streamed(file, mimeType);
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    String getSummary() {
+        return "Media cache: " + getHits() + " hits, " + getMisses() + " misses, " +
+            (getUsedBytes() / 1024) + " KB held";
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, EncodedMedia>> it = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            usedBytes -= weigh(it.next().getValue());
+            it.remove();
+        }
+    }
+
+    private static long weigh(EncodedMedia media) {
+        return media.isInMemory() ? media.length() : 0;
+    }
+}
@@ -0,0 +1,147 @@
+package com.smsapp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+// Message template compiled once per campaign into a segment list and rendered per recipient
+// in a single pass. Syntax:
+//   {field}                value of a column, e.g. {name} or any header from the data file
+//   {field|default}        default text when the value is empty
+//   {?field}...{/field}    section shown only when the value is not empty
+//   {^field}...{/field}    section shown only when the value is empty
+// Unknown fields are left in the message as written, like the old String.replace rendering.
+final class MessageTemplate<T> {
+
+    private interface Segment<T> {
+        void render(T row, StringBuilder out);
+    }
+
+    private final List<Segment<T>> segments;
+    private final Set<String> unknownFields;
+    private final int sizeHint; // initial capacity for render(); the template text plus room for values
+
+    private MessageTemplate(List<Segment<T>> segments, Set<String> unknownFields, int sizeHint) {
+        this.segments = segments;
+        this.unknownFields = unknownFields;
+        this.sizeHint = sizeHint;
+    }
+
+    // `resolver` maps a field name to an accessor, or returns null if the field does not exist
+    static <T> MessageTemplate<T> compile(String text, Function<String, Function<T, String>> resolver) {
+        Set<String> unknown = new LinkedHashSet<>();
+        Deque<List<Segment<T>>> stack = new ArrayDeque<>();
+        Deque<String> openSections = new ArrayDeque<>();
+        Deque<Function<T, String>> sectionAccessors = new ArrayDeque<>();
+        Deque<Boolean> sectionInverted = new ArrayDeque<>();
+        List<Segment<T>> current = new ArrayList<>();
+
+        int pos = 0;
+        StringBuilder literal = new StringBuilder();
+        while (pos < text.length()) {
+            int open = text.indexOf('{', pos);
+            int close = open < 0 ? -1 : text.indexOf('}', open + 1);
+            if (open < 0 || close < 0) {
+                literal.append(text, pos, text.length());
+                break;
+            }
+            literal.append(text, pos, open);
+            String token = text.substring(open + 1, close);
+            pos = close + 1;
+
+            char kind = token.isEmpty() ? 0 : token.charAt(0);
+            if (kind == '?' || kind == '^') {
+                String name = token.substring(1).trim();
+                Function<T, String> accessor = resolver.apply(name);
+                if (accessor == null) {
+                    unknown.add(name);
+                    literal.append('{').append(token).append('}');
+                    continue;
+                }
+                flushLiteral(literal, current);
+                stack.push(current);
+                openSections.push(name);
+                sectionAccessors.push(accessor);
+                sectionInverted.push(kind == '^');
+                current = new ArrayList<>();
+            } else if (kind == '/' && !openSections.isEmpty() && openSections.peek().equals(token.substring(1).trim())) {
+                flushLiteral(literal, current);
+                current = closeSection(current, stack, openSections, sectionAccessors, sectionInverted);
+            } else {
+                int bar = token.indexOf('|');
+                String name = (bar < 0 ? token : token.substring(0, bar)).trim();
+                String fallback = bar < 0 ? "" : token.substring(bar + 1);
+                Function<T, String> accessor = name.isEmpty() ? null : resolver.apply(name);
+                if (accessor == null) {
+                    // A stray "{/x}" is kept as written, but "/x" is not a field name to report
+                    if (!name.isEmpty() && kind != '/') unknown.add(name);
+                    literal.append('{').append(token).append('}');
+                    continue;
+                }
+                flushLiteral(literal, current);
+                current.add(fieldSegment(accessor, fallback));
+            }
+        }
+        flushLiteral(literal, current);
+        while (!openSections.isEmpty()) {
+            current = closeSection(current, stack, openSections, sectionAccessors, sectionInverted);
+        }
+        return new MessageTemplate<>(Collections.unmodifiableList(current), Collections.unmodifiableSet(unknown),
+            text.length() + 64);
+    }
+
+    Set<String> getUnknownFields() {
+        return unknownFields;
+    }
+
+    String render(T row) {
+        StringBuilder out = new StringBuilder(sizeHint);
+        renderTo(row, out);
+        return out.toString();
+    }
+
+    // Appends to a buffer the caller owns, e.g. one reused across the rows of a loop
+    void renderTo(T row, StringBuilder out) {
+        for (Segment<T> segment : segments) {
+            segment.render(row, out);
+        }
+    }
+
+    private static <T> void flushLiteral(StringBuilder literal, List<Segment<T>> current) {
+        if (literal.length() == 0) return;
+        String text = literal.toString();
+        literal.setLength(0);
+        current.add((row, out) -> out.append(text));
+    }
+
+    private static <T> Segment<T> fieldSegment(Function<T, String> accessor, String fallback) {
+        return (row, out) -> {
+            String value = accessor.apply(row);
+            out.append(value == null || value.isEmpty() ? fallback : value);
+        };
+    }
+
+    private static <T> List<Segment<T>> closeSection(List<Segment<T>> body, Deque<List<Segment<T>>> stack,
+                                                     Deque<String> openSections,
+                                                     Deque<Function<T, String>> sectionAccessors,
+                                                     Deque<Boolean> sectionInverted) {
+        openSections.pop();
+        Function<T, String> accessor = sectionAccessors.pop();
+        boolean inverted = sectionInverted.pop();
+        List<Segment<T>> inner = Collections.unmodifiableList(body);
+        List<Segment<T>> parent = stack.pop();
+        parent.add((row, out) -> {
+            String value = accessor.apply(row);
+            boolean present = value != null && !value.trim().isEmpty();
+            if (present != inverted) {
+                for (Segment<T> segment : inner) segment.render(row, out);
+            }
+        });
+        return parent;
+    }
+}
@@ -0,0 +1,132 @@
+package com.smsapp;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Process-wide metrics for the send pipeline. Recording is a LongAdder add or a histogram
+// record (well under a microsecond, no allocation); reading happens only when the live panel
+// refreshes or the Prometheus endpoint (MetricsServer) is scraped.
+final class Metrics {
+
+    // UltraMSG API endpoints with their own latency histogram
+    enum Endpoint {
+        CHAT("chat"), IMAGE("image"), STATUS("status");
+
+        final String label;
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+    }
+
+    // Messages delivered / given up on (after retries) / image sends that fell back to text /
+    // retries scheduled / request bytes posted to the API
+    static final LongAdder SENT = new LongAdder();
+    static final LongAdder FAILED = new LongAdder();
+    static final LongAdder FALLBACKS = new LongAdder();
+    static final LongAdder RETRIES = new LongAdder();
+    static final LongAdder BYTES_UPLOADED = new LongAdder();
+    static final LongAdder IN_FLIGHT = new LongAdder();
+
+    // Queue depth is read from the running send engines only when asked
+    private static final List<LongSupplier> QUEUES = new CopyOnWriteArrayList<>();
+
+    // Prometheus histogram buckets, in seconds
+    private static final double[] BUCKETS_SECONDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private Metrics() {
+    }
+
+    static void addQueue(LongSupplier depth) {
+        QUEUES.add(depth);
+    }
+
+    static void removeQueue(LongSupplier depth) {
+        QUEUES.remove(depth);
+    }
+
+    static long queueDepth() {
+        long depth = 0;
+        for (LongSupplier queue : QUEUES) depth += queue.getAsLong();
+        return depth;
+    }
+
+    // Prometheus text exposition format, version 0.0.4
+    static String renderPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        counter(out, "whatsapp_messages_sent_total", "Messages delivered", SENT.sum());
+        counter(out, "whatsapp_messages_failed_total", "Messages given up on after retries", FAILED.sum());
+        counter(out, "whatsapp_image_fallbacks_total", "Image sends that fell back to text", FALLBACKS.sum());
+        counter(out, "whatsapp_retries_total", "Send retries scheduled", RETRIES.sum());
+        counter(out, "whatsapp_upload_bytes_total", "Request body bytes posted to the API", BYTES_UPLOADED.sum());
+        gauge(out, "whatsapp_requests_in_flight", "API requests awaiting a response", IN_FLIGHT.sum());
+        gauge(out, "whatsapp_queue_depth", "Recipients and retries waiting to be sent", queueDepth());
+
+        String name = "whatsapp_request_duration_seconds";
+        out.append("# HELP ").append(name).append(" UltraMSG API request latency\n");
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        for (Endpoint endpoint : Endpoint.values()) {
+            LatencyHistogram.Snapshot s = endpoint.latency.snapshot();
+            String label = "endpoint=\"" + endpoint.label + "\"";
+            for (double bound : BUCKETS_SECONDS) {
+                out.append(name).append("_bucket{").append(label).append(",le=\"").append(bound).append("\"} ")
+                    .append(s.countAtOrBelow((long) (bound * 1000000))).append('\n');
+            }
+            out.append(name).append("_bucket{").append(label).append(",le=\"+Inf\"} ").append(s.count).append('\n');
+            out.append(name).append("_sum{").append(label).append("} ").append(s.sumMicros / 1e6).append('\n');
+            out.append(name).append("_count{").append(label).append("} ").append(s.count).append('\n');
+        }
+        return out.toString();
+    }
+
+    // Two-line summary for the sending card and the end-of-campaign log
+    static String summary() {
+        StringBuilder out = new StringBuilder();
+        out.append("Sent ").append(SENT.sum())
+            .append(" • Failed ").append(FAILED.sum())
+            .append(" • Retries ").append(RETRIES.sum())
+            .append(" • Fallbacks ").append(FALLBACKS.sum())
+            .append(" • In flight ").append(IN_FLIGHT.sum())
+            .append(" • Queued ").append(queueDepth())
+            .append(" • Uploaded ").append(formatBytes(BYTES_UPLOADED.sum()))
+            .append('\n');
+        boolean first = true;
+        for (Endpoint endpoint : Endpoint.values()) {
+            LatencyHistogram.Snapshot s = endpoint.latency.snapshot();
+            if (s.count == 0) continue;
+            if (!first) out.append(" • ");
+            first = false;
+            out.append(endpoint.label).append(' ').append(s.count).append("x p50 ").append(millis(s.percentile(0.5)))
+                .append(" p99 ").append(millis(s.percentile(0.99)))
+                .append(" max ").append(millis(s.maxMicros));
+        }
+        if (first) out.append("No API calls yet");
+        return out.toString();
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String millis(long micros) {
+        return micros < 10000 ? String.format(Locale.ROOT, "%.1fms", micros / 1000.0) : (micros / 1000) + "ms";
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+    }
+}
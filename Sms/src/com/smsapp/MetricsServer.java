@@ -0,0 +1,49 @@
+package com.smsapp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Serves Metrics in Prometheus text format at http://127.0.0.1:<port>/metrics. Bound to
+// loopback only; point a local Prometheus (or curl) at it. Handled on the server's own
+// thread, so a scrape never touches the send workers.
+final class MetricsServer {
+    private final HttpServer server;
+
+    private MetricsServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 8);
+        server.createContext("/metrics", MetricsServer::handle);
+        server.start();
+    }
+
+    // Returns null when port is 0 or already taken - metrics are never worth failing a campaign over
+    static MetricsServer start(int port, Consumer<String> log) {
+        if (port <= 0) return null;
+        try {
+            MetricsServer metrics = new MetricsServer(port);
+            log.accept("Metrics at http://127.0.0.1:" + port + "/metrics");
+            return metrics;
+        } catch (IOException ex) {
+            log.accept("Metrics endpoint unavailable on port " + port + ": " + ex.getMessage());
+            return null;
+        }
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        byte[] body = Metrics.renderPrometheus().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.smsapp;
+
+// Canonical E.164 phone numbers held as a primitive long: the country code and national number
+// as one run of digits (+91 98765 43210 -> 919876543210). Parsing walks the characters once
+// with no regex and no allocation, so a million-row roster costs eight bytes per number.
+//
+// Accepted forms: "+91 98765-43210", "0091 9876543210", "919876543210", "09876543210" and
+// "9876543210". A "(0)" trunk marker after the country code ("+44 (0) 7911 123456") is dropped.
+// Numbers without an international prefix get the default country code when they are no longer
+// than a national number; longer ones ("447911123456", as spreadsheets hold them without "+")
+// already carry a country code.
+//
+// -Dphone.defaultCountryCode (91), -Dphone.nationalDigits (10, the national number length for
+// that country; used only to tell a national number from an international one without "+").
+final class PhoneNumbers {
+    static final long INVALID = -1;
+
+    private static final int MIN_DIGITS = 8;
+    private static final int MAX_DIGITS = 15; // E.164 limit
+
+    private static volatile int defaultCountryCode = Integer.getInteger("phone.defaultCountryCode", 91);
+    private static final int NATIONAL_DIGITS = Integer.getInteger("phone.nationalDigits", 10);
+
+    private PhoneNumbers() {
+    }
+
+    static int getDefaultCountryCode() {
+        return defaultCountryCode;
+    }
+
+    // Applies to rosters loaded afterwards
+    static void setDefaultCountryCode(int countryCode) {
+        if (countryCode < 1 || countryCode > 999) throw new IllegalArgumentException("country code must be 1-999");
+        defaultCountryCode = countryCode;
+    }
+
+    static long normalize(CharSequence raw) {
+        return normalize(raw, defaultCountryCode);
+    }
+
+    // INVALID when the text is empty, contains letters, or is too short/long for E.164
+    static long normalize(CharSequence raw, int countryCode) {
+        long digits = 0;
+        int count = 0;
+        boolean international = false;
+        int leadingZeros = 0;
+        for (int i = 0, n = raw.length(); i < n; i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (count == 0 && c == '0') {
+                    // "00" is the international prefix, a single "0" the national trunk prefix
+                    leadingZeros++;
+                    continue;
+                }
+                if (++count > MAX_DIGITS) return INVALID;
+                digits = digits * 10 + (c - '0');
+            } else if (c == '(' && count > 0 && i + 2 < n && raw.charAt(i + 1) == '0' && raw.charAt(i + 2) == ')') {
+                i += 2; // "+44 (0) 7911...": the trunk digit is not dialled from abroad
+            } else if (c == '+') {
+                if (count > 0 || leadingZeros > 0 || international) return INVALID;
+                international = true;
+            } else if (c != ' ' && c != '-' && c != '.' && c != '(' && c != ')' && c != '/' && c != '\u00a0' && c != '\'') {
+                return INVALID; // letters, extensions, a second number in the cell
+            }
+        }
+        if (count == 0) return INVALID;
+        if (leadingZeros >= 2) international = true;
+
+        if (!international && count <= NATIONAL_DIGITS) {
+            int ccDigits = countryCode >= 100 ? 3 : countryCode >= 10 ? 2 : 1;
+            if (count + ccDigits > MAX_DIGITS) return INVALID;
+            digits = countryCode * pow10(count) + digits;
+            count += ccDigits;
+        }
+        return count < MIN_DIGITS ? INVALID : digits;
+    }
+
+    // "+919876543210"; "" for INVALID
+    static String format(long e164) {
+        return e164 == INVALID ? "" : "+" + e164;
+    }
+
+    private static long pow10(int n) {
+        long p = 1;
+        for (int i = 0; i < n; i++) p *= 10;
+        return p;
+    }
+}
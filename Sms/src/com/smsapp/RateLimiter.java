@@ -0,0 +1,121 @@
+package com.smsapp;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Token bucket per UltraMSG instance: `burst` tokens of headroom refilled at
+// `ratePerSecond`, optional random jitter per send and a per-day send cap. The cap's day runs
+// midnight to midnight in the campaign's time zone (see startDay).
+class RateLimiter {
+    private static final ConcurrentMap<String, RateLimiter> INSTANCES = new ConcurrentHashMap<>();
+
+    private double ratePerSecond = 1.0;
+    private int burst = 1;
+    private long maxJitterMillis = 0;
+    private int dailyCap = 0; // 0 = unlimited
+
+    private double tokens = 1;
+    private long lastRefill = System.nanoTime();
+    private ZoneId zone = ZoneId.systemDefault();
+    private LocalDate capDay = LocalDate.now(zone);
+    private int sentToday = 0;
+
+    static RateLimiter forInstance(String instanceId) {
+        return INSTANCES.computeIfAbsent(instanceId, id -> new RateLimiter());
+    }
+
+    synchronized void configure(double ratePerSecond, int burst, long maxJitterMillis, int dailyCap) {
+        if (ratePerSecond <= 0) throw new IllegalArgumentException("rate must be > 0");
+        refill(System.nanoTime());
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.maxJitterMillis = Math.max(0, maxJitterMillis);
+        this.dailyCap = Math.max(0, dailyCap);
+        tokens = Math.min(tokens, this.burst);
+    }
+
+    // Moves the cap to the campaign's time zone and counts `alreadySent` sends made earlier today
+    // (read from the send journal), so restarting the process does not reset the cap. Sends this
+    // process has already counted today are not counted twice.
+    synchronized void startDay(ZoneId zone, int alreadySent) {
+        this.zone = zone;
+        LocalDate today = LocalDate.now(zone);
+        if (!today.equals(capDay)) {
+            capDay = today;
+            sentToday = 0;
+        }
+        sentToday = Math.max(sentToday, alreadySent);
+    }
+
+    // Blocks until a send is allowed. Returns false if the daily cap is used up or the thread is
+    // interrupted; an interrupted wait gives its token and its place under the cap back.
+    boolean acquire() {
+        long waitNanos;
+        LocalDate day;
+        synchronized (this) {
+            LocalDate today = LocalDate.now(zone);
+            if (!today.equals(capDay)) {
+                capDay = today;
+                sentToday = 0;
+            }
+            if (dailyCap > 0 && sentToday >= dailyCap) return false;
+            sentToday++;
+            day = capDay;
+
+            long now = System.nanoTime();
+            refill(now);
+            // Reserve a token; a negative balance is the queue of callers already waiting
+            tokens -= 1;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / ratePerSecond * 1_000_000_000L);
+        }
+
+        if (maxJitterMillis > 0) {
+            waitNanos += TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(maxJitterMillis + 1));
+        }
+
+        try {
+            if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            release(day);
+            return false;
+        }
+    }
+
+    // Takes back one send counted today, for a request the API rejected and that is being
+    // replaced by another (image -> text fallback)
+    synchronized void uncount() {
+        if (LocalDate.now(zone).equals(capDay) && sentToday > 0) sentToday--;
+    }
+
+    synchronized boolean isCapReached() {
+        return dailyCap > 0 && sentToday >= dailyCap && LocalDate.now(zone).equals(capDay);
+    }
+
+    private synchronized void release(LocalDate day) {
+        if (day.equals(capDay) && sentToday > 0) sentToday--;
+        tokens = Math.min(burst, tokens + 1);
+    }
+
+    synchronized int getSentToday() {
+        return sentToday;
+    }
+
+    synchronized int getDailyCap() {
+        return dailyCap;
+    }
+
+    synchronized double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefill) / 1_000_000_000.0 * ratePerSecond);
+        lastRefill = now;
+    }
+}
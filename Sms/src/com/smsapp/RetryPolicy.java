@@ -0,0 +1,41 @@
+package com.smsapp;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// How often and how soon transient send failures are retried. Delays grow exponentially from
+// baseDelayMillis, capped at maxDelayMillis, with "equal jitter" (half fixed, half random) so
+// a burst of failures does not retry in lockstep. A server Retry-After is a lower bound.
+final class RetryPolicy {
+    static final RetryPolicy NONE = new RetryPolicy(1, 0, 0);
+
+    final int maxAttempts;
+    final long baseDelayMillis;
+    final long maxDelayMillis;
+
+    RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("maxAttempts must be >= 1");
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    // -Dretry.baseDelayMs / -Dretry.maxDelayMs tune the backoff; retries come from the UI
+    static RetryPolicy withRetries(int retries) {
+        return new RetryPolicy(retries + 1,
+            Long.getLong("retry.baseDelayMs", 2000),
+            Long.getLong("retry.maxDelayMs", 60000));
+    }
+
+    boolean shouldRetry(SendResult result, int attempt) {
+        return result != null && result.isTransient() && attempt < maxAttempts;
+    }
+
+    // Delay before attempt `attempt + 1`
+    long delayMillis(int attempt, long retryAfterMillis) {
+        int shift = Math.min(attempt - 1, 30);
+        long exponential = Math.min(maxDelayMillis, baseDelayMillis << shift);
+        long half = exponential / 2;
+        long jittered = half + (half > 0 ? ThreadLocalRandom.current().nextLong(half + 1) : 0);
+        return Math.max(jittered, retryAfterMillis);
+    }
+}
@@ -0,0 +1,73 @@
+package com.smsapp;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// Size-based rolling log file: app.log, app.log.1 ... app.log.N. When app.log passes maxBytes
+// it becomes app.log.1, the older files shift up one and the oldest is deleted. Used only by
+// the AppLog writer thread.
+final class RollingLogFile {
+    private final File file;
+    private final long maxBytes;
+    private final int keep;
+    private Writer writer;
+    private long size;
+
+    RollingLogFile(File file, long maxBytes, int keep) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.keep = Math.max(0, keep);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    void write(CharSequence text) throws IOException {
+        if (writer == null) open();
+        String s = text.toString();
+        writer.write(s);
+        size += s.length(); // chars, close enough to bytes for rolling
+        if (size >= maxBytes) roll();
+    }
+
+    void flush() throws IOException {
+        if (writer != null) writer.flush();
+    }
+
+    void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+        }
+        writer = null;
+    }
+
+    private void open() throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+        size = file.length();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private void roll() throws IOException {
+        close();
+        if (keep == 0) {
+            file.delete();
+        } else {
+            new File(file.getPath() + "." + keep).delete();
+            for (int i = keep - 1; i >= 1; i--) {
+                File older = new File(file.getPath() + "." + i);
+                if (older.exists()) older.renameTo(new File(file.getPath() + "." + (i + 1)));
+            }
+            file.renameTo(new File(file.getPath() + ".1"));
+        }
+        open();
+    }
+}
@@ -0,0 +1,356 @@
+package com.smsapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// A loaded data file: the employees, the header columns and the birthday index built over them.
+// Immutable - a reload builds a new Roster, and callers swap their reference to it, so a send
+// in progress keeps working on the snapshot it started with.
+//
+// -Droster.store=auto (default: a RosterColumns store from COLUMNAR_ROWS rows up, one object per
+// row below that) | objects | columnar.
+final class Roster {
+    private static final Logger LOG = LoggerFactory.getLogger(Roster.class);
+    private static final int REPORT_ROWS = 10;
+    private static final int COLUMNAR_ROWS = 100_000;
+
+    static final Roster EMPTY = new Roster(null, 0, 0, new String[0], Collections.<Employee>emptyList(), -1, 0);
+
+    final File file; // null for EMPTY
+    final long fileSize;
+    final long fileModified;
+    final String[] columns;
+    final List<Employee> employees;
+    final BirthdayIndex<Employee> birthdayIndex;
+
+    // CSV only: bytes parsed so far (ending on a newline) and their CRC32, so a reload can tell
+    // that rows were only appended and parse just the new tail. -1 when that is not possible.
+    private final long parsedBytes;
+    private final long parsedCrc;
+
+    private Roster(File file, long fileSize, long fileModified, String[] columns, List<Employee> employees,
+                   long parsedBytes, long parsedCrc) {
+        this.file = file;
+        this.fileSize = fileSize;
+        this.fileModified = fileModified;
+        this.columns = columns;
+        this.employees = employees instanceof RosterColumns ? employees : Collections.unmodifiableList(employees);
+        this.birthdayIndex = buildBirthdayIndex(this.employees);
+        this.parsedBytes = parsedBytes;
+        this.parsedCrc = parsedCrc;
+    }
+
+    // Parses a CSV/TXT or XLS/XLSX data file, or reads its RosterSnapshot when the file is
+    // unchanged since the snapshot was written; `log` receives progress messages
+    static Roster load(File file, Consumer<String> log) throws IOException {
+        long size = file.length();
+        long modified = file.lastModified();
+        if (RosterSnapshot.enabled() && !"objects".equalsIgnoreCase(System.getProperty("roster.store"))) {
+            long start = System.nanoTime();
+            RosterSnapshot snapshot = RosterSnapshot.read(file, size, modified, log);
+            if (snapshot != null) {
+                log.accept("Loaded " + snapshot.rows.size() + " employees from " +
+                    RosterSnapshot.fileFor(file).getName() + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                return new Roster(file, size, modified, snapshot.columns, snapshot.rows, snapshot.parsedBytes,
+                    snapshot.parsedBytes > 0 ? snapshot.sourceCrc : 0);
+            }
+        }
+        String fileName = file.getName().toLowerCase();
+        List<Employee> employees = new ArrayList<>();
+        String[][] columns = {new String[0]};
+
+        if (fileName.endsWith(".csv") || fileName.endsWith(".txt")) {
+            parseCsv(file, employees, columns, log);
+            employees = pack(mergeDuplicates(employees, 0, log), columns[0], log);
+            // Only a file that ends on a complete line, and did not change while it was being
+            // parsed, can be extended incrementally later
+            long parsed = -1;
+            long crc = -1;
+            if (file.length() == size && file.lastModified() == modified && endsWithNewline(file, size)) {
+                crc = checksum(file, size);
+                parsed = size;
+            }
+            Roster roster = new Roster(file, size, modified, columns[0], employees, parsed, Math.max(crc, 0));
+            saveSnapshot(roster, crc, log);
+            return roster;
+        } else if (fileName.endsWith(".xls") || fileName.endsWith(".xlsx")) {
+            parseExcel(file, employees, columns, log);
+            employees = pack(mergeDuplicates(employees, 0, log), columns[0], log);
+        } else {
+            throw new IOException("Unsupported file format. Please use CSV, TXT, XLS, or XLSX files.");
+        }
+        Roster roster = new Roster(file, size, modified, columns[0], employees, -1, 0);
+        saveSnapshot(roster, -1, log);
+        return roster;
+    }
+
+    // Re-reads the file after it changed on disk. When the CSV only grew and everything parsed
+    // before is byte-for-byte unchanged, only the appended rows are parsed; anything else
+    // (edits, deletions, Excel files) falls back to a full load.
+    Roster reload(Consumer<String> log) throws IOException {
+        if (file == null) return this;
+        long size = file.length();
+        long modified = file.lastModified();
+        if (parsedBytes > 0 && size > parsedBytes) {
+            CRC32 checksum = new CRC32();
+            updateChecksum(checksum, file, 0, parsedBytes);
+            if (checksum.getValue() == parsedCrc) {
+                // Stop at the last complete line; a row still being written is picked up next time
+                long end = lastNewline(file, parsedBytes, size) + 1;
+                List<Employee> appended = CsvParser.parseRange(file, (char) 0, parsedBytes, end, Roster::mapCsvRow);
+                updateChecksum(checksum, file, parsedBytes, end);
+
+                List<Employee> merged = new ArrayList<>(employees.size() + appended.size());
+                merged.addAll(employees);
+                merged.addAll(appended);
+                merged = pack(mergeDuplicates(merged, employees.size(), log), columns, log);
+                log.accept("Picked up " + appended.size() + " new row(s) appended to " + file.getName() +
+                    " (" + merged.size() + " employees)");
+                // A partial last line keeps size/mtime stale so the next check reloads again
+                long seenSize = end == size ? size : end;
+                Roster roster = new Roster(file, seenSize, modified, columns, merged, end, checksum.getValue());
+                if (end == size) saveSnapshot(roster, checksum.getValue(), log);
+                return roster;
+            }
+        }
+        return load(file, log);
+    }
+
+    // True when the file changed on disk since it was loaded
+    boolean isStale() {
+        return file != null && file.exists() && (file.length() != fileSize || file.lastModified() != fileModified);
+    }
+
+    // A loaded dead-letter file is re-run as a whole, whatever the date
+    boolean isDeadLetter() {
+        return DeadLetterFile.isDeadLetterHeader(columns);
+    }
+
+    private static void parseCsv(File file, List<Employee> employees, String[][] columns, Consumer<String> log)
+            throws IOException {
+        try {
+            List<Employee> loaded = CsvParser.parseFile(file, (char) 0,
+                (header, count) -> {
+                    columns[0] = trimmedCopy(header, count);
+                    
+                    // Check if header contains company name column
+                    for (int i = 0; i < count; i++) {
+                        if (header[i].toLowerCase().contains("company")) {
+                            log.accept("Detected company name column in CSV");
+                            break;
+                        }
+                    }
+                },
+                Roster::mapCsvRow);
+            
+            employees.addAll(loaded);
+            log.accept("Loaded " + loaded.size() + " employees from CSV");
+            
+        } catch (Exception ex) {
+            throw new IOException("CSV parsing error: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static Employee mapCsvRow(String[] values, int count) {
+        if (count < 4) return null;
+        
+        // Employee falls back to the department when there is no company name in column 5
+        if (isBlank(values[1]) || values[2].trim().isEmpty()) return null;
+        return Employee.of(PhoneNumbers.normalize(values[1]), trimmedCopy(values, count));
+    }
+
+    private static void parseExcel(File file, List<Employee> employees, String[][] columns, Consumer<String> log)
+            throws IOException {
+        int[] count = {0};
+        boolean[] firstRow = {true};
+        
+        try {
+            // Streams rows one at a time; the workbook is never loaded as a DOM
+            StreamingExcelReader.read(file, (cells, physicalCells) -> {
+                if (firstRow[0]) {
+                    firstRow[0] = false;
+                    columns[0] = trimmedCopy(cells, cells.length);
+                    return; // Skip header row
+                }
+                
+                if (physicalCells >= 4) {
+                    // Employee falls back to the department when there is no company name in column 5
+                    if (!isBlank(cells[1]) && !cells[2].isEmpty()) {
+                        employees.add(Employee.of(PhoneNumbers.normalize(cells[1]), trimmedCopy(cells, cells.length)));
+                        count[0]++;
+                    }
+                }
+            });
+            
+            log.accept("Loaded " + count[0] + " employees from Excel file");
+            
+        } catch (Exception ex) {
+            throw new IOException("Excel parsing error: " + ex.getMessage(), ex);
+        }
+    }
+
+    // CRC32 of the first `size` bytes of the file
+    static long checksum(File file, long size) throws IOException {
+        CRC32 checksum = new CRC32();
+        updateChecksum(checksum, file, 0, size);
+        return checksum.getValue();
+    }
+
+    // Writes a RosterSnapshot for a columnar roster, unless the file changed while it was being
+    // parsed. `crc` is the content checksum when the caller already has it, otherwise -1.
+    // Failing to write one only costs the next launch a full parse.
+    private static void saveSnapshot(Roster roster, long crc, Consumer<String> log) {
+        if (!(roster.employees instanceof RosterColumns) || !RosterSnapshot.enabled()) return;
+        File file = roster.file;
+        File snapshot = RosterSnapshot.fileFor(file);
+        try {
+            long start = System.nanoTime();
+            if (crc < 0) crc = checksum(file, roster.fileSize);
+            if (file.length() != roster.fileSize || file.lastModified() != roster.fileModified) return;
+            RosterSnapshot.write(file, roster.fileSize, roster.fileModified, crc, roster.parsedBytes, roster.columns,
+                (RosterColumns) roster.employees);
+            log.accept("Saved " + snapshot.getName() + " (" + snapshot.length() / 1024 + " KB) in " +
+                (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (IOException ex) {
+            log.accept("Could not save " + snapshot.getName() + ": " + ex.getMessage());
+        }
+    }
+
+    private static void updateChecksum(CRC32 checksum, File file, long from, long to) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            long pos = from;
+            while (pos < to) {
+                buffer.clear();
+                if (to - pos < buffer.capacity()) buffer.limit((int) (to - pos));
+                int read = channel.read(buffer, pos);
+                if (read < 0) throw new IOException(file.getName() + " shrank while being read");
+                buffer.flip();
+                checksum.update(buffer);
+                pos += read;
+            }
+        }
+    }
+
+    private static boolean endsWithNewline(File file, long size) throws IOException {
+        return size > 0 && lastNewline(file, size - 1, size) == size - 1;
+    }
+
+    // Offset of the last '\n' in [from, to), or from - 1 if there is none
+    private static long lastNewline(File file, long from, long to) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long blockEnd = to;
+            while (blockEnd > from) {
+                long blockStart = Math.max(from, blockEnd - buffer.capacity());
+                buffer.clear();
+                buffer.limit((int) (blockEnd - blockStart));
+                channel.read(buffer, blockStart);
+                for (int i = buffer.position() - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') return blockStart + i;
+                }
+                blockEnd = blockStart;
+            }
+            return from - 1;
+        }
+    }
+
+    private static String[] trimmedCopy(String[] values, int count) {
+        String[] copy = new String[count];
+        for (int i = 0; i < count; i++) copy[i] = values[i].trim();
+        return copy;
+    }
+
+    // Has no digit or '+' at all - the row has no phone number
+    private static boolean isBlank(String raw) {
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if ((c >= '0' && c <= '9') || c == '+') return false;
+        }
+        return true;
+    }
+
+    // Rows with the same E.164 number and the same birthday are one person listed twice (often
+    // as "+91..." and "0..."): the first row is kept. The same number with different birthdays
+    // is left alone here; a campaign still messages each number once. Unparseable numbers are
+    // reported and kept so they show up as skipped when sending. Rows before `newFrom` were
+    // checked by an earlier load and are not reported again.
+    private static List<Employee> mergeDuplicates(List<Employee> rows, int newFrom, Consumer<String> log) {
+        LongHashSet seen = new LongHashSet(rows.size());
+        List<Employee> kept = null;
+        StringBuilder merged = new StringBuilder();
+        StringBuilder invalid = new StringBuilder();
+        int mergedCount = 0;
+        int invalidCount = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            Employee emp = rows.get(i);
+            long number = emp.phoneNumber();
+            if (number == PhoneNumbers.INVALID) {
+                if (i >= newFrom && invalidCount++ < REPORT_ROWS) {
+                    invalid.append("\n  ").append(emp.name()).append(": '").append(emp.column(Employee.PHONE)).append('\'');
+                }
+            } else if (!seen.add(number * 368 + emp.birthdayKey() + 1)) {
+                if (kept == null) kept = new ArrayList<>(rows.subList(0, i));
+                if (mergedCount++ < REPORT_ROWS) {
+                    merged.append("\n  ").append(emp.name()).append(" (").append(emp.column(Employee.PHONE))
+                        .append(" = ").append(emp.phone()).append(", ").append(emp.dob()).append(')');
+                }
+                continue;
+            }
+            if (kept != null) kept.add(emp);
+        }
+        if (mergedCount > 0) {
+            log.accept("Merged " + mergedCount + " duplicate row(s) - same number and birthday as an earlier row:" +
+                merged + (mergedCount > REPORT_ROWS ? "\n  ... and " + (mergedCount - REPORT_ROWS) + " more" : ""));
+        }
+        if (invalidCount > 0) {
+            log.accept(invalidCount + " row(s) have a phone number that cannot be read and will be skipped:" +
+                invalid + (invalidCount > REPORT_ROWS ? "\n  ... and " + (invalidCount - REPORT_ROWS) + " more" : ""));
+        }
+        return kept != null ? kept : rows;
+    }
+
+    private static BirthdayIndex<Employee> buildBirthdayIndex(List<Employee> rows) {
+        BirthdayIndex.LeapDayPolicy policy = leapDayPolicy();
+        if (rows instanceof RosterColumns) return BirthdayIndex.build(rows, ((RosterColumns) rows)::birthdayKey, policy);
+        return BirthdayIndex.build(rows, i -> rows.get(i).birthdayKey(), policy);
+    }
+
+    // -Dbirthday.leapDay: when 29 Feb birthdays are celebrated in other years, FEB_28 (default) or
+    // MAR_01. An unknown value is reported and the default used, so a typo cannot stop a load.
+    private static BirthdayIndex.LeapDayPolicy leapDayPolicy() {
+        String value = System.getProperty("birthday.leapDay");
+        if (value == null) return BirthdayIndex.LeapDayPolicy.FEB_28;
+        try {
+            return BirthdayIndex.LeapDayPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Unknown -Dbirthday.leapDay '{}' (use FEB_28 or MAR_01), using FEB_28", value);
+            return BirthdayIndex.LeapDayPolicy.FEB_28;
+        }
+    }
+
+    // Moves large rosters into a RosterColumns store (see -Droster.store); the per-row objects
+    // the parsers produced become garbage once the caller drops `rows`
+    private static List<Employee> pack(List<Employee> rows, String[] header, Consumer<String> log) {
+        String store = System.getProperty("roster.store", "auto");
+        boolean columnar = "columnar".equalsIgnoreCase(store)
+            || (!"objects".equalsIgnoreCase(store) && rows.size() >= COLUMNAR_ROWS);
+        if (!columnar || rows.isEmpty()) return rows;
+        RosterColumns packed = RosterColumns.copyOf(rows);
+        log.accept(String.format("Stored %d rows in columns, ~%.1f MB (%s)", packed.size(),
+            packed.heapBytes() / (1024.0 * 1024.0), packed.describe(header)));
+        return packed;
+    }
+}
@@ -0,0 +1,405 @@
+package com.smsapp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+// Column-oriented roster storage for large files. Instead of an Employee object, a String[] and
+// five Strings per row (~350 bytes), each column is one array:
+//   phone numbers   long[]  (E.164, see PhoneNumbers)
+//   birthday keys   short[] (day of leap year)
+//   data columns    dictionary-encoded (byte/char codes into a String[]) when few distinct
+//                   values repeat - department, company, DOB - otherwise packed UTF-8 in one
+//                   byte arena with an end offset per row - names, raw phone text
+// A million rows fit in ~50 MB. get(i) returns a flyweight Employee view (a store reference
+// and a row number) that decodes a field only when the send path or a template reads it.
+final class RosterColumns extends AbstractList<Employee> implements RandomAccess {
+    private static final int MAX_DICTIONARY = 65536; // char codes
+
+    private final int size;
+    private final long[] phoneNumbers;
+    private final short[] birthdayKeys;
+    private final Column[] columns;
+
+    private RosterColumns(int size, long[] phoneNumbers, short[] birthdayKeys, Column[] columns) {
+        this.size = size;
+        this.phoneNumbers = phoneNumbers;
+        this.birthdayKeys = birthdayKeys;
+        this.columns = columns;
+    }
+
+    static RosterColumns copyOf(List<Employee> rows) {
+        Builder builder = new Builder(rows.size());
+        for (Employee row : rows) builder.add(row);
+        return builder.build();
+    }
+
+    @Override
+    public Employee get(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        return new Row(this, row);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    long phoneNumber(int row) {
+        return phoneNumbers[row];
+    }
+
+    int birthdayKey(int row) {
+        return birthdayKeys[row];
+    }
+
+    // Approximate heap footprint of the arrays, for the load log and the benchmark
+    long heapBytes() {
+        long bytes = 8L * size + 2L * size;
+        for (Column column : columns) bytes += column.heapBytes();
+        return bytes;
+    }
+
+    // How each data column ended up stored, e.g. "Name=utf8 Phone=utf8 DOB=dict(366)"
+    String describe(String[] header) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(i < header.length ? header[i] : "#" + i).append('=').append(columns[i].describe());
+        }
+        return sb.toString();
+    }
+
+    // Snapshot form (RosterSnapshot): every array with its length, in field order
+    void write(RosterSnapshot.Output out) throws IOException {
+        out.putLongs(phoneNumbers, size);
+        out.putShorts(birthdayKeys, size);
+        out.putInt(columns.length);
+        for (Column column : columns) column.write(out);
+    }
+
+    static RosterColumns read(ByteBuffer in) {
+        long[] phoneNumbers = RosterSnapshot.getLongs(in);
+        short[] birthdayKeys = RosterSnapshot.getShorts(in);
+        int size = phoneNumbers.length;
+        if (birthdayKeys.length != size) throw new IllegalStateException("column length mismatch");
+        Column[] columns = new Column[RosterSnapshot.checkedLength(in, 1)];
+        for (int i = 0; i < columns.length; i++) {
+            byte kind = in.get();
+            if (kind == DictionaryColumn.BYTE_CODES || kind == DictionaryColumn.CHAR_CODES) {
+                String[] values = new String[RosterSnapshot.checkedLength(in, 4)];
+                for (int v = 0; v < values.length; v++) values[v] = RosterSnapshot.getString(in);
+                columns[i] = kind == DictionaryColumn.BYTE_CODES
+                    ? new DictionaryColumn(values, RosterSnapshot.getBytes(in), null)
+                    : new DictionaryColumn(values, null, RosterSnapshot.getChars(in));
+            } else if (kind == Utf8Column.KIND) {
+                columns[i] = new Utf8Column(RosterSnapshot.getBytes(in), RosterSnapshot.getInts(in));
+            } else {
+                throw new IllegalStateException("unknown column kind " + kind);
+            }
+            columns[i].check(size);
+        }
+        return new RosterColumns(size, phoneNumbers, birthdayKeys, columns);
+    }
+
+    // A row of the store. Holds no data of its own; two views of the same row are equal.
+    private static final class Row extends Employee {
+        private final RosterColumns store;
+        private final int row;
+
+        Row(RosterColumns store, int row) {
+            this.store = store;
+            this.row = row;
+        }
+
+        @Override
+        long phoneNumber() {
+            return store.phoneNumbers[row];
+        }
+
+        @Override
+        int birthdayKey() {
+            return store.birthdayKeys[row];
+        }
+
+        @Override
+        String column(int index) {
+            return index < store.columns.length ? store.columns[index].get(row) : "";
+        }
+
+        @Override
+        int columnCount() {
+            return store.columns.length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Row && ((Row) o).store == store && ((Row) o).row == row;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(store) * 31 + row;
+        }
+    }
+
+    private abstract static class Column {
+        abstract String get(int row);
+
+        abstract void write(RosterSnapshot.Output out) throws IOException;
+
+        // Rejects a column read from a damaged snapshot before any row is looked at
+        abstract void check(int size);
+
+        abstract long heapBytes();
+
+        abstract String describe();
+    }
+
+    private static final class DictionaryColumn extends Column {
+        static final byte BYTE_CODES = 0;
+        static final byte CHAR_CODES = 1;
+
+        private final String[] values;
+        private final byte[] byteCodes; // when there are at most 256 values
+        private final char[] charCodes;
+
+        DictionaryColumn(String[] values, byte[] byteCodes, char[] charCodes) {
+            this.values = values;
+            this.byteCodes = byteCodes;
+            this.charCodes = charCodes;
+        }
+
+        @Override
+        String get(int row) {
+            return values[byteCodes != null ? byteCodes[row] & 0xff : charCodes[row]];
+        }
+
+        @Override
+        void write(RosterSnapshot.Output out) throws IOException {
+            out.putByte(byteCodes != null ? BYTE_CODES : CHAR_CODES);
+            out.putInt(values.length);
+            for (String value : values) out.putString(value);
+            if (byteCodes != null) {
+                out.putBytes(byteCodes, byteCodes.length);
+            } else {
+                out.putChars(charCodes, charCodes.length);
+            }
+        }
+
+        @Override
+        void check(int size) {
+            int rows = byteCodes != null ? byteCodes.length : charCodes.length;
+            if (rows != size) throw new IllegalStateException("column length mismatch");
+            for (int i = 0; i < rows; i++) {
+                if ((byteCodes != null ? byteCodes[i] & 0xff : charCodes[i]) >= values.length) {
+                    throw new IllegalStateException("dictionary code out of range");
+                }
+            }
+        }
+
+        @Override
+        long heapBytes() {
+            long bytes = byteCodes != null ? byteCodes.length : 2L * charCodes.length;
+            for (String value : values) bytes += 48 + value.length();
+            return bytes;
+        }
+
+        @Override
+        String describe() {
+            return "dict(" + values.length + ")";
+        }
+    }
+
+    private static final class Utf8Column extends Column {
+        static final byte KIND = 2;
+
+        private final byte[] arena;
+        private final int[] ends; // row i is arena[ends[i - 1], ends[i])
+
+        Utf8Column(byte[] arena, int[] ends) {
+            this.arena = arena;
+            this.ends = ends;
+        }
+
+        @Override
+        String get(int row) {
+            int start = row == 0 ? 0 : ends[row - 1];
+            return start == ends[row] ? "" : new String(arena, start, ends[row] - start, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        void write(RosterSnapshot.Output out) throws IOException {
+            out.putByte(KIND);
+            out.putBytes(arena, arena.length);
+            out.putInts(ends, ends.length);
+        }
+
+        @Override
+        void check(int size) {
+            if (ends.length != size) throw new IllegalStateException("column length mismatch");
+            int previous = 0;
+            for (int end : ends) {
+                if (end < previous || end > arena.length) throw new IllegalStateException("bad offset");
+                previous = end;
+            }
+        }
+
+        @Override
+        long heapBytes() {
+            return arena.length + 4L * ends.length;
+        }
+
+        @Override
+        String describe() {
+            return "utf8";
+        }
+    }
+
+    // Appends rows one at a time. Every data column starts out as a dictionary and switches to
+    // the UTF-8 arena once it has too many distinct values to be worth one.
+    static final class Builder {
+        private int size;
+        private long[] phoneNumbers;
+        private short[] birthdayKeys;
+        private ColumnBuilder[] columns = new ColumnBuilder[0];
+
+        Builder(int expectedRows) {
+            int capacity = Math.max(16, expectedRows);
+            phoneNumbers = new long[capacity];
+            birthdayKeys = new short[capacity];
+        }
+
+        void add(Employee row) {
+            if (size == phoneNumbers.length) {
+                phoneNumbers = Arrays.copyOf(phoneNumbers, size * 2);
+                birthdayKeys = Arrays.copyOf(birthdayKeys, size * 2);
+            }
+            phoneNumbers[size] = row.phoneNumber();
+            birthdayKeys[size] = (short) row.birthdayKey();
+
+            int count = row.columnCount();
+            if (count > columns.length) {
+                int old = columns.length;
+                columns = Arrays.copyOf(columns, count);
+                // Earlier, shorter rows read "" in the new columns
+                for (int i = old; i < count; i++) columns[i] = new ColumnBuilder(size, phoneNumbers.length);
+            }
+            // Rows of another store (an incremental reload) are copied without decoding
+            Row view = row instanceof Row ? (Row) row : null;
+            for (int i = 0; i < columns.length; i++) {
+                if (i >= count) {
+                    columns[i].add("");
+                } else if (view != null) {
+                    columns[i].addFrom(view.store.columns[i], view.row);
+                } else {
+                    columns[i].add(row.column(i));
+                }
+            }
+            size++;
+        }
+
+        RosterColumns build() {
+            Column[] built = new Column[columns.length];
+            for (int i = 0; i < built.length; i++) built[i] = columns[i].build(size);
+            return new RosterColumns(size, Arrays.copyOf(phoneNumbers, size), Arrays.copyOf(birthdayKeys, size),
+                built);
+        }
+    }
+
+    private static final class ColumnBuilder {
+        // Dictionary mode
+        private Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+        private char[] rowCodes;
+        // Arena mode, once the dictionary overflows
+        private byte[] arena;
+        private int arenaSize;
+        private int[] ends;
+        private int rows;
+
+        ColumnBuilder(int emptyRows, int capacity) {
+            rowCodes = new char[Math.max(16, capacity)];
+            for (int i = 0; i < emptyRows; i++) add("");
+        }
+
+        void add(String value) {
+            if (arena == null) {
+                Integer code = codes.get(value);
+                if (code == null) {
+                    if (codes.size() == MAX_DICTIONARY) {
+                        switchToArena();
+                        add(value);
+                        return;
+                    }
+                    code = codes.size();
+                    codes.put(value, code);
+                    if (code == values.length) values = Arrays.copyOf(values, code * 2);
+                    values[code] = value;
+                }
+                if (rows == rowCodes.length) rowCodes = Arrays.copyOf(rowCodes, rows * 2);
+                rowCodes[rows++] = (char) code.intValue();
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                appendBytes(bytes, 0, bytes.length);
+            }
+        }
+
+        // Copies a value out of another store, without decoding it when both sides are UTF-8
+        void addFrom(Column source, int row) {
+            if (arena != null && source instanceof Utf8Column) {
+                Utf8Column utf8 = (Utf8Column) source;
+                int start = row == 0 ? 0 : utf8.ends[row - 1];
+                appendBytes(utf8.arena, start, utf8.ends[row] - start);
+            } else {
+                add(source.get(row));
+            }
+        }
+
+        private void appendBytes(byte[] bytes, int offset, int length) {
+            if (arenaSize + length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+            }
+            System.arraycopy(bytes, offset, arena, arenaSize, length);
+            arenaSize += length;
+            if (rows == ends.length) ends = Arrays.copyOf(ends, rows * 2);
+            ends[rows++] = arenaSize;
+        }
+
+        private void switchToArena() {
+            int count = rows;
+            char[] oldCodes = rowCodes;
+            String[] oldValues = values;
+            arena = new byte[Math.max(1024, count * 16)];
+            ends = new int[oldCodes.length];
+            rows = 0;
+            codes = null;
+            values = null;
+            rowCodes = null;
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = oldValues[oldCodes[i]].getBytes(StandardCharsets.UTF_8);
+                appendBytes(bytes, 0, bytes.length);
+            }
+        }
+
+        Column build(int size) {
+            // A dictionary of mostly unique values costs a String per row; the arena is smaller
+            if (arena == null && codes.size() > 256 && codes.size() > size / 2) switchToArena();
+            if (arena != null) return new Utf8Column(Arrays.copyOf(arena, arenaSize), Arrays.copyOf(ends, rows));
+
+            String[] dictionary = Arrays.copyOf(values, codes.size());
+            if (dictionary.length <= 256) {
+                byte[] small = new byte[rows];
+                for (int i = 0; i < rows; i++) small[i] = (byte) rowCodes[i];
+                return new DictionaryColumn(dictionary, small, null);
+            }
+            return new DictionaryColumn(dictionary, null, Arrays.copyOf(rowCodes, rows));
+        }
+    }
+}
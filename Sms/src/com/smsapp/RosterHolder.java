@@ -0,0 +1,36 @@
+package com.smsapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// The current Roster snapshot. Readers just call get() - no locks on the hot path. Reloads
+// build a new Roster off to the side and publish it with compareAndSet, so concurrent reloads
+// (file watcher, scheduler, Refresh button) never lose each other's rows, and a newly loaded
+// file is never overwritten by a late reload of the old one.
+final class RosterHolder {
+    private final AtomicReference<Roster> current = new AtomicReference<>(Roster.EMPTY);
+
+    Roster get() {
+        return current.get();
+    }
+
+    // A different file was loaded; replaces whatever was there
+    void set(Roster roster) {
+        current.set(roster);
+    }
+
+    // Reloads while the snapshot is stale and returns the one that ended up current
+    Roster reloadIfStale(Consumer<String> log) throws IOException {
+        while (true) {
+            Roster before = current.get();
+            if (!before.isStale()) return before;
+            File file = before.file;
+            log.accept("Data file changed on disk - reloading " + file.getName());
+            Roster next = before.reload(log);
+            if (current.compareAndSet(before, next)) return next;
+            // Lost the race to another reload or a new file; look at what won
+        }
+    }
+}
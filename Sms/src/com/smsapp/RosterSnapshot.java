@@ -0,0 +1,271 @@
+package com.smsapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+// Binary copy of a parsed columnar roster, kept next to the data file as "<name>.snapshot", so
+// the next launch can skip POI/CSV parsing when the file has not changed. The snapshot is keyed
+// by the source's size, mtime and CRC32 of its content; any mismatch, an older format version
+// or a damaged file means it is ignored and rewritten after the normal parse.
+//
+// Layout (big-endian): magic, version, source size/mtime/CRC32, CSV bytes parsed, header
+// strings, then the RosterColumns arrays (see RosterColumns.write). Loading reads the file into
+// one buffer and bulk-copies the arrays out of it. It is not memory-mapped: the mapping would
+// outlive the read until a GC, and on Windows a mapped file cannot be replaced by write().
+//
+// -Droster.snapshot=false turns snapshots off.
+final class RosterSnapshot {
+    private static final int MAGIC = 0x52534E50; // "RSNP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8 + 8;
+
+    final String[] columns;
+    final RosterColumns rows;
+    final long sourceCrc;
+    final long parsedBytes; // -1 when the source cannot be extended incrementally
+
+    private RosterSnapshot(String[] columns, RosterColumns rows, long sourceCrc, long parsedBytes) {
+        this.columns = columns;
+        this.rows = rows;
+        this.sourceCrc = sourceCrc;
+        this.parsedBytes = parsedBytes;
+    }
+
+    static boolean enabled() {
+        return !"false".equalsIgnoreCase(System.getProperty("roster.snapshot"));
+    }
+
+    static File fileFor(File source) {
+        return new File(source.getAbsoluteFile().getParentFile(), source.getName() + ".snapshot");
+    }
+
+    // The snapshot for `source` if it matches the file's current size, mtime and content,
+    // otherwise null. `log` hears why a snapshot present on disk was not used.
+    static RosterSnapshot read(File source, long size, long modified, Consumer<String> log) {
+        File file = fileFor(source);
+        if (!file.isFile()) return null;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) throw new IOException("snapshot too large: " + length + " bytes");
+            ByteBuffer in = ByteBuffer.allocate((int) length);
+            while (in.hasRemaining()) {
+                if (channel.read(in) < 0) throw new IOException("snapshot shrank while reading");
+            }
+            in.flip();
+            if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+                log.accept("Ignoring " + file.getName() + ": not a roster snapshot");
+                return null;
+            }
+            if (in.getInt() != VERSION) {
+                log.accept("Ignoring " + file.getName() + ": written by a different version");
+                return null;
+            }
+            // Cheap checks first; the content hash reads the whole source
+            if (in.getLong() != size || in.getLong() != modified) return null;
+            long crc = in.getLong();
+            if (Roster.checksum(source, size) != crc) {
+                log.accept("Ignoring " + file.getName() + ": " + source.getName() + " changed");
+                return null;
+            }
+            long parsedBytes = in.getLong();
+            String[] columns = new String[checkedLength(in, 4)];
+            for (int i = 0; i < columns.length; i++) columns[i] = getString(in);
+            RosterColumns rows = RosterColumns.read(in);
+            if (in.hasRemaining()) throw new IllegalStateException("trailing bytes");
+            return new RosterSnapshot(columns, rows, crc, parsedBytes);
+        } catch (IOException | RuntimeException ex) {
+            log.accept("Ignoring " + file.getName() + ": " + ex);
+            return null;
+        }
+    }
+
+    // Written to a temporary file and moved into place, so a reader never sees half a snapshot
+    static void write(File source, long size, long modified, long crc, long parsedBytes, String[] columns,
+                      RosterColumns rows) throws IOException {
+        File file = fileFor(source);
+        File temp = File.createTempFile(source.getName() + ".", ".tmp", file.getParentFile());
+        try {
+            try (Output out = new Output(FileChannel.open(temp.toPath(), StandardOpenOption.WRITE))) {
+                out.putInt(MAGIC);
+                out.putInt(VERSION);
+                out.putLong(size);
+                out.putLong(modified);
+                out.putLong(crc);
+                out.putLong(parsedBytes);
+                out.putInt(columns.length);
+                for (String column : columns) out.putString(column);
+                rows.write(out);
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+
+    // Reading helpers for RosterColumns.read. Lengths are checked against what is left in the
+    // buffer before anything is allocated, so a damaged file fails instead of exhausting heap.
+
+    static int checkedLength(ByteBuffer in, int elementBytes) {
+        int length = in.getInt();
+        if (length < 0 || (long) length * elementBytes > in.remaining()) {
+            throw new IllegalStateException("truncated snapshot");
+        }
+        return length;
+    }
+
+    static String getString(ByteBuffer in) {
+        byte[] bytes = getBytes(in);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static byte[] getBytes(ByteBuffer in) {
+        byte[] bytes = new byte[checkedLength(in, 1)];
+        in.get(bytes);
+        return bytes;
+    }
+
+    static char[] getChars(ByteBuffer in) {
+        char[] chars = new char[checkedLength(in, 2)];
+        in.asCharBuffer().get(chars);
+        in.position(in.position() + 2 * chars.length);
+        return chars;
+    }
+
+    static short[] getShorts(ByteBuffer in) {
+        short[] shorts = new short[checkedLength(in, 2)];
+        in.asShortBuffer().get(shorts);
+        in.position(in.position() + 2 * shorts.length);
+        return shorts;
+    }
+
+    static int[] getInts(ByteBuffer in) {
+        int[] ints = new int[checkedLength(in, 4)];
+        in.asIntBuffer().get(ints);
+        in.position(in.position() + 4 * ints.length);
+        return ints;
+    }
+
+    static long[] getLongs(ByteBuffer in) {
+        long[] longs = new long[checkedLength(in, 8)];
+        in.asLongBuffer().get(longs);
+        in.position(in.position() + 8 * longs.length);
+        return longs;
+    }
+
+    // Buffered writer over a FileChannel; arrays go out in bulk through typed views of one
+    // direct buffer. Every array is preceded by its length.
+    static final class Output implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putBytes(bytes, bytes.length);
+        }
+
+        void putBytes(byte[] values, int length) throws IOException {
+            putInt(length);
+            for (int done = 0; done < length;) {
+                ensure(1);
+                int n = Math.min(length - done, buffer.remaining());
+                buffer.put(values, done, n);
+                done += n;
+            }
+        }
+
+        void putChars(char[] values, int length) throws IOException {
+            putInt(length);
+            for (int done = 0; done < length;) {
+                ensure(2);
+                int n = Math.min(length - done, buffer.remaining() / 2);
+                buffer.asCharBuffer().put(values, done, n);
+                buffer.position(buffer.position() + 2 * n);
+                done += n;
+            }
+        }
+
+        void putShorts(short[] values, int length) throws IOException {
+            putInt(length);
+            for (int done = 0; done < length;) {
+                ensure(2);
+                int n = Math.min(length - done, buffer.remaining() / 2);
+                buffer.asShortBuffer().put(values, done, n);
+                buffer.position(buffer.position() + 2 * n);
+                done += n;
+            }
+        }
+
+        void putInts(int[] values, int length) throws IOException {
+            putInt(length);
+            for (int done = 0; done < length;) {
+                ensure(4);
+                int n = Math.min(length - done, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, done, n);
+                buffer.position(buffer.position() + 4 * n);
+                done += n;
+            }
+        }
+
+        void putLongs(long[] values, int length) throws IOException {
+            putInt(length);
+            for (int done = 0; done < length;) {
+                ensure(8);
+                int n = Math.min(length - done, buffer.remaining() / 8);
+                buffer.asLongBuffer().put(values, done, n);
+                buffer.position(buffer.position() + 8 * n);
+                done += n;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.smsapp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+// Watches the loaded data file with a WatchService on its directory and calls onChange once
+// writes have settled. Editors and exports often write a file in several steps (or replace it
+// through a rename), so events are coalesced until the directory has been quiet for
+// -Dwatch.settleMs (500 ms by default).
+final class RosterWatcher implements Closeable {
+    private static final long SETTLE_MILLIS = Long.getLong("watch.settleMs", 500);
+
+    private final Path file;
+    private final WatchService watchService;
+    private final Runnable onChange;
+    private final Thread thread;
+
+    RosterWatcher(File file, Runnable onChange) throws IOException {
+        this.file = file.getAbsoluteFile().toPath();
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "roster-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    File getFile() {
+        return file.toFile();
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!concernsFile(watchService.take())) continue;
+
+                // Coalesce the burst of events one save produces
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    concernsFile(more);
+                }
+                try {
+                    onChange.run();
+                } catch (RuntimeException ex) {
+                    // Keep watching; the callback reports its own errors
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // closed
+        }
+    }
+
+    private boolean concernsFile(WatchKey key) {
+        boolean hit = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || file.getFileName().equals(event.context())) {
+                hit = true;
+            }
+        }
+        key.reset();
+        return hit;
+    }
+}
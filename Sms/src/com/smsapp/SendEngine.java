@@ -0,0 +1,177 @@
+package com.smsapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+// Pipelined send engine: keeps up to `concurrency` requests in flight, each on its own task in
+// the send lane (a virtual thread where available, see ExecutionLanes). Pacing is
+// not handled here - each send path draws from its instance's RateLimiter.
+// Transient failures are parked on a delay queue and re-dispatched when their backoff
+// expires, so a waiting retry never holds a worker thread.
+class SendEngine {
+
+    interface Sender<T> {
+        // `attempt` starts at 1. Return null when there is nothing to retry; a deferred result is
+        // neither retried nor given up on.
+        SendResult send(T item, int attempt, int current, int total) throws Exception;
+    }
+
+    interface RetryListener<T> {
+        void retrying(T item, int nextAttempt, long delayMillis, SendResult last);
+
+        // Called once per item that failed for good, or still had a retry pending when stopped
+        void gaveUp(T item, int attempts, SendResult last);
+    }
+
+    private static final class Retry<T> implements Delayed {
+        final T item;
+        final int attempt;
+        final int current;
+        final SendResult last;
+        final long dueNanos;
+
+        Retry(T item, int attempt, int current, SendResult last, long delayMillis) {
+            this.item = item;
+            this.attempt = attempt;
+            this.current = current;
+            this.last = last;
+            this.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Retry<?>) other).dueNanos);
+        }
+    }
+
+    private final int concurrency;
+
+    SendEngine(int concurrency) {
+        if (concurrency < 1) throw new IllegalArgumentException("concurrency must be >= 1");
+        this.concurrency = concurrency;
+    }
+
+    int getConcurrency() {
+        return concurrency;
+    }
+
+    <T> int run(List<T> items, Sender<T> sender, BooleanSupplier stopRequested) throws InterruptedException {
+        return run(items, sender, RetryPolicy.NONE, null, stopRequested);
+    }
+
+    // Blocks until every item has been sent, given up on, or stopped. Returns the number of
+    // first attempts dispatched.
+    <T> int run(List<T> items, Sender<T> sender, RetryPolicy policy, RetryListener<T> listener,
+                BooleanSupplier stopRequested) throws InterruptedException {
+        ExecutorService workers = ExecutionLanes.newSendLane(concurrency);
+        Semaphore inFlight = new Semaphore(concurrency);
+        DelayQueue<Retry<T>> retries = new DelayQueue<>();
+        int total = items.size();
+        int dispatched = 0;
+        // Queue depth for Metrics: items not yet dispatched plus retries waiting
+        AtomicInteger next = new AtomicInteger();
+        LongSupplier queueDepth = () -> total - next.get() + retries.size();
+        Metrics.addQueue(queueDepth);
+
+        try {
+            for (int i = 0; i < total; i++) {
+                if (stopRequested.getAsBoolean()) break;
+
+                // Due retries go ahead of new items
+                Retry<T> due;
+                while ((due = retries.poll()) != null) {
+                    if (!dispatch(workers, inFlight, stopRequested, due, sender, policy, listener, retries, total)) break;
+                }
+
+                T item = items.get(i);
+                if (!dispatch(workers, inFlight, stopRequested, new Retry<>(item, 1, i + 1, null, 0),
+                        sender, policy, listener, retries, total)) {
+                    break;
+                }
+                dispatched++;
+                next.set(i + 1);
+            }
+
+            // Keep dispatching retries until none are waiting and nothing is in flight. Workers
+            // schedule a retry before releasing their permit, so "all permits free and queue
+            // empty" means done.
+            while (!stopRequested.getAsBoolean()) {
+                Retry<T> due = retries.poll(200, TimeUnit.MILLISECONDS);
+                if (due != null) {
+                    dispatch(workers, inFlight, stopRequested, due, sender, policy, listener, retries, total);
+                } else if (inFlight.availablePermits() == concurrency && retries.isEmpty()) {
+                    break;
+                }
+            }
+
+            // Wait for the tail of in-flight requests to drain
+            inFlight.acquire(concurrency);
+            inFlight.release(concurrency);
+
+            // Anything still waiting was stopped before its retry. Not drainTo: that only takes
+            // retries whose backoff has already expired.
+            if (listener != null) {
+                List<Retry<T>> abandoned = new ArrayList<>(retries);
+                retries.clear();
+                for (Retry<T> retry : abandoned) {
+                    listener.gaveUp(retry.item, retry.attempt - 1, retry.last);
+                }
+            }
+        } finally {
+            Metrics.removeQueue(queueDepth);
+            workers.shutdown();
+        }
+        return dispatched;
+    }
+
+    // Returns false when a stop was requested while waiting for a free slot
+    private <T> boolean dispatch(ExecutorService workers, Semaphore inFlight, BooleanSupplier stopRequested,
+                                 Retry<T> task, Sender<T> sender, RetryPolicy policy,
+                                 RetryListener<T> listener, DelayQueue<Retry<T>> retries, int total)
+            throws InterruptedException {
+        inFlight.acquire();
+
+        // Re-check after waiting so a stop request does not dispatch one more message
+        if (stopRequested.getAsBoolean()) {
+            inFlight.release();
+            if (task.attempt > 1) retries.add(task); // reported as abandoned
+            return false;
+        }
+
+        workers.execute(() -> {
+            try {
+                SendResult result = null;
+                try {
+                    result = sender.send(task.item, task.attempt, task.current, total);
+                } catch (Exception ignored) {
+                    // Senders report their own failures
+                }
+                if (result == null || result.success || result.isDeferred() || listener == null) return;
+
+                if (policy.shouldRetry(result, task.attempt) && !stopRequested.getAsBoolean()) {
+                    long delay = policy.delayMillis(task.attempt, result.retryAfterMillis);
+                    listener.retrying(task.item, task.attempt + 1, delay, result);
+                    retries.add(new Retry<>(task.item, task.attempt + 1, task.current, result, delay));
+                } else {
+                    listener.gaveUp(task.item, task.attempt, result);
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+        return true;
+    }
+}
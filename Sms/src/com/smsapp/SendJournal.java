@@ -0,0 +1,382 @@
+package com.smsapp;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Append-only record of what happened to each recipient, so an interrupted run can be resumed
+// without messaging anyone twice. One line per state change:
+//
+//   <epoch millis> TAB <state> TAB <idempotency key> TAB <message id or -> [TAB <instance id>]
+//
+// SENT lines name the UltraMSG instance that sent them, so a restart can recount each instance's
+// sends against its daily cap (sentOn).
+// Records are queued and written by a single writer thread that fsyncs once per batch (group
+// commit), so callers never touch the disk. A sender records QUEUED and waits for it to become
+// durable before calling the API; the SENT/FAILED/DEFERRED outcome is written asynchronously. After
+// a crash, a key whose last state is QUEUED is "in doubt": the request may or may not have gone out.
+// DEFERRED means the API was never called (daily cap, stop), so a resume sends it normally.
+// FAILED is a failed attempt that may still succeed later; FAILED_PERMANENT follows it once the
+// API rejected the send or its retries ran out, and later windows of the same day leave it alone.
+//
+// Opening the journal compacts it: only the last line per key is kept, and keys whose campaign
+// date is more than -Djournal.retainDays (default 7) days old are dropped, so the file and the
+// replay stay the size of about a week of campaigns.
+final class SendJournal implements Closeable {
+    enum State {
+        QUEUED, SENT, FAILED, SKIPPED, DEFERRED, FAILED_PERMANENT;
+
+        // Rows in these states are not sent again when resuming
+        boolean isCompleted() {
+            return this == SENT || this == SKIPPED;
+        }
+    }
+
+    private static final boolean FSYNC = !"false".equals(System.getProperty("journal.fsync"));
+    private static final int RETAIN_DAYS = Math.max(1, Integer.getInteger("journal.retainDays", 7));
+
+    // A SENT record from the last few days, for sentOn
+    private static final class Sent {
+        final long millis;
+        final String instanceId;
+
+        Sent(long millis, String instanceId) {
+            this.millis = millis;
+            this.instanceId = instanceId;
+        }
+    }
+
+    private static final class Entry {
+        final long seq;
+        final byte[] line;
+
+        Entry(long seq, byte[] line) {
+            this.seq = seq;
+            this.line = line;
+        }
+    }
+
+    private final File file;
+    private final FileChannel channel;
+    private final ConcurrentHashMap<String, State> states = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Sent> recentlySent = new ConcurrentLinkedQueue<>();
+    private final LinkedBlockingQueue<Entry> pending = new LinkedBlockingQueue<>();
+    // A Lock rather than a monitor: thousands of virtual-thread senders can wait here
+    // without pinning their carrier threads
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durable = durableLock.newCondition();
+    private final Thread writer;
+    private final int inDoubtAtOpen;
+
+    private long nextSeq; // guarded by `this`, so queue order matches sequence order
+    private volatile long durableSeq;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private SendJournal(File file) throws IOException {
+        this.file = file;
+        FileChannel opened = openChannel(file);
+        try {
+            Map<String, String> lastLines = new LinkedHashMap<>();
+            int lines = replay(opened, lastLines);
+            if (lines > lastLines.size()) {
+                // Windows cannot replace a file that is still open. If the compacted copy cannot
+                // be put in place the full journal is still there and is used as it is.
+                opened.close();
+                try {
+                    rewrite(file, lastLines.values());
+                } finally {
+                    opened = openChannel(file);
+                }
+            }
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+        this.channel = opened;
+        int inDoubt = 0;
+        for (State state : states.values()) {
+            if (state == State.QUEUED) inDoubt++;
+        }
+        this.inDoubtAtOpen = inDoubt;
+
+        writer = new Thread(this::writeLoop, "send-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    static SendJournal open(File file) throws IOException {
+        SendJournal journal = new SendJournal(file);
+        Runtime.getRuntime().addShutdownHook(new Thread(journal::closeQuietly, "send-journal-close"));
+        return journal;
+    }
+
+    // One delivery per phone number per campaign day
+    static String idempotencyKey(LocalDate campaignDate, Employee employee) {
+        return employee.phoneNumber() != PhoneNumbers.INVALID
+            ? campaignDate + "/" + employee.phoneNumber()
+            : idempotencyKey(campaignDate, employee.column(1));
+    }
+
+    static String idempotencyKey(LocalDate campaignDate, String phone) {
+        StringBuilder key = new StringBuilder(24).append(campaignDate).append('/');
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') key.append(c);
+        }
+        return key.toString();
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    State stateOf(String key) {
+        return states.get(key);
+    }
+
+    boolean isCompleted(String key) {
+        State state = states.get(key);
+        return state != null && state.isCompleted();
+    }
+
+    // Drops keys past the retention period from memory, for a process that stays up for days
+    // (the scheduler). The file itself is compacted the next time it is opened.
+    void forgetExpired() {
+        // Keys start with the ISO campaign date, so they sort by day
+        String cutoff = LocalDate.now().minusDays(RETAIN_DAYS).toString();
+        states.keySet().removeIf(key -> key.compareTo(cutoff) < 0);
+        // Today in any time zone started less than two days ago
+        long sentCutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2);
+        recentlySent.removeIf(sent -> sent.millis < sentCutoff);
+    }
+
+    // Messages `instanceId` sent on `day` in `zone`, from the journal and this process
+    int sentOn(LocalDate day, ZoneId zone, String instanceId) {
+        long from = day.atStartOfDay(zone).toInstant().toEpochMilli();
+        long to = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        int count = 0;
+        for (Sent sent : recentlySent) {
+            if (sent.millis >= from && sent.millis < to && sent.instanceId.equals(instanceId)) count++;
+        }
+        return count;
+    }
+
+    // Keys that were QUEUED without an outcome when the journal was opened
+    int getInDoubtAtOpen() {
+        return inDoubtAtOpen;
+    }
+
+    // Never blocks on I/O; returns a sequence number for awaitDurable
+    long record(String key, State state, String messageId) {
+        return record(key, state, messageId, null);
+    }
+
+    // As record, also naming the instance that made the send (for SENT)
+    long record(String key, State state, String messageId, String instanceId) {
+        states.put(key, state);
+        long now = System.currentTimeMillis();
+        if (state == State.SENT && instanceId != null) recentlySent.add(new Sent(now, instanceId));
+        String line = now + "\t" + state + "\t" + key + "\t" + field(messageId) +
+            (instanceId != null ? "\t" + field(instanceId) : "") + "\n";
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            long seq = ++nextSeq;
+            pending.add(new Entry(seq, bytes));
+            return seq;
+        }
+    }
+
+    private static String field(String value) {
+        return value == null || value.isEmpty() ? "-" : value.replaceAll("\\s", "_");
+    }
+
+    // Blocks until the record with this sequence number (and everything before it) is on disk
+    void awaitDurable(long seq) throws IOException, InterruptedException {
+        if (durableSeq >= seq) return;
+        durableLock.lock();
+        try {
+            while (durableSeq < seq) {
+                if (failure != null) throw failure;
+                if (!writer.isAlive()) throw new IOException("Send journal is closed");
+                durable.await(100, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        while (!closed || !pending.isEmpty()) {
+            try {
+                Entry first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                pending.drainTo(batch, 4095);
+
+                for (Entry entry : batch) {
+                    if (buffer.remaining() < entry.line.length) {
+                        writeFully(buffer);
+                        if (buffer.capacity() < entry.line.length) buffer = ByteBuffer.allocate(entry.line.length);
+                    }
+                    buffer.put(entry.line);
+                }
+                writeFully(buffer);
+                if (FSYNC) channel.force(false);
+
+                long last = batch.get(batch.size() - 1).seq;
+                batch.clear();
+                durableLock.lock();
+                try {
+                    durableSeq = last;
+                    durable.signalAll();
+                } finally {
+                    durableLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                // Keep draining until closed
+            } catch (IOException e) {
+                failure = e;
+                durableLock.lock();
+                try {
+                    durable.signalAll();
+                } finally {
+                    durableLock.unlock();
+                }
+                return;
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, channel.size());
+        }
+        buffer.clear();
+    }
+
+    private static FileChannel openChannel(File file) throws IOException {
+        return FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // Loads the latest state per key into `states` and its line into `lastLines` (in the order
+    // the keys were last written), dropping expired keys. Returns the number of complete lines
+    // read. A torn last line (crash mid-write) is cut off so new records start on a clean line.
+    private int replay(FileChannel channel, Map<String, String> lastLines) throws IOException {
+        long size = channel.size();
+        if (size == 0) return 0;
+
+        long validEnd = 0;
+        long offset = 0;
+        int lines = 0;
+        channel.position(0);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+            Channels.newInputStream(channel), StandardCharsets.UTF_8), 64 * 1024);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            offset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (offset > size) break; // last line has no newline
+            validEnd = offset;
+            lines++;
+
+            String[] parts = line.split("\t", -1);
+            if (parts.length < 3) continue;
+            State state;
+            try {
+                state = State.valueOf(parts[1]);
+            } catch (IllegalArgumentException ignored) {
+                continue; // unknown state from a newer version
+            }
+            states.put(parts[2], state);
+            lastLines.remove(parts[2]);
+            lastLines.put(parts[2], line);
+            if (state == State.SENT && parts.length > 4) {
+                try {
+                    recentlySent.add(new Sent(Long.parseLong(parts[0]), parts[4]));
+                } catch (NumberFormatException ignored) {
+                    // Not countable; the key's state still counts
+                }
+            }
+        }
+        if (validEnd < size) channel.truncate(validEnd);
+
+        forgetExpired();
+        lastLines.keySet().retainAll(states.keySet());
+        return lines;
+    }
+
+    // Replaces the journal with just `lines`. The copy is synced before it takes the journal's
+    // place, so a crash leaves either the old file or the complete new one.
+    private static void rewrite(File file, Iterable<String> lines) throws IOException {
+        File compacted = new File(file.getPath() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            for (String line : lines) {
+                byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < bytes.length) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) out.write(buffer);
+                    buffer.clear();
+                    if (buffer.capacity() < bytes.length) buffer = ByteBuffer.allocate(bytes.length);
+                }
+                buffer.put(bytes);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) out.write(buffer);
+            out.force(false);
+        }
+        try {
+            Files.move(compacted.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            compacted.delete();
+            throw e;
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) throw failure;
+    }
+}
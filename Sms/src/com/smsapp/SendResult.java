@@ -0,0 +1,76 @@
+package com.smsapp;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Outcome of one UltraMSG send call: whether it was accepted, the raw response and the
+// message id UltraMSG assigned (null when the response carries none). Failures are split
+// into TRANSIENT (worth retrying: timeouts, 5xx, 429, throttling) and PERMANENT (invalid
+// number, other 4xx, rejected by the API). DEFERRED means nothing was sent because the daily
+// cap is used up or the campaign was stopped; the recipient is left for the next run.
+final class SendResult {
+    enum Outcome { SENT, TRANSIENT, PERMANENT, DEFERRED }
+
+    private static final Pattern MESSAGE_ID = Pattern.compile("\"id\"\\s*:\\s*\"?([^\",}\\s]+)");
+    // UltraMSG answers some throttling and busy conditions with 200 and an error body
+    private static final Pattern TRANSIENT_ERROR = Pattern.compile(
+        "(?i)(rate ?limit|too many|try again|timeout|timed out|busy|temporar)");
+
+    final boolean success;
+    final Outcome outcome;
+    final int status; // HTTP status, 0 when no response was received
+    final String response;
+    final String messageId;
+    final long retryAfterMillis;
+
+    private SendResult(Outcome outcome, int status, String response, String messageId, long retryAfterMillis) {
+        this.success = outcome == Outcome.SENT;
+        this.outcome = outcome;
+        this.status = status;
+        this.response = response;
+        this.messageId = messageId;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    static SendResult sent(String response) {
+        Matcher m = MESSAGE_ID.matcher(response);
+        return new SendResult(Outcome.SENT, 200, response, m.find() ? m.group(1) : null, 0);
+    }
+
+    // A rejection that will fail the same way if retried
+    static SendResult failed(String reason) {
+        return new SendResult(Outcome.PERMANENT, 0, reason, null, 0);
+    }
+
+    // No response at all: connect/read timeout, reset connection, pool exhausted
+    static SendResult transientFailure(String reason) {
+        return new SendResult(Outcome.TRANSIENT, 0, reason, null, 0);
+    }
+
+    // Not attempted; neither retried in this run nor dead-lettered
+    static SendResult deferred(String reason) {
+        return new SendResult(Outcome.DEFERRED, 0, reason, null, 0);
+    }
+
+    static SendResult classify(int status, String body, boolean accepted, long retryAfterMillis) {
+        if (status == 200 && accepted) return sent(body);
+        boolean retryable = status == 429 || status >= 500
+            || (status == 200 && body != null && TRANSIENT_ERROR.matcher(body).find());
+        return new SendResult(retryable ? Outcome.TRANSIENT : Outcome.PERMANENT, status, body, null, retryAfterMillis);
+    }
+
+    boolean isTransient() {
+        return outcome == Outcome.TRANSIENT;
+    }
+
+    boolean isDeferred() {
+        return outcome == Outcome.DEFERRED;
+    }
+
+    // Short reason for logs and the dead-letter file
+    String describe() {
+        String text = response == null ? "" : response.replaceAll("\\s+", " ").trim();
+        if (text.length() > 200) text = text.substring(0, 200) + "...";
+        return status > 0 ? "HTTP " + status + ": " + text : text;
+    }
+}
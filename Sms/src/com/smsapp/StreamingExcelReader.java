@@ -0,0 +1,310 @@
+package com.smsapp;
+
+import java.io.File;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.hssf.eventusermodel.EventWorkbookBuilder.SheetRecordCollectingListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.model.HSSFFormulaParser;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+// Reads the first sheet of an .xlsx (SAX over the sheet XML) or .xls (HSSF record events)
+// one row at a time, so memory stays flat regardless of sheet size. Cell values are
+// rendered the way the old DOM loader's getCellValue did: trimmed strings, dd/MM for
+// date-formatted numbers, whole numbers without decimals and formula text for formulas.
+class StreamingExcelReader {
+    static final int MIN_COLUMNS = 5;
+    private static final int MAX_COLUMNS = 256;
+
+    interface RowHandler {
+        // `cells` holds at least columns A..E ("" when absent) and is reused between rows
+        void row(String[] cells, int physicalCells);
+    }
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM");
+    private String[] cells = new String[MIN_COLUMNS];
+    private int physicalCells;
+
+    static void read(File file, RowHandler handler) throws Exception {
+        StreamingExcelReader reader = new StreamingExcelReader();
+        if (file.getName().toLowerCase().endsWith(".xlsx")) {
+            reader.readXlsx(file, handler);
+        } else {
+            reader.readXls(file, handler);
+        }
+    }
+
+    private void startRow() {
+        Arrays.fill(cells, "");
+        physicalCells = 0;
+    }
+
+    private void cell(int column, String value) {
+        physicalCells++;
+        if (column < 0 || column >= MAX_COLUMNS) return;
+        if (column >= cells.length) {
+            int oldLength = cells.length;
+            cells = Arrays.copyOf(cells, Math.min(MAX_COLUMNS, Math.max(column + 1, oldLength * 2)));
+            Arrays.fill(cells, oldLength, cells.length, "");
+        }
+        cells[column] = value;
+    }
+
+    private String formatNumber(double value, int formatIndex, String formatString) {
+        if (formatString != null && DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+            return dateFormat.format(DateUtil.getJavaDate(value));
+        }
+        // long rather than int so 12-digit phone numbers stored as numbers survive
+        return String.valueOf((long) value);
+    }
+
+    // XLSX
+
+    private void readXlsx(File file, RowHandler handler) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = xssfReader.getStylesTable();
+
+            Iterator<InputStream> sheets = xssfReader.getSheetIterator();
+            if (!sheets.hasNext()) return;
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = newXmlReader();
+                parser.setContentHandler(new SheetHandler(strings, styles, handler));
+                parser.parse(new InputSource(sheet));
+            }
+        }
+    }
+
+    private static XMLReader newXmlReader() throws SAXException {
+        try {
+            return XMLHelper.newXMLReader();
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    private final class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final RowHandler handler;
+        private final StringBuilder text = new StringBuilder(64);
+
+        private boolean collecting;
+        private int column;
+        private String type;
+        private int styleIndex;
+        private String value;
+        private String formula;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, RowHandler handler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attrs) {
+            switch (localName) {
+                case "row":
+                    startRow();
+                    break;
+                case "c":
+                    column = columnIndex(attrs.getValue("r"));
+                    type = attrs.getValue("t");
+                    String s = attrs.getValue("s");
+                    styleIndex = s != null ? Integer.parseInt(s) : -1;
+                    value = null;
+                    formula = null;
+                    break;
+                case "v":
+                case "f":
+                case "t": // inline string text
+                    collecting = true;
+                    text.setLength(0);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collecting) text.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "t":
+                    value = value == null ? text.toString() : value + text;
+                    collecting = false;
+                    break;
+                case "f":
+                    formula = text.toString();
+                    collecting = false;
+                    break;
+                case "c":
+                    cell(column, render());
+                    break;
+                case "row":
+                    handler.row(cells, physicalCells);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private String render() {
+            if (formula != null) return formula;
+            if (value == null) return "";
+            if (type == null || type.equals("n")) {
+                String formatString = null;
+                int formatIndex = 0;
+                if (styleIndex >= 0) {
+                    XSSFCellStyle style = styles.getStyleAt(styleIndex);
+                    formatIndex = style.getDataFormat();
+                    formatString = style.getDataFormatString();
+                }
+                return formatNumber(Double.parseDouble(value), formatIndex, formatString);
+            }
+            switch (type) {
+                case "s":
+                    return strings.getItemAt(Integer.parseInt(value)).getString().trim();
+                case "b":
+                    return String.valueOf("1".equals(value));
+                case "inlineStr":
+                case "str":
+                    return value.trim();
+                default: // "e" - errors read as blank, like the DOM loader
+                    return "";
+            }
+        }
+    }
+
+    private static int columnIndex(String ref) {
+        if (ref == null) return -1;
+        int col = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') break;
+            col = col * 26 + (c - 'A' + 1);
+        }
+        return col - 1;
+    }
+
+    // XLS
+
+    private void readXls(File file, RowHandler handler) throws Exception {
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            XlsListener listener = new XlsListener(handler);
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(listener.workbookBuilder);
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+        }
+    }
+
+    private final class XlsListener implements HSSFListener {
+        private final RowHandler handler;
+        private final FormatTrackingHSSFListener formats;
+        final SheetRecordCollectingListener workbookBuilder;
+
+        private SSTRecord sst;
+        private int sheetIndex = -1;
+        private boolean rowOpen;
+
+        XlsListener(RowHandler handler) {
+            this.handler = handler;
+            this.formats = new FormatTrackingHSSFListener(new MissingRecordAwareHSSFListener(this));
+            this.workbookBuilder = new SheetRecordCollectingListener(formats);
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            if (record instanceof BOFRecord) {
+                if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) sheetIndex++;
+                return;
+            }
+            if (record instanceof SSTRecord) {
+                sst = (SSTRecord) record;
+                return;
+            }
+            if (sheetIndex != 0) return;
+
+            if (record instanceof LastCellOfRowDummyRecord) {
+                if (rowOpen) handler.row(cells, physicalCells);
+                rowOpen = false;
+                return;
+            }
+
+            int column;
+            String value;
+            if (record instanceof LabelSSTRecord) {
+                LabelSSTRecord label = (LabelSSTRecord) record;
+                column = label.getColumn();
+                value = sst == null ? "" : sst.getString(label.getSSTIndex()).getString().trim();
+            } else if (record instanceof LabelRecord) {
+                LabelRecord label = (LabelRecord) record;
+                column = label.getColumn();
+                value = label.getValue().trim();
+            } else if (record instanceof NumberRecord) {
+                NumberRecord number = (NumberRecord) record;
+                column = number.getColumn();
+                value = formatNumber(number.getValue(), formats.getFormatIndex(number), formats.getFormatString(number));
+            } else if (record instanceof FormulaRecord) {
+                FormulaRecord formulaRecord = (FormulaRecord) record;
+                column = formulaRecord.getColumn();
+                value = HSSFFormulaParser.toFormulaString(workbookBuilder.getStubHSSFWorkbook(),
+                    formulaRecord.getParsedExpression());
+            } else if (record instanceof BoolErrRecord) {
+                BoolErrRecord boolErr = (BoolErrRecord) record;
+                column = boolErr.getColumn();
+                value = boolErr.isBoolean() ? String.valueOf(boolErr.getBooleanValue()) : "";
+            } else if (record instanceof BlankRecord) {
+                column = ((BlankRecord) record).getColumn();
+                value = "";
+            } else {
+                return;
+            }
+
+            if (!rowOpen) {
+                startRow();
+                rowOpen = true;
+            }
+            cell(column, value);
+        }
+    }
+}
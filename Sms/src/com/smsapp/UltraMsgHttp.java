@@ -0,0 +1,154 @@
+package com.smsapp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+// Shared keep-alive transport for every UltraMSG call. Connections to api.ultramsg.com are
+// pooled and reused, so the TLS handshake is paid once per connection instead of per message.
+// Tunable with -Dultramsg.http.* system properties.
+final class UltraMsgHttp {
+    static final String API_BASE = System.getProperty("ultramsg.baseUrl", "https://api.ultramsg.com");
+
+    // Virtual-thread sends can keep far more requests in flight, so the pool must not be the cap
+    private static final int MAX_TOTAL = Integer.getInteger("ultramsg.http.maxTotal",
+        ExecutionLanes.useVirtualThreads() ? 2048 : 128);
+    private static final int MAX_PER_ROUTE = Integer.getInteger("ultramsg.http.maxPerRoute",
+        ExecutionLanes.useVirtualThreads() ? 1024 : 64);
+    private static final int CONNECT_TIMEOUT_MS = Integer.getInteger("ultramsg.http.connectTimeoutMs", 10000);
+    private static final int READ_TIMEOUT_MS = Integer.getInteger("ultramsg.http.readTimeoutMs", 30000);
+    private static final int POOL_TIMEOUT_MS = Integer.getInteger("ultramsg.http.poolTimeoutMs", 5000);
+    private static final int IDLE_EVICT_SECONDS = Integer.getInteger("ultramsg.http.idleEvictSeconds", 60);
+
+    private static final PoolingHttpClientConnectionManager POOL = createPool();
+    private static final CloseableHttpClient CLIENT = HttpClients.custom()
+        .setConnectionManager(POOL)
+        .setDefaultRequestConfig(RequestConfig.custom()
+            .setConnectTimeout(CONNECT_TIMEOUT_MS)
+            .setSocketTimeout(READ_TIMEOUT_MS)
+            .setConnectionRequestTimeout(POOL_TIMEOUT_MS)
+            .build())
+        .evictExpiredConnections()
+        .evictIdleConnections(IDLE_EVICT_SECONDS, TimeUnit.SECONDS)
+        .setUserAgent("WhatsAppBulkSender")
+        .build();
+
+    // Status code and body of a completed exchange; retryAfterMillis is 0 unless the server sent Retry-After
+    static final class Response {
+        final int status;
+        final String body;
+        final long retryAfterMillis;
+
+        Response(int status, String body, long retryAfterMillis) {
+            this.status = status;
+            this.body = body;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+    }
+
+    private UltraMsgHttp() {
+    }
+
+    private static PoolingHttpClientConnectionManager createPool() {
+        PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager();
+        pool.setMaxTotal(MAX_TOTAL);
+        pool.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+        pool.setValidateAfterInactivity(2000);
+        return pool;
+    }
+
+    static String instanceUrl(String instanceId, String path) {
+        return API_BASE + "/instance" + instanceId + path;
+    }
+
+    static String get(String url) throws IOException {
+        try (CloseableHttpResponse response = CLIENT.execute(new HttpGet(url))) {
+            return readBody(response.getEntity());
+        }
+    }
+
+    static String postForm(String url, String formData) throws IOException {
+        return postForResponse(url, formEntity(formData)).body;
+    }
+
+    static String post(String url, HttpEntity body) throws IOException {
+        return postForResponse(url, body).body;
+    }
+
+    static HttpEntity formEntity(String formData) {
+        return new StringEntity(formData, ContentType.APPLICATION_FORM_URLENCODED);
+    }
+
+    // Like post, but keeps the status code so callers can tell throttling and outages from rejections
+    static Response postForResponse(String url, HttpEntity body) throws IOException {
+        HttpPost post = new HttpPost(url);
+        post.setEntity(body);
+        try (CloseableHttpResponse response = CLIENT.execute(post)) {
+            return new Response(response.getStatusLine().getStatusCode(), readBody(response.getEntity()),
+                retryAfterMillis(response.getFirstHeader("Retry-After")));
+        }
+    }
+
+    // Returns null when the server does not answer 200
+    static byte[] getBytes(String url) throws IOException {
+        try (CloseableHttpResponse response = CLIENT.execute(new HttpGet(url))) {
+            HttpEntity entity = response.getEntity();
+            if (response.getStatusLine().getStatusCode() != 200 || entity == null) {
+                EntityUtils.consume(entity);
+                return null;
+            }
+            try (InputStream in = entity.getContent()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    entity.getContentLength() > 0 ? (int) entity.getContentLength() : 8192);
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            }
+        }
+    }
+
+    static String getPoolStats() {
+        return POOL.getTotalStats().toString();
+    }
+
+    static void shutdown() {
+        try {
+            CLIENT.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    // Only the delay-seconds form; an HTTP-date Retry-After falls back to normal backoff
+    private static long retryAfterMillis(Header header) {
+        if (header == null) return 0;
+        try {
+            return Math.max(0, Long.parseLong(header.getValue().trim())) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Fully consumes the body so the connection goes back to the pool
+    private static String readBody(HttpEntity entity) throws IOException {
+        if (entity == null) return "";
+        return EntityUtils.toString(entity, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,63 @@
+package com.smsapp;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One UltraMSG instance/token pair with its own rate limit, circuit breaker, health and load.
+class UltraMsgInstance {
+    enum Health { UNKNOWN, AUTHENTICATED, STANDBY, UNREACHABLE }
+
+    final String instanceId;
+    final String token;
+    final RateLimiter limiter;
+    final CircuitBreaker breaker;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private volatile Health health = Health.UNKNOWN;
+
+    UltraMsgInstance(String instanceId, String token) {
+        this.instanceId = instanceId;
+        this.token = token;
+        this.limiter = RateLimiter.forInstance(instanceId);
+        this.breaker = CircuitBreaker.forInstance(instanceId);
+    }
+
+    Health getHealth() {
+        return health;
+    }
+
+    void setHealth(Health health) {
+        this.health = health;
+    }
+
+    // Updates health from an /instance/status response body
+    Health updateHealth(String statusResponse) {
+        if (statusResponse.contains("\"status\":\"authenticated\"")) {
+            health = Health.AUTHENTICATED;
+        } else if (statusResponse.contains("\"status\":\"standby\"")) {
+            health = Health.STANDBY;
+        } else {
+            health = Health.UNREACHABLE;
+        }
+        return health;
+    }
+
+    // Only instances confirmed authenticated, with a closed breaker, receive campaign traffic
+    boolean isInRotation() {
+        return health == Health.AUTHENTICATED && breaker.allowRequest();
+    }
+
+    int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    void enter() {
+        queueDepth.incrementAndGet();
+    }
+
+    void leave() {
+        queueDepth.decrementAndGet();
+    }
+
+    String getLabel() {
+        return "instance" + instanceId;
+    }
+}
@@ -3,6 +3,8 @@ package com.smsapp;
 import javax.swing.*;
 import javax.swing.Timer;
 import javax.swing.border.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
 import java.awt.*;
 import java.awt.Color;
 import java.awt.Font;
@@ -10,25 +12,21 @@ import java.awt.event.*;
 import java.awt.geom.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.DateUtil;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class WhatsAppSender extends JFrame {
     // Colors
@@ -51,30 +49,84 @@ public class WhatsAppSender extends JFrame {
     private static final Font FONT_BUTTON = new Font("Segoe UI", Font.BOLD, 14);
     private static final Font FONT_MONO = new Font("Consolas", Font.PLAIN, 12);
     
+    private static final Logger LOG = LoggerFactory.getLogger(WhatsAppSender.class);
+    // Lines kept in the on-screen log; the full history is in the rolling log file
+    private static final int LOG_VIEW_LINES = Integer.getInteger("log.viewLines", 5000);
+    
     // UI Components
     private JTextField instanceIdField, apiTokenField, csvFileField, imageUrlField;
-    private JTextArea messageArea, logArea;
-    private JLabel apiStatusLabel, statusLabel, statsLabel;
-    private JCheckBox includeImageCheckbox;
+    private JTextArea messageArea, logArea, extraInstancesArea;
+    private JComboBox<InstancePool.Strategy> shardingStrategyBox;
+    private JLabel apiStatusLabel, statusLabel, statsLabel, metricsLabel;
+    private JCheckBox includeImageCheckbox, resumeCheckbox, scheduleCheckbox, watchFileCheckbox;
+    private JTextField scheduleTimeField;
+    private JComboBox<String> scheduleZoneBox;
     private JButton bulkSendButton;
+    private JSpinner concurrencySpinner, rateSpinner, burstSpinner, jitterSpinner, dailyCapSpinner, retrySpinner;
+    private JSpinner scheduleWindowsSpinner, scheduleSpacingSpinner;
     
     // Data
-    private List<Employee> employees = new ArrayList<>();
-    private int totalBirthdays = 0;
-    private boolean bulkSending = false;
-    private AtomicInteger sentCount = new AtomicInteger(0);
+    private final RosterHolder roster = new RosterHolder();
+    private RosterWatcher rosterWatcher;
+    // Token of the campaign in progress, null when idle. Only the EDT sets or clears it.
+    private volatile CancellationToken activeRun;
+    private volatile InstancePool instancePool;
+    private final MediaCache mediaCache = new MediaCache(Long.getLong("media.cache.maxBytes", 64L * 1024 * 1024));
+    private SendJournal sendJournal;
+    private CampaignRunner campaignRunner;
+    private CampaignScheduler campaignScheduler;
+    private MetricsServer metricsServer;
     
-    // Executor
-    private ExecutorService executorService;
+    // Executors: interactive calls and the campaign run in separate lanes (see ExecutionLanes)
+    private final ExecutorService controlLane = ExecutionLanes.newControlLane();
+    private final ExecutorService campaignLane = ExecutionLanes.newCampaignLane();
+    private ScheduledExecutorService healthMonitor;
     
     public WhatsAppSender() {
         initializeUI();
-        executorService = Executors.newFixedThreadPool(3);
+        healthMonitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "instance-health");
+            t.setDaemon(true);
+            return t;
+        });
+        openSendJournal();
+        campaignRunner = new CampaignRunner(new CampaignRunner.Listener() {
+            @Override
+            public void log(String message) {
+                WhatsAppSender.this.log(message);
+            }
+
+            @Override
+            public void healthChanged(InstancePool pool) {
+                SwingUtilities.invokeLater(() -> updateApiStatusLabel(pool));
+            }
+        }, sendJournal, mediaCache, healthMonitor);
+        metricsServer = MetricsServer.start(Integer.getInteger("metrics.port", 9464), this::log);
+    }
+    
+    private void openSendJournal() {
+        File journalFile = new File(System.getProperty("journal.file", "send-journal.log"));
+        try {
+            sendJournal = SendJournal.open(journalFile);
+            if (sendJournal.getInDoubtAtOpen() > 0) {
+                log("Send journal: " + sendJournal.getInDoubtAtOpen() +
+                    " message(s) were in flight when the app last stopped; they will not be resent automatically");
+            }
+        } catch (IOException ex) {
+            log("Send journal unavailable (" + journalFile.getAbsolutePath() + "): " + ex.getMessage() +
+                " - resume after a crash will not be possible");
+        }
     }
     
     private void initializeUI() {
         setTitle("WhatsApp Bulk Birthday Sender - Premium Edition");
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                shutdown();
+            }
+        });
         setSize(1200, 900);
         setLocationRelativeTo(null);
         setIconImage(createAppIcon());
@@ -183,8 +235,40 @@ public class WhatsAppSender extends JFrame {
         apiTokenField.setPreferredSize(new Dimension(120, 35));
         apiCard.add(apiTokenField, gbc);
         
+        // Extra instances for sharding campaigns
+        gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 1; gbc.weightx = 0.3;
+        apiCard.add(createLabel("Extra Instances:"), gbc);
+        
+        gbc.gridx = 1; gbc.gridwidth = 2; gbc.weightx = 0.6;
+        extraInstancesArea = new JTextArea(3, 20);
+        extraInstancesArea.setFont(FONT_MONO);
+        JScrollPane extraInstancesScroll = new JScrollPane(extraInstancesArea);
+        extraInstancesScroll.setBorder(new LineBorder(TEXT_SECONDARY, 1));
+        apiCard.add(extraInstancesScroll, gbc);
+        
+        gbc.gridx = 3; gbc.gridwidth = 1; gbc.weightx = 0.1;
+        JButton helpExtraBtn = createHelpButton();
+        helpExtraBtn.addActionListener(e -> showHelp("Extra Instances",
+            "Optional: one 'instanceId,token' pair per line.\n" +
+            "Bulk sending spreads recipients across all authenticated instances,\n" +
+            "each with its own rate limit."));
+        apiCard.add(helpExtraBtn, gbc);
+        
+        // Sharding strategy
+        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 1; gbc.weightx = 0.3;
+        apiCard.add(createLabel("Distribution:"), gbc);
+        
+        gbc.gridx = 1; gbc.gridwidth = 3; gbc.weightx = 0.7;
+        shardingStrategyBox = new JComboBox<>(InstancePool.Strategy.values());
+        shardingStrategyBox.setFont(FONT_BODY);
+        shardingStrategyBox.addActionListener(e -> {
+            InstancePool pool = instancePool;
+            if (pool != null) pool.setStrategy((InstancePool.Strategy) shardingStrategyBox.getSelectedItem());
+        });
+        apiCard.add(shardingStrategyBox, gbc);
+        
         // API Buttons
-        gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 4; gbc.weightx = 1.0;
+        gbc.gridx = 0; gbc.gridy = 5; gbc.gridwidth = 4; gbc.weightx = 1.0;
         gbc.insets = new Insets(15, 5, 5, 5); // Add space above button group
         JPanel apiButtonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
         apiButtonPanel.setBackground(CARD_COLOR);
@@ -204,7 +288,7 @@ public class WhatsAppSender extends JFrame {
         apiCard.add(apiButtonPanel, gbc);
         
         // API Status
-        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 4; gbc.weightx = 1.0;
+        gbc.gridx = 0; gbc.gridy = 6; gbc.gridwidth = 4; gbc.weightx = 1.0;
         gbc.insets = new Insets(10, 5, 5, 5);
         apiStatusLabel = createStatusLabel("Not checked");
         apiCard.add(apiStatusLabel, gbc);
@@ -243,10 +327,16 @@ public class WhatsAppSender extends JFrame {
         JButton refreshBtn = createTextButton("Refresh Data", ACCENT_COLOR);
         
         downloadTemplateBtn.addActionListener(e -> downloadCSVTemplate());
-        refreshBtn.addActionListener(e -> checkBirthdays());
+        refreshBtn.addActionListener(e -> refreshData());
+        
+        watchFileCheckbox = new JCheckBox("Reload when the file changes");
+        watchFileCheckbox.setFont(FONT_BODY);
+        watchFileCheckbox.setBackground(CARD_COLOR);
+        watchFileCheckbox.addActionListener(e -> updateRosterWatcher());
         
         csvButtonPanel.add(downloadTemplateBtn);
         csvButtonPanel.add(refreshBtn);
+        csvButtonPanel.add(watchFileCheckbox);
         
         csvCard.add(csvButtonPanel, gbc);
         
@@ -312,7 +402,8 @@ public class WhatsAppSender extends JFrame {
         JPanel messagePanel = createCard("Birthday Message Template");
         messagePanel.setLayout(new BorderLayout(10, 10));
         
-        JLabel templateLabel = new JLabel("<html>Use placeholders: <b>{name}</b>, <b>{department}</b>, <b>{companyName}</b></html>");
+        JLabel templateLabel = new JLabel("<html>Use placeholders: <b>{name}</b>, <b>{department}</b>, <b>{companyName}</b> or any data file column. " +
+            "Defaults: <b>{department|Team}</b> &nbsp; Conditionals: <b>{?companyName}</b>...<b>{/companyName}</b></html>");
         templateLabel.setFont(FONT_BODY);
         templateLabel.setForeground(TEXT_SECONDARY);
         
@@ -360,17 +451,84 @@ public class WhatsAppSender extends JFrame {
         
         // Stats and control panel
         JPanel controlPanel = createCard("Bulk Sending Control");
-        controlPanel.setLayout(new GridLayout(3, 1, 10, 10));
+        controlPanel.setLayout(new GridLayout(7, 1, 10, 10));
         
         statusLabel = createStatusLabel("Load a data file to get started");
         statsLabel = createStatusLabel("0 employees • 0 birthdays today");
+        // Live send metrics, refreshed once a second from the Metrics counters
+        metricsLabel = createStatusLabel("");
+        updateMetricsLabel();
+        new Timer(1000, e -> updateMetricsLabel()).start();
+        
+        // Send engine settings: in-flight depth and the instance rate limit are independent
+        JPanel engineSettingsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        engineSettingsPanel.setBackground(CARD_COLOR);
+        // Virtual threads make thousands of blocked sends cheap; platform threads are capped lower
+        concurrencySpinner = createSpinner(new SpinnerNumberModel(4, 1, ExecutionLanes.useVirtualThreads() ? 1000 : 32, 1));
+        rateSpinner = createSpinner(new SpinnerNumberModel(1.0, 0.1, 50.0, 0.1));
+        burstSpinner = createSpinner(new SpinnerNumberModel(1, 1, 100, 1));
+        engineSettingsPanel.add(createLabel("Parallel sends per instance:"));
+        engineSettingsPanel.add(concurrencySpinner);
+        engineSettingsPanel.add(createLabel("Messages/sec:"));
+        engineSettingsPanel.add(rateSpinner);
+        engineSettingsPanel.add(createLabel("Burst:"));
+        engineSettingsPanel.add(burstSpinner);
+        
+        JPanel limitSettingsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        limitSettingsPanel.setBackground(CARD_COLOR);
+        jitterSpinner = createSpinner(new SpinnerNumberModel(0, 0, 60000, 100));
+        dailyCapSpinner = createSpinner(new SpinnerNumberModel(0, 0, 1000000, 100));
+        limitSettingsPanel.add(createLabel("Random jitter (ms):"));
+        limitSettingsPanel.add(jitterSpinner);
+        limitSettingsPanel.add(createLabel("Daily cap (0 = none):"));
+        limitSettingsPanel.add(dailyCapSpinner);
+        retrySpinner = createSpinner(new SpinnerNumberModel(3, 0, 10, 1));
+        limitSettingsPanel.add(createLabel("Retries:"));
+        limitSettingsPanel.add(retrySpinner);
+        resumeCheckbox = new JCheckBox("Skip recipients already sent today", true);
+        resumeCheckbox.setFont(FONT_BODY);
+        resumeCheckbox.setBackground(CARD_COLOR);
+        limitSettingsPanel.add(resumeCheckbox);
+        
+        // Daily schedule: fires the campaign unattended, optionally split into staggered windows
+        JPanel schedulePanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        schedulePanel.setBackground(CARD_COLOR);
+        scheduleCheckbox = new JCheckBox("Send automatically every day at");
+        scheduleCheckbox.setFont(FONT_BODY);
+        scheduleCheckbox.setBackground(CARD_COLOR);
+        scheduleCheckbox.addActionListener(e -> toggleSchedule());
+        scheduleTimeField = createTextField();
+        scheduleTimeField.setText("09:00");
+        scheduleTimeField.setPreferredSize(new Dimension(70, 30));
+        scheduleZoneBox = new JComboBox<>(new TreeSet<>(ZoneId.getAvailableZoneIds()).toArray(new String[0]));
+        scheduleZoneBox.setFont(FONT_BODY);
+        scheduleZoneBox.setSelectedItem(ZoneId.systemDefault().getId());
+        scheduleWindowsSpinner = createSpinner(new SpinnerNumberModel(1, 1, 24, 1));
+        scheduleSpacingSpinner = createSpinner(new SpinnerNumberModel(30, 1, 720, 5));
+        schedulePanel.add(scheduleCheckbox);
+        schedulePanel.add(scheduleTimeField);
+        schedulePanel.add(scheduleZoneBox);
+        schedulePanel.add(createLabel("Windows:"));
+        schedulePanel.add(scheduleWindowsSpinner);
+        schedulePanel.add(createLabel("Minutes apart:"));
+        schedulePanel.add(scheduleSpacingSpinner);
         
         bulkSendButton = createTextButton("START SENDING", SUCCESS_COLOR);
         bulkSendButton.setPreferredSize(new Dimension(200, 50));
-        bulkSendButton.addActionListener(e -> startBulkSending());
+        bulkSendButton.addActionListener(e -> {
+            if (activeRun != null) {
+                stopBulkSending();
+            } else {
+                startBulkSending();
+            }
+        });
         
         controlPanel.add(statusLabel);
         controlPanel.add(statsLabel);
+        controlPanel.add(metricsLabel);
+        controlPanel.add(engineSettingsPanel);
+        controlPanel.add(limitSettingsPanel);
+        controlPanel.add(schedulePanel);
         controlPanel.add(bulkSendButton);
         
         // Log area
@@ -381,6 +539,8 @@ public class WhatsAppSender extends JFrame {
         logArea.setFont(FONT_MONO);
         logArea.setEditable(false);
         logArea.setBackground(new Color(248, 248, 248));
+        // One append per log frame from the AppLog writer thread, not one invokeLater per line
+        AppLog.get().setDisplay(text -> SwingUtilities.invokeLater(() -> appendLog(text)));
         
         JScrollPane logScroll = new JScrollPane(logArea);
         logScroll.setBorder(new LineBorder(TEXT_SECONDARY, 1));
@@ -453,6 +613,12 @@ public class WhatsAppSender extends JFrame {
         return label;
     }
     
+    private JSpinner createSpinner(SpinnerNumberModel model) {
+        JSpinner spinner = new JSpinner(model);
+        spinner.setFont(FONT_BODY);
+        return spinner;
+    }
+    
     private JButton createTextButton(String text, Color color) {
         JButton button = new JButton(text) {
             @Override
@@ -518,74 +684,61 @@ public class WhatsAppSender extends JFrame {
         return image;
     }
     
-    // Employee class
-    class Employee {
-        String name;
-        String phone;
-        String dob; // Format: DD/MM
-        String department;
-        String companyName;
-        
-        Employee(String name, String phone, String dob, String department, String companyName) {
-            this.name = name;
-            this.phone = phone;
-            this.dob = dob;
-            this.department = department;
-            this.companyName = companyName;
-        }
-        
-        boolean isBirthdayToday() {
+    // Core Methods
+    private void log(String message) {
+        LOG.info(message);
+    }
+
+    // EDT: appends one frame of log lines and drops the oldest beyond LOG_VIEW_LINES
+    private void appendLog(String text) {
+        logArea.append(text);
+        Element root = logArea.getDocument().getDefaultRootElement();
+        int excess = root.getElementCount() - 1 - LOG_VIEW_LINES; // last element is the empty line after '\n'
+        if (excess > 0) {
             try {
-                String[] parts = dob.split("/");
-                if (parts.length != 2) return false;
-                
-                int day = Integer.parseInt(parts[0]);
-                int month = Integer.parseInt(parts[1]);
-                
-                Calendar today = Calendar.getInstance();
-                return today.get(Calendar.DAY_OF_MONTH) == day && 
-                       today.get(Calendar.MONTH) + 1 == month;
-            } catch (Exception e) {
-                return false;
+                logArea.getDocument().remove(0, root.getElement(excess - 1).getEndOffset());
+            } catch (BadLocationException ignored) {
             }
         }
-    }
-    
-    // Core Methods
-    private void log(String message) {
-        SwingUtilities.invokeLater(() -> {
-            String timestamp = new SimpleDateFormat("HH:mm:ss").format(new Date());
-            logArea.append("[" + timestamp + "] " + message + "\n");
-            logArea.setCaretPosition(logArea.getDocument().getLength());
-        });
+        logArea.setCaretPosition(logArea.getDocument().getLength());
     }
 
     private void checkInstanceStatus() {
-        executorService.execute(() -> {
+        InstancePool pool;
+        try {
+            pool = InstancePool.parse(instanceIdField.getText().trim(), apiTokenField.getText().trim(),
+                extraInstancesArea.getText());
+        } catch (IllegalArgumentException ex) {
+            showError(ex.getMessage());
+            return;
+        }
+        pool.setStrategy((InstancePool.Strategy) shardingStrategyBox.getSelectedItem());
+        instancePool = pool;
+
+        controlLane.execute(() -> {
             try {
-                String instanceId = instanceIdField.getText().trim();
-                String token = apiTokenField.getText().trim();
-                
                 log("Checking instance status...");
                 
-                String statusUrl = "https://api.ultramsg.com/instance" + instanceId + "/instance/status?token=" + token;
-                String result = sendGetRequest(statusUrl);
-                
-                SwingUtilities.invokeLater(() -> {
-                    if (result.contains("\"status\":\"authenticated\"")) {
-                        apiStatusLabel.setText("Authenticated & Ready");
-                        apiStatusLabel.setForeground(SUCCESS_COLOR);
-                        log("Instance is AUTHENTICATED and ready to send messages!");
-                    } else if (result.contains("\"status\":\"standby\"")) {
-                        apiStatusLabel.setText("Standby - Scan QR Code");
-                        apiStatusLabel.setForeground(WARNING_COLOR);
-                        log("Instance is in STANDBY mode. Need to scan QR code!");
-                    } else {
-                        apiStatusLabel.setText("Check response in log");
-                        apiStatusLabel.setForeground(TEXT_SECONDARY);
-                        log("Status response: " + result);
+                for (UltraMsgInstance instance : pool.getInstances()) {
+                    String result = campaignRunner.refreshInstanceHealth(instance);
+                    if (pool.size() > 1) log(instance.getLabel() + ":");
+                    if (instance.getHealth() == UltraMsgInstance.Health.AUTHENTICATED) {
+                        instance.breaker.reset();
                     }
-                });
+                    
+                    switch (instance.getHealth()) {
+                        case AUTHENTICATED:
+                            log("Instance is AUTHENTICATED and ready to send messages!");
+                            break;
+                        case STANDBY:
+                            log("Instance is in STANDBY mode. Need to scan QR code!");
+                            break;
+                        default:
+                            log("Status response: " + result);
+                    }
+                }
+                
+                SwingUtilities.invokeLater(() -> updateApiStatusLabel(pool));
                 
             } catch (Exception ex) {
                 log("Status check error: " + ex.getMessage());
@@ -593,8 +746,28 @@ public class WhatsAppSender extends JFrame {
         });
     }
 
+    private void updateApiStatusLabel(InstancePool pool) {
+        int healthy = pool.healthyCount();
+        String suffix = pool.size() > 1 ? " (" + healthy + "/" + pool.size() + " instances)" : "";
+        
+        if (healthy > 0) {
+            apiStatusLabel.setText("Authenticated & Ready" + suffix);
+            apiStatusLabel.setForeground(SUCCESS_COLOR);
+        } else if (pool.getInstances().stream().anyMatch(i -> !i.breaker.allowRequest())) {
+            apiStatusLabel.setText("Circuit open - waiting to probe" + suffix);
+            apiStatusLabel.setForeground(WARNING_COLOR);
+        } else if (!pool.getInstances().isEmpty()
+                && pool.getInstances().get(0).getHealth() == UltraMsgInstance.Health.STANDBY) {
+            apiStatusLabel.setText("Standby - Scan QR Code" + suffix);
+            apiStatusLabel.setForeground(WARNING_COLOR);
+        } else {
+            apiStatusLabel.setText("Check response in log" + suffix);
+            apiStatusLabel.setForeground(TEXT_SECONDARY);
+        }
+    }
+
     private void getQRCode() {
-        executorService.execute(() -> {
+        controlLane.execute(() -> {
             try {
                 String instanceId = instanceIdField.getText().trim();
                 String token = apiTokenField.getText().trim();
@@ -602,7 +775,7 @@ public class WhatsAppSender extends JFrame {
                 log("Generating QR code for authentication...");
                 
                 // Try QR code endpoint first
-                String qrUrl = "https://api.ultramsg.com/instance" + instanceId + "/instance/qrCode?token=" + token;
+                String qrUrl = UltraMsgHttp.instanceUrl(instanceId, "/instance/qrCode?token=" + token);
                 String result = sendGetRequest(qrUrl);
                 
                 if (result.contains("base64")) {
@@ -619,7 +792,7 @@ public class WhatsAppSender extends JFrame {
                 }
                 
                 // Fallback: Try regular QR endpoint
-                String fallbackUrl = "https://api.ultramsg.com/instance" + instanceId + "/instance/qr?token=" + token;
+                String fallbackUrl = UltraMsgHttp.instanceUrl(instanceId, "/instance/qr?token=" + token);
                 byte[] imageBytes = downloadImageBytes(fallbackUrl);
                 
                 if (imageBytes != null && imageBytes.length > 0) {
@@ -647,20 +820,26 @@ public class WhatsAppSender extends JFrame {
             
         if (confirm != JOptionPane.YES_OPTION) return;
 
-        executorService.execute(() -> {
+        controlLane.execute(() -> {
             try {
                 String instanceId = instanceIdField.getText().trim();
                 String token = apiTokenField.getText().trim();
                 
                 log("Logging out instance...");
                 
-                String logoutUrl = "https://api.ultramsg.com/instance" + instanceId + "/instance/logout";
+                String logoutUrl = UltraMsgHttp.instanceUrl(instanceId, "/instance/logout");
                 String postData = "token=" + URLEncoder.encode(token, "UTF-8");
                 
                 String result = sendPostRequest(logoutUrl, postData);
                 
                 if (result.contains("\"success\":true") || result.contains("logout")) {
                     log("Instance logged out successfully");
+                    InstancePool pool = instancePool;
+                    if (pool != null) {
+                        for (UltraMsgInstance instance : pool.getInstances()) {
+                            if (instance.instanceId.equals(instanceId)) instance.setHealth(UltraMsgInstance.Health.STANDBY);
+                        }
+                    }
                     SwingUtilities.invokeLater(() -> {
                         apiStatusLabel.setText("Logged Out");
                         apiStatusLabel.setForeground(DANGER_COLOR);
@@ -709,18 +888,17 @@ public class WhatsAppSender extends JFrame {
     }
 
     private void testSendMessage() {
-        if (employees.isEmpty()) {
+        Roster current = roster.get();
+        if (current.employees.isEmpty()) {
             showError("Please load a data file first");
             return;
         }
         
-        Employee testEmployee = employees.get(0);
-        String testMessage = messageArea.getText()
-            .replace("{name}", testEmployee.name)
-            .replace("{department}", testEmployee.department)
-            .replace("{companyName}", testEmployee.companyName);
+        Employee testEmployee = current.employees.get(0);
+        MessageTemplate<Employee> template = campaignRunner.compileTemplate(messageArea.getText(), current.columns);
+        String testMessage = template.render(testEmployee);
         
-        log("Test sending to: " + testEmployee.name);
+        log("Test sending to: " + testEmployee.name());
         log("Test message: " + testMessage.substring(0, Math.min(50, testMessage.length())) + "...");
         
         if (includeImageCheckbox.isSelected() && !imageUrlField.getText().isEmpty()) {
@@ -731,22 +909,24 @@ public class WhatsAppSender extends JFrame {
     }
 
     private void startBulkSending() {
-        if (employees.isEmpty()) {
+        Roster current = roster.get();
+        if (current.employees.isEmpty()) {
             showError("Please load a data file first");
             return;
         }
 
-        List<Employee> birthdayEmployees = new ArrayList<>();
-        for (Employee emp : employees) {
-            if (emp.isBirthdayToday()) birthdayEmployees.add(emp);
-        }
+        LocalDate campaignDate = LocalDate.now();
+        List<Employee> birthdayEmployees = campaignRunner.selectRecipients(current, campaignDate, resumeCheckbox.isSelected());
         
         if (birthdayEmployees.isEmpty()) {
-            showError("No birthdays found for today!");
+            showError(current.isDeadLetter() || current.birthdayIndex.countOn(campaignDate) == 0
+                ? "No birthdays found for today!"
+                : "Everyone with a birthday today has already been messaged.");
             return;
         }
-
-        if (!apiStatusLabel.getText().contains("Authenticated")) {
+        
+        InstancePool pool = instancePool;
+        if (pool == null || pool.healthyCount() == 0) {
             int result = JOptionPane.showConfirmDialog(this,
                 "Instance not authenticated!\n\n" +
                 "You need to scan QR code first to authenticate.\n" +
@@ -759,255 +939,192 @@ public class WhatsAppSender extends JFrame {
             return;
         }
 
+        CampaignSettings settings = readCampaignSettings();
+
+        int concurrency = settings.concurrencyPerInstance * pool.healthyCount();
+        long estimatedSeconds = (long) (birthdayEmployees.size() / (settings.ratePerSecond * pool.healthyCount()));
+
         int confirm = JOptionPane.showConfirmDialog(this,
             "START BULK SENDING\n\n" +
             "Ready to send birthday wishes to " + birthdayEmployees.size() + " employees!\n\n" +
             "Messages will be sent automatically via WhatsApp API.\n" +
             "Include Images: " + (includeImageCheckbox.isSelected() ? "Yes" : "No") + "\n" +
-            "Estimated time: " + (birthdayEmployees.size() * 10) + " seconds",
+            "Instances: " + pool.healthyCount() + " authenticated\n" +
+            "Parallel sends: " + concurrency + "\n" +
+            "Estimated time: at least " + estimatedSeconds + " seconds",
             "Confirm Bulk Sending", JOptionPane.YES_NO_OPTION);
             
         if (confirm != JOptionPane.YES_OPTION) return;
 
-        bulkSending = true;
-        sentCount.set(0);
-        bulkSendButton.setEnabled(false);
-        bulkSendButton.setText("SENDING...");
+        CancellationToken token = new CancellationToken();
+        activeRun = token;
+        bulkSendButton.setText("STOP SENDING");
         
-        log("STARTING BULK SENDING TO " + birthdayEmployees.size() + " EMPLOYEES");
-        if (includeImageCheckbox.isSelected()) {
-            log("Including images with messages");
-        }
-        log("Estimated completion: " + (birthdayEmployees.size() * 5) + " seconds");
-
-        executorService.execute(() -> {
-            for (int i = 0; i < birthdayEmployees.size(); i++) {
-                if (!bulkSending) break;
-                
-                Employee emp = birthdayEmployees.get(i);
-                sendBirthdayMessage(emp, i + 1, birthdayEmployees.size());
-                
-                if (i < birthdayEmployees.size() - 1) {
-                    try {
-                        Thread.sleep(1000); // 10 seconds delay
-                    } catch (InterruptedException e) { break; }
-                }
+        campaignLane.execute(() -> {
+            CampaignRunner.Summary summary = null;
+            try {
+                summary = campaignRunner.run(current, birthdayEmployees, pool, settings, campaignDate, token);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                log("Bulk sending failed: " + ex.getMessage());
             }
             
+            CampaignRunner.Summary result = summary;
             SwingUtilities.invokeLater(() -> {
-                bulkSending = false;
-                bulkSendButton.setEnabled(true);
-                bulkSendButton.setText("START SENDING");
-                log("BULK SENDING COMPLETED!");
-                log("Successfully sent to " + sentCount.get() + " out of " + birthdayEmployees.size() + " employees");
-                updateStats();
+                finishBulkSending();
                 
-                if (sentCount.get() == birthdayEmployees.size()) {
+                if (result != null && result.sent == result.recipients) {
                     JOptionPane.showMessageDialog(this,
                         "Bulk Sending Completed Successfully!\n\n" +
-                        "Sent birthday wishes to all " + sentCount.get() + " employees.",
+                        "Sent birthday wishes to all " + result.sent + " employees.",
                         "Sending Complete", JOptionPane.INFORMATION_MESSAGE);
                 }
             });
         });
     }
 
-private void sendBirthdayMessage(Employee employee, int current, int total) {
-        try {
-            String instanceId = instanceIdField.getText().trim();
-            String token = apiTokenField.getText().trim();
-            String phone = employee.phone;
-            
-            // Format phone number (remove any non-digit characters except +)
-            phone = phone.replaceAll("[^0-9+]", "");
-            
-            String message = messageArea.getText()
-                .replace("{name}", employee.name)
-                .replace("{department}", employee.department)
-                .replace("{companyName}", employee.companyName);
-            
-            log("Sending to " + employee.name + " (" + current + "/" + total + ")...");
-            
-            boolean success = false;
-            
-            if (includeImageCheckbox.isSelected() && !imageUrlField.getText().isEmpty()) {
-                String imagePath = imageUrlField.getText();
-                
-                // Check if it's a URL or local file
-                if (imagePath.startsWith("http://") || imagePath.startsWith("https://")) {
-                    // It's a URL - use directly
-                    success = sendImageWithURL(instanceId, token, phone, message, imagePath);
-                } else {
-                    // It's a local file - use enhanced handling
-                    success = sendImageWithUpload(instanceId, token, phone, message, imagePath);
-                }
-                
-                // If image sending failed, fallback to text only
-                if (!success) {
-                    log("Image send failed, falling back to text message only");
-                    success = sendTextMessage(instanceId, token, phone, message);
-                }
-            } else {
-                // Text only message
-                success = sendTextMessage(instanceId, token, phone, message);
-            }
-            
-            if (success) {
-                sentCount.incrementAndGet();
-            }
-            
-        } catch (Exception ex) {
-            log("Failed to send to " + employee.name + ": " + ex.getMessage());
-        }
+    // Captured on the EDT; workers never touch messageArea or the other Swing fields
+    private CampaignSettings readCampaignSettings() {
+        CampaignSettings settings = new CampaignSettings();
+        settings.messageTemplate = messageArea.getText();
+        settings.imagePath = includeImageCheckbox.isSelected() ? imageUrlField.getText() : "";
+        settings.concurrencyPerInstance = (Integer) concurrencySpinner.getValue();
+        settings.ratePerSecond = (Double) rateSpinner.getValue();
+        settings.burst = (Integer) burstSpinner.getValue();
+        settings.jitterMillis = (Integer) jitterSpinner.getValue();
+        settings.dailyCap = (Integer) dailyCapSpinner.getValue();
+        settings.retries = (Integer) retrySpinner.getValue();
+        settings.resume = resumeCheckbox.isSelected();
+        // The daily cap follows the schedule's time zone, scheduled or not
+        settings.zone = ZoneId.of((String) scheduleZoneBox.getSelectedItem());
+        return settings;
     }
 
-    private boolean sendImageWithURL(String instanceId, String token, String phone, String caption, String imageUrl) {
-        try {
-            log("Using image URL: " + imageUrl);
-            
-            String url = "https://api.ultramsg.com/instance" + instanceId + "/messages/image";
-            String postData = "token=" + URLEncoder.encode(token, "UTF-8") +
-                            "&to=" + URLEncoder.encode(phone, "UTF-8") +
-                            "&caption=" + URLEncoder.encode(caption, "UTF-8") +
-                            "&image=" + URLEncoder.encode(imageUrl, "UTF-8");
-            
-            String result = sendPostRequest(url, postData);
-            
-            if (isSuccessResponse(result)) {
-                log("Image message sent successfully via URL");
-                return true;
-            } else {
-                log("Image URL send failed: " + result);
-                return false;
-            }
-        } catch (Exception ex) {
-            log("Image URL send error: " + ex.getMessage());
-            return false;
-        }
+    private void finishBulkSending() {
+        activeRun = null;
+        bulkSendButton.setEnabled(true);
+        bulkSendButton.setText("START SENDING");
+        updateStats();
     }
 
-    private boolean sendImageWithUpload(String instanceId, String token, String phone, String caption, String imagePath) {
-        try {
-            File imageFile = new File(imagePath);
-            if (!imageFile.exists()) {
-                log("Image file not found: " + imagePath);
-                return false;
-            }
-
-            log("Using local image file: " + imageFile.getName());
-
-            // Read file as Base64
-            byte[] fileContent = Files.readAllBytes(imageFile.toPath());
-            String base64Image = Base64.getEncoder().encodeToString(fileContent);
-
-            // Get MIME type and extension
-            String fileName = imageFile.getName();
-            String extension = fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
-            String mimeType = getMimeType(extension);
-
-            // ✅ Use /messages/image endpoint instead of /messages/document
-            String url = "https://api.ultramsg.com/instance" + instanceId + "/messages/image";
-            String postData = "token=" + URLEncoder.encode(token, "UTF-8") +
-                            "&to=" + URLEncoder.encode(phone, "UTF-8") +
-                            "&caption=" + URLEncoder.encode(caption, "UTF-8") +
-                            "&image=" + URLEncoder.encode("data:" + mimeType + ";base64," + base64Image, "UTF-8");
-
-            String result = sendPostRequest(url, postData);
-
-            if (isSuccessResponse(result)) {
-                log("✅ Image sent successfully as visible image");
-                return true;
-            } else {
-                log("❌ Image send failed: " + result);
-                return false;
+    private void toggleSchedule() {
+        if (campaignScheduler != null) {
+            campaignScheduler.stop();
+            campaignScheduler = null;
+        }
+        boolean enabled = scheduleCheckbox.isSelected();
+        if (enabled) {
+            try {
+                campaignScheduler = new CampaignScheduler(
+                    LocalTime.parse(scheduleTimeField.getText().trim()),
+                    ZoneId.of((String) scheduleZoneBox.getSelectedItem()),
+                    (Integer) scheduleWindowsSpinner.getValue(),
+                    (Integer) scheduleSpacingSpinner.getValue(),
+                    this::runScheduledWindow);
+            } catch (DateTimeException | IllegalArgumentException ex) {
+                scheduleCheckbox.setSelected(false);
+                showError("Invalid schedule: " + ex.getMessage() + "\nUse a 24-hour time such as 09:00");
+                return;
             }
-
-        } catch (Exception ex) {
-            log("⚠️ Image upload error: " + ex.getMessage());
-            return false;
+            campaignScheduler.start();
+            log("Automatic sending enabled: " + campaignScheduler.describe() +
+                " - next run " + campaignScheduler.getNextFireTime().toLocalDateTime().toString().replace('T', ' '));
+        } else {
+            log("Automatic sending disabled");
         }
+        scheduleTimeField.setEnabled(!enabled);
+        scheduleZoneBox.setEnabled(!enabled);
+        scheduleWindowsSpinner.setEnabled(!enabled);
+        scheduleSpacingSpinner.setEnabled(!enabled);
     }
 
+    // Window closed: stop scheduling and dispatching, give in-flight sends a few seconds to
+    // finish and reach the journal, then exit. Runs on the EDT; the wait happens off it.
+    private void shutdown() {
+        CancellationToken run = activeRun;
+        if (run != null) run.cancel("Window closed");
+        if (campaignScheduler != null) campaignScheduler.stop();
+        if (rosterWatcher != null) rosterWatcher.close();
+        controlLane.shutdownNow();
+        campaignLane.shutdown();
+        healthMonitor.shutdownNow();
+        if (metricsServer != null) metricsServer.stop();
+        setVisible(false);
+        dispose();
 
-
-    private boolean sendImageAsDocument(String instanceId, String token, String phone, String caption, File imageFile) {
-        try {
-            byte[] fileContent = Files.readAllBytes(imageFile.toPath());
-            String base64Image = Base64.getEncoder().encodeToString(fileContent);
-            
-            String fileName = imageFile.getName();
-            String extension = fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
-            String mimeType = getMimeType(extension);
-            
-
-            //String url = "https://api.ultramsg.com/instance" + instanceId + "/messages/image";
-            String url="https://api.ultramsg.com/instance" + instanceId + "/messages/image?token=" + URLEncoder.encode(token, "UTF-8");
-            String postData = "token=" + URLEncoder.encode(token, "UTF-8") +
-                            "&to=" + URLEncoder.encode(phone, "UTF-8") +
-                            "&filename=" + URLEncoder.encode("birthday." + extension, "UTF-8") +
-                            "&document=" + URLEncoder.encode("data:" + mimeType + ";base64," + base64Image, "UTF-8") +
-                            "&caption=" + URLEncoder.encode(caption, "UTF-8");
-            
-            String result = sendPostRequest(url, postData);
-            
-            if (isSuccessResponse(result)) {
-                log("Image sent as document successfully");
-                return true;
-            } else {
-                log("Document send failed: " + result);
-                return false;
+        Thread exit = new Thread(() -> {
+            try {
+                if (!campaignLane.awaitTermination(Long.getLong("shutdown.graceMs", 10000), TimeUnit.MILLISECONDS)) {
+                    LOG.warn("Campaign still running at exit - in-flight sends are marked in doubt in the journal");
+                }
+            } catch (InterruptedException ignored) {
             }
-        } catch (Exception ex) {
-            log("Document send error: " + ex.getMessage());
-            return false;
-        }
+            System.exit(0);
+        }, "app-shutdown");
+        exit.start();
     }
 
-    private boolean isSuccessResponse(String result) {
-        if (result == null || result.isEmpty()) {
-            return false;
+    // Runs on the scheduler thread. Uses the settings on screen at fire time, always skips
+    // people the journal shows as sent, and blocks until the window is done so windows never overlap.
+    private void runScheduledWindow(LocalDate campaignDate, int window, int windows) throws Exception {
+        String label = windows > 1 ? "Scheduled window " + (window + 1) + "/" + windows : "Scheduled run";
+        if (roster.get().file == null) {
+            log(label + " skipped: no data file loaded");
+            return;
         }
-        
-        return result.contains("\"sent\":\"true\"") || 
-               result.contains("\"sent\":true") ||
-               result.contains("\"success\":true") ||
-               result.contains("\"success\":\"true\"") ||
-               result.contains("\"message\":\"ok\"");
-    }
+        Roster current = reloadRoster();
 
-    private String getMimeType(String extension) {
-        switch (extension.toLowerCase()) {
-            case "jpg": case "jpeg": return "image/jpeg";
-            case "png": return "image/png";
-            case "gif": return "image/gif";
-            case "bmp": return "image/bmp";
-            case "webp": return "image/webp";
-            default: return "image/jpeg";
+        InstancePool pool = instancePool;
+        if (pool == null) {
+            log(label + " skipped: check the instance status once so the app knows which instances to use");
+            return;
         }
-    }
+        for (UltraMsgInstance instance : pool.getInstances()) {
+            campaignRunner.refreshInstanceHealth(instance);
+        }
+        SwingUtilities.invokeLater(() -> updateApiStatusLabel(pool));
+
+        // Claim the send button on the EDT so a manual run and a scheduled one cannot overlap
+        CampaignSettings[] claimed = new CampaignSettings[1];
+        CancellationToken token = new CancellationToken();
+        SwingUtilities.invokeAndWait(() -> {
+            if (activeRun != null) return;
+            claimed[0] = readCampaignSettings();
+            activeRun = token;
+            bulkSendButton.setText("STOP SENDING");
+        });
+        CampaignSettings settings = claimed[0];
+        if (settings == null) {
+            log(label + " skipped: a campaign is already running");
+            return;
+        }
+        settings.resume = true;
 
-    private boolean sendTextMessage(String instanceId, String token, String phone, String message) {
         try {
-            String url = "https://api.ultramsg.com/instance" + instanceId + "/messages/chat";
-            String postData = "token=" + URLEncoder.encode(token, "UTF-8") +
-                            "&to=" + URLEncoder.encode(phone, "UTF-8") +
-                            "&body=" + URLEncoder.encode(message, "UTF-8");
-            
-            String result = sendPostRequest(url, postData);
-            
-            if (isSuccessResponse(result)) {
-                log("Text message sent successfully");
-                return true;
-            } else {
-                log("Text send failed: " + result);
-                return false;
+            List<Employee> recipients = campaignRunner.selectRecipients(current, campaignDate, true);
+            int remaining = recipients.size();
+            recipients = CampaignScheduler.windowShare(recipients, window, windows);
+            log(label + " for " + campaignDate + ": " + recipients.size() + " of " + remaining + " remaining recipient(s)");
+            if (recipients.isEmpty()) return;
+            if (pool.healthyCount() == 0) {
+                log(label + " skipped: no authenticated instance");
+                return;
             }
-        } catch (Exception ex) {
-            log("Text message error: " + ex.getMessage());
-            return false;
+            campaignRunner.run(current, recipients, pool, settings, campaignDate, token);
+        } finally {
+            SwingUtilities.invokeLater(this::finishBulkSending);
         }
     }
 
+    private void stopBulkSending() {
+        CancellationToken token = activeRun;
+        if (token != null) token.cancel("Stopped by user");
+        bulkSendButton.setEnabled(false);
+        bulkSendButton.setText("STOPPING...");
+        log("Stop requested - waiting for in-flight messages to finish");
+    }
+
     private void browseImageFile() {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
@@ -1022,20 +1139,10 @@ private void sendBirthdayMessage(Employee employee, int current, int total) {
 
     // Enhanced Data File Parsing
     private void parseDataFile(File file) {
-        employees.clear();
-        String fileName = file.getName().toLowerCase();
-        
         try {
-            if (fileName.endsWith(".csv") || fileName.endsWith(".txt")) {
-                parseCSVFile(file);
-            } else if (fileName.endsWith(".xls") || fileName.endsWith(".xlsx")) {
-                parseExcelFile(file);
-            } else {
-                showError("Unsupported file format. Please use CSV, TXT, XLS, or XLSX files.");
-                return;
-            }
-            
+            roster.set(Roster.load(file, this::log));
             checkBirthdays();
+            updateRosterWatcher();
             
         } catch (Exception ex) {
             log("Error reading data file: " + ex.getMessage());
@@ -1043,127 +1150,72 @@ private void sendBirthdayMessage(Employee employee, int current, int total) {
         }
     }
 
-    private void parseCSVFile(File file) {
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean firstLine = true;
-            int count = 0;
-            
-            while ((line = br.readLine()) != null) {
-                if (firstLine) { 
-                    firstLine = false; 
-                    // Check if header contains company name column
-                    if (line.toLowerCase().contains("company")) {
-                        log("Detected company name column in CSV");
-                    }
-                    continue; 
-                }
-                if (line.trim().isEmpty() || line.startsWith("//")) continue;
-                
-                String[] values = line.split(",");
-                if (values.length >= 4) {
-                    String name = values[0].trim();
-                    String number = values[1].trim().replaceAll("[^0-9+]", "");
-                    String dob = values[2].trim();
-                    String dept = values.length > 3 ? values[3].trim() : "";
-                    // Use company name from column 5 if available, otherwise use department as fallback
-                    String companyName = values.length > 4 ? values[4].trim() : dept;
-                    
-                    if (!number.isEmpty() && !dob.isEmpty()) {
-                        employees.add(new Employee(name, number, dob, dept, companyName));
-                        count++;
-                    }
-                }
-            }
-            
-            log("Loaded " + count + " employees from CSV");
-            
-        } catch (Exception ex) {
-            throw new RuntimeException("CSV parsing error: " + ex.getMessage(), ex);
+    // Re-reads the data file only if it changed on disk since it was loaded
+    private void refreshData() {
+        Roster current = roster.get();
+        if (reloadRoster() == current) {
+            checkBirthdays();
         }
     }
 
-    private void parseExcelFile(File file) {
-        try (FileInputStream fis = new FileInputStream(file)) {
-            Workbook workbook;
-            if (file.getName().toLowerCase().endsWith(".xlsx")) {
-                workbook = new XSSFWorkbook(fis);
-            } else {
-                workbook = new HSSFWorkbook(fis);
-            }
-            
-            Sheet sheet = workbook.getSheetAt(0);
-            int count = 0;
-            boolean firstRow = true;
-            
-            for (Row row : sheet) {
-                if (firstRow) {
-                    firstRow = false;
-                    continue; // Skip header row
-                }
-                
-                if (row.getPhysicalNumberOfCells() >= 4) {
-                    String name = getCellValue(row.getCell(0));
-                    String number = getCellValue(row.getCell(1)).replaceAll("[^0-9+]", "");
-                    String dob = getCellValue(row.getCell(2));
-                    String dept = row.getCell(3) != null ? getCellValue(row.getCell(3)) : "";
-                    // Use company name from column 5 if available, otherwise use department as fallback
-                    String companyName = row.getCell(4) != null ? getCellValue(row.getCell(4)) : dept;
-                    
-                    if (!number.isEmpty() && !dob.isEmpty()) {
-                        employees.add(new Employee(name, number, dob, dept, companyName));
-                        count++;
-                    }
-                }
-            }
-            
-            workbook.close();
-            log("Loaded " + count + " employees from Excel file");
-            
-        } catch (Exception ex) {
-            throw new RuntimeException("Excel parsing error: " + ex.getMessage(), ex);
+    // Swaps in a re-read copy of the data file if it changed on disk; appended CSV rows are
+    // parsed incrementally. Called from the EDT, the file watcher and the scheduler. Sends in
+    // progress keep the Roster snapshot they started with.
+    private Roster reloadRoster() {
+        Roster before = roster.get();
+        try {
+            Roster after = roster.reloadIfStale(this::log);
+            if (after != before) SwingUtilities.invokeLater(this::checkBirthdays);
+            return after;
+        } catch (IOException ex) {
+            log("Error reading data file: " + ex.getMessage() + " - using the previously loaded data");
+            return roster.get();
         }
     }
 
-    private String getCellValue(Cell cell) {
-        if (cell == null) return "";
-        
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue().trim();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return new SimpleDateFormat("dd/MM").format(cell.getDateCellValue());
-                } else {
-                    return String.valueOf((int) cell.getNumericCellValue());
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return "";
+    private void updateRosterWatcher() {
+        File file = roster.get().file;
+        boolean wanted = watchFileCheckbox.isSelected() && file != null;
+        if (rosterWatcher != null && (!wanted || !rosterWatcher.getFile().equals(file.getAbsoluteFile()))) {
+            rosterWatcher.close();
+            rosterWatcher = null;
+        }
+        if (!wanted || rosterWatcher != null) return;
+        try {
+            rosterWatcher = new RosterWatcher(file, this::reloadRoster);
+            log("Watching " + file.getName() + " for changes");
+        } catch (IOException ex) {
+            watchFileCheckbox.setSelected(false);
+            log("Cannot watch " + file.getName() + ": " + ex.getMessage());
         }
     }
 
     private void checkBirthdays() {
-        int birthdayCount = 0;
-        for (Employee emp : employees) {
-            if (emp.isBirthdayToday()) birthdayCount++;
-        }
+        LocalDate today = LocalDate.now();
+        BirthdayIndex<Employee> birthdayIndex = roster.get().birthdayIndex;
+        int birthdayCount = birthdayIndex.countOn(today);
         
-        totalBirthdays = birthdayCount;
         log("Found " + birthdayCount + " birthdays today");
+        log("Upcoming in the next 7 days: " + birthdayIndex.nextDays(today.plusDays(1), 7).size());
         statusLabel.setText(birthdayCount + " birthdays found today • Ready to send!");
         updateStats();
     }
 
     private void updateStats() {
         SwingUtilities.invokeLater(() -> {
-            statsLabel.setText(employees.size() + " employees • " + totalBirthdays + " birthdays today");
+            // Both numbers from one snapshot, so they always describe the same file
+            Roster current = roster.get();
+            statsLabel.setText(current.employees.size() + " employees • " +
+                current.birthdayIndex.countOn(LocalDate.now()) + " birthdays today");
         });
     }
 
+    // EDT only (Swing timer)
+    private void updateMetricsLabel() {
+        String[] lines = Metrics.summary().split("\n");
+        metricsLabel.setText("<html><center>" + lines[0] + "<br>" + lines[1] + "</center></html>");
+    }
+
     private void saveMessageTemplate() {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setSelectedFile(new File("birthday_message_template.txt"));
@@ -1215,29 +1267,10 @@ private void sendBirthdayMessage(Employee employee, int current, int total) {
         }
     }
 
-    // Network Utility Methods
+    // Network Utility Methods - all UltraMSG traffic goes through the pooled UltraMsgHttp transport
     private String sendGetRequest(String urlString) {
         try {
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(30000);
-            connection.setReadTimeout(30000);
-            
-            int responseCode = connection.getResponseCode();
-            StringBuilder response = new StringBuilder();
-            
-            try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    response.append(line);
-                }
-            }
-            
-            connection.disconnect();
-            return response.toString();
-            
+            return UltraMsgHttp.get(urlString);
         } catch (Exception ex) {
             return "Error: " + ex.getMessage();
         }
@@ -1245,34 +1278,7 @@ private void sendBirthdayMessage(Employee employee, int current, int total) {
 
     private String sendPostRequest(String urlString, String postData) {
         try {
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setConnectTimeout(30000);
-            connection.setReadTimeout(30000);
-            connection.setDoOutput(true);
-            
-            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-            connection.setRequestProperty("Content-Length", String.valueOf(postData.length()));
-            
-            try (OutputStream os = connection.getOutputStream()) {
-                os.write(postData.getBytes(StandardCharsets.UTF_8));
-            }
-            
-            int responseCode = connection.getResponseCode();
-            StringBuilder response = new StringBuilder();
-            
-            try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    response.append(line);
-                }
-            }
-            
-            connection.disconnect();
-            return response.toString();
-            
+            return UltraMsgHttp.postForm(urlString, postData);
         } catch (Exception ex) {
             return "Error: " + ex.getMessage();
         }
@@ -1280,30 +1286,7 @@ private void sendBirthdayMessage(Employee employee, int current, int total) {
 
     private byte[] downloadImageBytes(String urlString) {
         try {
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(30000);
-            connection.setReadTimeout(30000);
-            
-            if (connection.getResponseCode() == 200) {
-                InputStream inputStream = connection.getInputStream();
-                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                
-                byte[] buffer = new byte[4096];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                }
-                
-                inputStream.close();
-                connection.disconnect();
-                return outputStream.toByteArray();
-            }
-            
-            connection.disconnect();
-            return null;
-            
+            return UltraMsgHttp.getBytes(urlString);
         } catch (Exception ex) {
             log("Image download error: " + ex.getMessage());
             return null;
@@ -1397,10 +1380,17 @@ private void sendBirthdayMessage(Employee employee, int current, int total) {
     }
 
     public static void main(String[] args) {
+        // Launcher handles --headless for the jar; this covers starting this class directly
+        if (args.length > 0 && "--headless".equals(args[0])) {
+            System.setProperty("java.awt.headless", "true");
+            HeadlessCampaign.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         try {
             UIManager.setLookAndFeel(UIManager.getLookAndFeel());
         } catch (Exception e) {
-            e.printStackTrace();
+            LOG.warn("Could not set the look and feel", e);
         }
 
         SwingUtilities.invokeLater(() -> {
@@ -1412,7 +1402,8 @@ private void sendBirthdayMessage(Employee employee, int current, int total) {
             app.log("CADDAM Software Solution");
             app.log("Features: Text + Image messages, Multiple file formats support");
             app.log("Supported formats: CSV, TXT, XLS, XLSX");
-            app.log("Placeholders: {name}, {department}, {companyName}");
+            app.log("Placeholders: {name}, {department}, {companyName} or any data file column");
+            app.log("Template syntax: {field|default}, {?field}...{/field}, {^field}...{/field}");
         });
     }
 }
@@ -0,0 +1,110 @@
+package com.smsapp;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+
+// Unit tests for the classes under src/. The project is built with plain javac (no Maven, no
+// JUnit on the classpath), so this is a minimal runner: every `static void test*()` method of
+// the classes listed below is one case, and a case fails by throwing.
+//
+// Usage: java -cp "<classes>;<test classes>;libs/*" com.smsapp.AllTests [class names...]
+// Exits 1 if any case failed.
+public final class AllTests {
+    private static final Class<?>[] SUITES = {
+        BirthdayIndexTest.class,
+        CampaignSchedulerTest.class,
+        CircuitBreakerTest.class,
+        CsvParserTest.class,
+        EncodedMediaTest.class,
+        LongHashSetTest.class,
+        MessageTemplateTest.class,
+        PhoneNumbersTest.class,
+        RateLimiterTest.class,
+        RetryPolicyTest.class,
+        RosterColumnsTest.class,
+        RosterSnapshotTest.class,
+        SendEngineTest.class,
+        SendJournalTest.class,
+    };
+
+    private AllTests() {
+    }
+
+    public static void main(String[] args) {
+        int passed = 0;
+        int failed = 0;
+        for (Class<?> suite : SUITES) {
+            if (args.length > 0 && !Arrays.asList(args).contains(suite.getSimpleName())) continue;
+            Method[] methods = suite.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (!method.getName().startsWith("test") || !Modifier.isStatic(method.getModifiers())
+                    || method.getParameterCount() != 0) {
+                    continue;
+                }
+                String name = suite.getSimpleName() + "." + method.getName();
+                try {
+                    method.setAccessible(true);
+                    method.invoke(null);
+                    passed++;
+                } catch (InvocationTargetException ex) {
+                    failed++;
+                    System.out.println("FAIL " + name + ": " + ex.getCause());
+                    ex.getCause().printStackTrace(System.out);
+                } catch (ReflectiveOperationException ex) {
+                    failed++;
+                    System.out.println("FAIL " + name + ": " + ex);
+                }
+            }
+        }
+        System.out.println(passed + " passed, " + failed + " failed");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    // Assertions shared by the suites
+
+    static void assertEquals(Object expected, Object actual) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError("expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    static void assertEquals(long expected, long actual) {
+        if (expected != actual) throw new AssertionError("expected <" + expected + "> but was <" + actual + ">");
+    }
+
+    static void assertArrayEquals(Object[] expected, Object[] actual) {
+        if (!Arrays.deepEquals(expected, actual)) {
+            throw new AssertionError("expected " + Arrays.deepToString(expected) + " but was "
+                + Arrays.deepToString(actual));
+        }
+    }
+
+    static void assertArrayEquals(byte[] expected, byte[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            throw new AssertionError("byte arrays differ (" + expected.length + " vs " + actual.length + " bytes)");
+        }
+    }
+
+    static void assertTrue(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+
+    interface Action {
+        void run() throws Exception;
+    }
+
+    static <T extends Throwable> T assertThrows(Class<T> expected, Action action) {
+        try {
+            action.run();
+        } catch (Throwable ex) {
+            if (expected.isInstance(ex)) return expected.cast(ex);
+            throw new AssertionError("expected " + expected.getSimpleName() + " but got " + ex, ex);
+        }
+        throw new AssertionError("expected " + expected.getSimpleName() + " to be thrown");
+    }
+}
@@ -0,0 +1,73 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+final class BirthdayIndexTest {
+    private static final List<String> DOBS = Arrays.asList("29/02", "28/02", "01/03", "1/3", "15/08", "31/12", "bad");
+
+    private BirthdayIndexTest() {
+    }
+
+    static void testParseKey() {
+        assertEquals(1, BirthdayIndex.parseKey("01/01"));
+        assertEquals(1, BirthdayIndex.parseKey("1/1"));
+        assertEquals(60, BirthdayIndex.parseKey("29/02"));
+        assertEquals(61, BirthdayIndex.parseKey("01/03"));
+        assertEquals(366, BirthdayIndex.parseKey("31/12"));
+        assertEquals(BirthdayIndex.keyOf(LocalDate.of(2024, 2, 29)), BirthdayIndex.parseKey("29/02"));
+        assertEquals(BirthdayIndex.keyOf(LocalDate.of(2023, 3, 1)), BirthdayIndex.parseKey("01/03"));
+    }
+
+    static void testParseKeyRejectsInvalidDates() {
+        for (String dob : new String[] {null, "", "30/02", "31/04", "00/01", "01/13", "1/", "/1", "01/02/1990",
+            "001/02", "a1/02", "01-02"}) {
+            assertEquals(BirthdayIndex.NO_KEY, BirthdayIndex.parseKey(dob));
+        }
+    }
+
+    static void testLeapDayOnFebruary28InNonLeapYears() {
+        BirthdayIndex<String> index = index(BirthdayIndex.LeapDayPolicy.FEB_28);
+        assertEquals(Arrays.asList("28/02", "29/02"), index.on(LocalDate.of(2023, 2, 28)));
+        assertEquals(Arrays.asList("01/03", "1/3"), index.on(LocalDate.of(2023, 3, 1)));
+        assertEquals(2, index.countOn(LocalDate.of(2023, 2, 28)));
+    }
+
+    static void testLeapDayOnMarch1InNonLeapYears() {
+        BirthdayIndex<String> index = index(BirthdayIndex.LeapDayPolicy.MAR_01);
+        assertEquals(Arrays.asList("28/02"), index.on(LocalDate.of(2023, 2, 28)));
+        assertEquals(Arrays.asList("01/03", "1/3", "29/02"), index.on(LocalDate.of(2023, 3, 1)));
+        assertEquals(3, index.countOn(LocalDate.of(2023, 3, 1)));
+    }
+
+    // In a leap year 29/02 has its own day whatever the policy
+    static void testLeapDayOnItsOwnDayInLeapYears() {
+        for (BirthdayIndex.LeapDayPolicy policy : BirthdayIndex.LeapDayPolicy.values()) {
+            BirthdayIndex<String> index = index(policy);
+            assertEquals(Arrays.asList("28/02"), index.on(LocalDate.of(2024, 2, 28)));
+            assertEquals(Arrays.asList("29/02"), index.on(LocalDate.of(2024, 2, 29)));
+            assertEquals(Arrays.asList("01/03", "1/3"), index.on(LocalDate.of(2024, 3, 1)));
+        }
+    }
+
+    // A range over the end of February in a non-leap year lists the leap-day birthday once
+    static void testRangesCountLeapDayOnce() {
+        BirthdayIndex<String> index = index(BirthdayIndex.LeapDayPolicy.FEB_28);
+        assertEquals(Arrays.asList("28/02", "29/02", "01/03", "1/3"),
+            index.between(LocalDate.of(2023, 2, 27), LocalDate.of(2023, 3, 2)));
+        assertEquals(Arrays.asList("15/08"), index.nextDays(LocalDate.of(2023, 8, 15), 1));
+        assertEquals(0, index.nextDays(LocalDate.of(2023, 8, 15), 0).size());
+        assertEquals(Arrays.asList("31/12"), index.between(LocalDate.of(2023, 12, 31), LocalDate.of(2024, 1, 1)));
+    }
+
+    static void testUnparseableRowsAreNotIndexed() {
+        assertEquals(DOBS.size() - 1, index(BirthdayIndex.LeapDayPolicy.FEB_28).size());
+    }
+
+    private static BirthdayIndex<String> index(BirthdayIndex.LeapDayPolicy policy) {
+        return BirthdayIndex.build(DOBS, i -> BirthdayIndex.parseKey(DOBS.get(i)), policy);
+    }
+}
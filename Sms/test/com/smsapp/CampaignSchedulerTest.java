@@ -0,0 +1,93 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertEquals;
+import static com.smsapp.AllTests.assertThrows;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+final class CampaignSchedulerTest {
+    private static final ZoneId KOLKATA = ZoneId.of("Asia/Kolkata");
+
+    private CampaignSchedulerTest() {
+    }
+
+    // The next slot is strictly after now: a slot that is due right now has already been taken
+    static void testSkipToNextDailySlot() {
+        CampaignScheduler scheduler = scheduler("09:00", KOLKATA, 1, 0);
+        assertEquals(at("2026-10-18T09:00", KOLKATA), next(scheduler, "2026-10-18T08:59"));
+        assertEquals(at("2026-10-19T09:00", KOLKATA), next(scheduler, "2026-10-18T09:00"));
+        assertEquals(at("2026-10-19T09:00", KOLKATA), next(scheduler, "2026-10-18T22:00"));
+    }
+
+    static void testSkipToLaterWindowOfTheSameDay() {
+        CampaignScheduler scheduler = scheduler("09:00", KOLKATA, 3, 30);
+        assertEquals(at("2026-10-18T09:30", KOLKATA), next(scheduler, "2026-10-18T09:10"));
+        assertEquals(at("2026-10-18T10:00", KOLKATA), next(scheduler, "2026-10-18T09:30"));
+        assertEquals(at("2026-10-19T09:00", KOLKATA), next(scheduler, "2026-10-18T10:05"));
+    }
+
+    // Windows that run past midnight still belong to the day that started them
+    static void testSkipToWindowPastMidnight() {
+        CampaignScheduler scheduler = scheduler("23:30", KOLKATA, 3, 30);
+        assertEquals(at("2026-10-19T00:30", KOLKATA), next(scheduler, "2026-10-19T00:10"));
+        assertEquals(at("2026-10-19T23:30", KOLKATA), next(scheduler, "2026-10-19T00:30"));
+    }
+
+    // 02:30 does not exist on the day clocks spring forward; the slot moves to 03:30
+    static void testSkipToAcrossDstGap() {
+        ZoneId newYork = ZoneId.of("America/New_York");
+        CampaignScheduler scheduler = scheduler("02:30", newYork, 1, 0);
+        ZonedDateTime slot = next(scheduler, "2026-03-08T01:00", newYork);
+        assertEquals(LocalDateTime.parse("2026-03-08T03:30"), slot.toLocalDateTime());
+        assertEquals(at("2026-03-09T02:30", newYork), next(scheduler, "2026-03-08T04:00", newYork));
+    }
+
+    // Each window sends an even share of who is still unsent; the last takes everything left
+    static void testWindowShare() {
+        List<Integer> remaining = new ArrayList<>();
+        for (int i = 0; i < 10; i++) remaining.add(i);
+        List<Integer> first = CampaignScheduler.windowShare(remaining, 0, 3);
+        assertEquals(Arrays.asList(0, 1, 2, 3), first);
+        remaining = new ArrayList<>(remaining.subList(first.size(), remaining.size()));
+        List<Integer> second = CampaignScheduler.windowShare(remaining, 1, 3);
+        assertEquals(Arrays.asList(4, 5, 6), second);
+
+        // The second window was cut short: the last one picks up its leftovers too
+        remaining = new ArrayList<>(remaining.subList(1, remaining.size()));
+        assertEquals(Arrays.asList(5, 6, 7, 8, 9), CampaignScheduler.windowShare(remaining, 2, 3));
+        assertEquals(Collections.emptyList(), CampaignScheduler.windowShare(Collections.emptyList(), 0, 3));
+        assertEquals(Arrays.asList(1, 2), CampaignScheduler.windowShare(Arrays.asList(1, 2), 0, 1));
+    }
+
+    static void testRejectsWindowsThatDoNotFit() {
+        assertThrows(IllegalArgumentException.class, () -> scheduler("09:00", KOLKATA, 0, 30));
+        assertThrows(IllegalArgumentException.class, () -> scheduler("09:00", KOLKATA, 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> scheduler("09:00", KOLKATA, 49, 30));
+        assertEquals("daily at 09:00 Asia/Kolkata in 48 windows 30 min apart",
+            scheduler("09:00", KOLKATA, 48, 30).describe());
+    }
+
+    private static CampaignScheduler scheduler(String sendAt, ZoneId zone, int windows, long windowMinutes) {
+        return new CampaignScheduler(LocalTime.parse(sendAt), zone, windows, windowMinutes, (date, window, count) -> { });
+    }
+
+    private static ZonedDateTime next(CampaignScheduler scheduler, String now) {
+        return next(scheduler, now, KOLKATA);
+    }
+
+    private static ZonedDateTime next(CampaignScheduler scheduler, String now, ZoneId zone) {
+        scheduler.skipTo(at(now, zone));
+        return scheduler.getNextFireTime();
+    }
+
+    private static ZonedDateTime at(String localDateTime, ZoneId zone) {
+        return LocalDateTime.parse(localDateTime).atZone(zone);
+    }
+}
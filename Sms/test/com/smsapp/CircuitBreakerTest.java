@@ -0,0 +1,74 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertEquals;
+import static com.smsapp.AllTests.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+final class CircuitBreakerTest {
+    private CircuitBreakerTest() {
+    }
+
+    // Trips once at least half of the calls failed, but not before the minimum number of calls
+    static void testTripsOnFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker(1000, 8000, () -> 0);
+        for (int i = 0; i < 4; i++) assertTrue(!breaker.record(false, 50), "success " + i);
+        for (int i = 0; i < 3; i++) assertTrue(!breaker.record(true, 50), "3 of 7 failed");
+        assertTrue(breaker.record(true, 50), "4 of 8 failed");
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals("4 of the last 8 calls failed", breaker.getTripReason());
+        assertTrue(!breaker.allowRequest(), "open breaker lets nothing through");
+        assertTrue(!breaker.record(true, 50), "late results do not trip it again");
+    }
+
+    static void testTripsOnSlowCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(1000, 8000, () -> 0);
+        boolean tripped = false;
+        for (int i = 0; i < 8; i++) tripped = breaker.record(false, 60_000);
+        assertTrue(tripped, "8 slow calls");
+        assertTrue(breaker.getTripReason().contains("took over"), breaker.getTripReason());
+    }
+
+    // One probe once the open period is over; a healthy probe closes the breaker
+    static void testOpenHalfOpenClosed() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = tripped(new CircuitBreaker(1000, 8000, now::get));
+        assertTrue(!breaker.tryStartProbe(), "still open");
+        now.set(999);
+        assertTrue(!breaker.tryStartProbe(), "1 ms left");
+        now.set(1000);
+        assertTrue(breaker.tryStartProbe(), "open period over");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(!breaker.tryStartProbe(), "only one probe at a time");
+        assertTrue(!breaker.allowRequest(), "sends wait for the probe");
+
+        breaker.probeResult(true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest(), "closed again");
+        assertEquals("", breaker.getTripReason());
+    }
+
+    // Each failed probe re-opens for twice as long, up to the maximum; closing starts over
+    static void testOpenPeriodDoublesUpToMax() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = tripped(new CircuitBreaker(1000, 5000, now::get));
+        long[] expected = {1000, 2000, 4000, 5000, 5000};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], breaker.getOpenMillis());
+            now.addAndGet(breaker.getOpenMillis());
+            assertTrue(breaker.tryStartProbe(), "probe " + i);
+            if (i < expected.length - 1) breaker.probeResult(false);
+        }
+        assertEquals("status probe failed", breaker.getTripReason());
+
+        breaker.probeResult(true);
+        tripped(breaker);
+        assertEquals(1000, breaker.getOpenMillis());
+    }
+
+    private static CircuitBreaker tripped(CircuitBreaker breaker) {
+        for (int i = 0; i < 8; i++) breaker.record(true, 50);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
@@ -0,0 +1,131 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertArrayEquals;
+import static com.smsapp.AllTests.assertEquals;
+import static com.smsapp.AllTests.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+final class CsvParserTest {
+    private static final CsvParser.RowMapper<String[]> COPY = (fields, count) -> Arrays.copyOf(fields, count);
+
+    private CsvParserTest() {
+    }
+
+    static void testQuotedFields() throws IOException {
+        List<String[]> rows = parse("Name,Note\n"
+            + "\"Doe, Jane\",\"said \"\"hi\"\"\"\n"
+            + "\"\",plain\n");
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[] {"Doe, Jane", "said \"hi\""}, rows.get(0));
+        assertArrayEquals(new String[] {"", "plain"}, rows.get(1));
+    }
+
+    static void testEmbeddedNewlinesAndCrlf() throws IOException {
+        List<String[]> rows = parse("Name,Address\r\n"
+            + "Asha,\"12 Main St\r\nPune\"\r\n"
+            + "Ravi,\"line one\nline two\"\r\n");
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[] {"Asha", "12 Main St\r\nPune"}, rows.get(0));
+        assertArrayEquals(new String[] {"Ravi", "line one\nline two"}, rows.get(1));
+    }
+
+    static void testHeaderBomCommentsAndDelimiterDetection() throws IOException {
+        List<String[]> header = new ArrayList<>();
+        File file = write("\uFEFFName;Phone;DOB\n// sample row\nAsha;919876543210;01/02\nRavi;;\n");
+        try {
+            List<String[]> rows = CsvParser.parseFile(file, (char) 0,
+                (fields, count) -> header.add(Arrays.copyOf(fields, count)), COPY);
+            assertArrayEquals(new String[] {"Name", "Phone", "DOB"}, header.get(0));
+            assertEquals(2, rows.size());
+            assertArrayEquals(new String[] {"Asha", "919876543210", "01/02"}, rows.get(0));
+            assertArrayEquals(new String[] {"Ravi", "", ""}, rows.get(1));
+        } finally {
+            file.delete();
+        }
+    }
+
+    static void testLastRecordWithoutNewlineAndUtf8() throws IOException {
+        List<String[]> rows = parse("Name,City\nZoë,Düsseldorf\nअमित,मुंबई");
+        assertArrayEquals(new String[] {"Zoë", "Düsseldorf"}, rows.get(0));
+        assertArrayEquals(new String[] {"अमित", "मुंबई"}, rows.get(1));
+    }
+
+    static void testEmptyFile() throws IOException {
+        assertEquals(0, parse("").size());
+    }
+
+    // Rows appended after a full parse are read on their own, header delimiter included
+    static void testParseRangeReadsOnlyAppendedRows() throws IOException {
+        String head = "Name|Phone\nAsha|1\n";
+        File file = write(head + "Ravi|\"2\n3\"\nMeera|4\n");
+        try {
+            long from = head.getBytes(StandardCharsets.UTF_8).length;
+            List<String[]> rows = CsvParser.parseRange(file, (char) 0, from, file.length(), COPY);
+            assertEquals(2, rows.size());
+            assertArrayEquals(new String[] {"Ravi", "2\n3"}, rows.get(0));
+            assertArrayEquals(new String[] {"Meera", "4"}, rows.get(1));
+            assertEquals(0, CsvParser.parseRange(file, (char) 0, file.length(), file.length(), COPY).size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    // Chunk boundaries fall on record starts, never on a newline inside quotes
+    static void testRecordBoundariesSkipQuotedNewlines() {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            csv.append(i).append(",\"multi\nline ").append(i).append("\"\n");
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer data = ByteBuffer.wrap(bytes);
+        int[] bounds = CsvParser.recordBoundaries(data, 0, bytes.length, 8);
+        assertTrue(bounds.length > 2, "expected the data to be split, got " + Arrays.toString(bounds));
+        assertEquals(0, bounds[0]);
+        assertEquals(bytes.length, bounds[bounds.length - 1]);
+        for (int i = 1; i < bounds.length - 1; i++) {
+            assertTrue(bounds[i] > bounds[i - 1], "bounds not increasing: " + Arrays.toString(bounds));
+            assertTrue(Character.isDigit(bytes[bounds[i]]), "chunk " + i + " starts mid-record at " + bounds[i]);
+        }
+    }
+
+    static void testParallelParseKeepsFileOrder() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            csv.append("row").append(i).append(",\"a, b\nc\",").append(i % 7).append('\n');
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        List<String[]> rows = CsvParser.parseParallel(ByteBuffer.wrap(bytes), 0, bytes.length, (byte) ',', 16, COPY);
+        assertEquals(5000, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertArrayEquals(new String[] {"row" + i, "a, b\nc", String.valueOf(i % 7)}, rows.get(i));
+        }
+    }
+
+    private static List<String[]> parse(String content) throws IOException {
+        File file = write(content);
+        try {
+            return parse(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static List<String[]> parse(File file) throws IOException {
+        return CsvParser.parseFile(file, (char) 0, null, COPY);
+    }
+
+    private static File write(String content) throws IOException {
+        File file = File.createTempFile("csvparser", ".csv");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+        return file;
+    }
+}
@@ -0,0 +1,135 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertArrayEquals;
+import static com.smsapp.AllTests.assertEquals;
+import static com.smsapp.AllTests.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.Random;
+
+final class EncodedMediaTest {
+    // Around the 48 KB encoding chunk and each padding case
+    private static final int[] SIZES = {0, 1, 2, 3, 4, 5, 1000, 3 * 16 * 1024 - 1, 3 * 16 * 1024, 3 * 16 * 1024 + 1,
+        3 * 16 * 1024 + 2, 200_001};
+
+    private EncodedMediaTest() {
+    }
+
+    static void testMatchesUrlEncodedBase64() throws IOException {
+        for (int size : SIZES) {
+            byte[] data = randomBytes(size);
+            File file = write(data);
+            try {
+                byte[] expected = expected("image/jpeg", data);
+                EncodedMedia streamed = EncodedMedia.streamed(file, "image/jpeg");
+                EncodedMedia inMemory = EncodedMedia.inMemory(file, "image/jpeg");
+                assertTrue(!streamed.isInMemory() && inMemory.isInMemory(), "storage");
+                assertArrayEquals(expected, written(streamed));
+                assertArrayEquals(expected, written(inMemory));
+                assertEquals(expected.length, streamed.length());
+                assertEquals(expected.length, inMemory.length());
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    // openStream yields exactly what writeTo writes, with single-byte and bulk reads
+    static void testOpenStreamMatchesWriteTo() throws IOException {
+        for (int size : SIZES) {
+            byte[] data = randomBytes(size);
+            File file = write(data);
+            try {
+                for (EncodedMedia media : new EncodedMedia[] {EncodedMedia.streamed(file, "image/png"),
+                    EncodedMedia.inMemory(file, "image/png")}) {
+                    byte[] expected = written(media);
+                    assertArrayEquals(expected, readAll(media.openStream(), 4096));
+                    assertArrayEquals(expected, readAll(media.openStream(), 1));
+                }
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    static void testPreprocessedReplacesFileContent() throws IOException {
+        byte[] original = randomBytes(5000);
+        byte[] shrunk = randomBytes(700);
+        File file = write(original);
+        try {
+            EncodedMedia media = EncodedMedia.preprocessed(file,
+                new ImagePreprocessor.Result(shrunk, "image/jpeg", "shrunk"));
+            assertArrayEquals(expected("image/jpeg", shrunk), written(media));
+            assertArrayEquals(written(media), readAll(media.openStream(), 512));
+            assertEquals("shrunk", media.preprocessed);
+            assertEquals("image/jpeg", media.mimeType);
+        } finally {
+            file.delete();
+        }
+    }
+
+    // getContent must serve the body writeTo sends (EntityUtils, retries), with the advertised length
+    static void testFormBodyContentMatchesWriteTo() throws IOException {
+        File file = write(randomBytes(100_000));
+        try {
+            FormBody body = new FormBody()
+                .add("token", "a&b=c d")
+                .add("to", "+919876543210")
+                .add("image", EncodedMedia.streamed(file, "image/jpeg"))
+                .add("caption", "Happy birthday, Zoë!");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            body.writeTo(out);
+            byte[] sent = out.toByteArray();
+            assertEquals(body.getContentLength(), sent.length);
+            assertTrue(new String(sent, 0, 40, StandardCharsets.US_ASCII).startsWith("token=a%26b%3Dc+d&to=%2B91"),
+                "unexpected body start");
+            assertArrayEquals(sent, readAll(body.getContent(), 8192));
+            assertArrayEquals(sent, readAll(body.getContent(), 8192)); // repeatable
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static byte[] expected(String mimeType, byte[] data) throws IOException {
+        String value = "data:" + mimeType + ";base64," + Base64.getEncoder().encodeToString(data);
+        return URLEncoder.encode(value, "UTF-8").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] written(EncodedMedia media) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        media.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream in, int bufferSize) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (bufferSize == 1) {
+                for (int b; (b = stream.read()) >= 0;) out.write(b);
+            } else {
+                byte[] buffer = new byte[bufferSize];
+                for (int n; (n = stream.read(buffer, 0, buffer.length)) >= 0;) out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static File write(byte[] data) throws IOException {
+        File file = File.createTempFile("media", ".bin");
+        Files.write(file.toPath(), data);
+        return file;
+    }
+}
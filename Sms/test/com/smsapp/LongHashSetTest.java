@@ -0,0 +1,49 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertEquals;
+import static com.smsapp.AllTests.assertThrows;
+import static com.smsapp.AllTests.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+final class LongHashSetTest {
+    private LongHashSetTest() {
+    }
+
+    static void testAddReportsDuplicates() {
+        LongHashSet set = new LongHashSet(0);
+        assertTrue(set.add(919876543210L), "first add");
+        assertTrue(!set.add(919876543210L), "duplicate");
+        assertTrue(set.add(-1), "negative values are fine");
+        assertEquals(2, set.size());
+        assertTrue(set.contains(919876543210L) && set.contains(-1), "contains both");
+        assertTrue(!set.contains(919876543211L), "neighbour is absent");
+    }
+
+    static void testZeroIsReserved() {
+        LongHashSet set = new LongHashSet(4);
+        assertThrows(IllegalArgumentException.class, () -> set.add(0));
+        assertTrue(!set.contains(0), "empty slot marker is never contained");
+    }
+
+    // Grows well past its initial capacity; consecutive numbers (a block of company SIMs) and
+    // random ones behave like a HashSet
+    static void testMatchesHashSetWhileGrowing() {
+        LongHashSet set = new LongHashSet(2);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(22);
+        for (int i = 0; i < 50_000; i++) {
+            long value = i % 2 == 0 ? 919800000000L + i / 2 : random.nextLong() | 1;
+            if (i % 7 == 0 && !expected.isEmpty()) value = 919800000000L + random.nextInt(i / 2 + 1);
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long value : expected) assertTrue(set.contains(value), "lost " + value);
+        for (int i = 0; i < 10_000; i++) {
+            long value = 447000000000L + i;
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.function.Function;
+
+final class MessageTemplateTest {
+    // Rows are maps; the known fields are the keys of FIELDS
+    private static final String[] FIELDS = {"name", "company", "department"};
+
+    private MessageTemplateTest() {
+    }
+
+    static void testFieldsAndLiterals() {
+        assertEquals("Happy birthday Asha from Acme!",
+            render("Happy birthday {name} from {company}!", row("Asha", "Acme", "")));
+        assertEquals("no fields", render("no fields", row("Asha", "", "")));
+        assertEquals("", render("", row("Asha", "", "")));
+    }
+
+    static void testDefaults() {
+        assertEquals("Dear colleague,", render("Dear {name|colleague},", row("", "", "")));
+        assertEquals("Dear Asha,", render("Dear {name|colleague},", row("Asha", "", "")));
+        assertEquals("Team: .", render("Team: {department|}.", row("Asha", "", "")));
+    }
+
+    static void testSections() {
+        String text = "Hi {name}{?department} from {department}{/department}{^company}, welcome{/company}!";
+        assertEquals("Hi Asha from Sales!", render(text, row("Asha", "Acme", "Sales")));
+        assertEquals("Hi Asha, welcome!", render(text, row("Asha", "", "")));
+        assertEquals("Hi Asha!", render(text, row("Asha", "Acme", "  ")));
+    }
+
+    static void testNestedAndUnclosedSections() {
+        String nested = "{?name}A{?company}B{/company}C{/name}";
+        assertEquals("ABC", render(nested, row("x", "y", "")));
+        assertEquals("AC", render(nested, row("x", "", "")));
+        assertEquals("", render(nested, row("", "y", "")));
+        assertEquals("Hi Acme", render("Hi {?company}{company}", row("", "Acme", "")));
+    }
+
+    // Unknown fields stay as written so a typo is visible in the test message
+    static void testUnknownFieldsAreKept() {
+        MessageTemplate<Map<String, String>> template = compile("Hi {nmae}, {?team}x{/team} {} {name}");
+        assertEquals("Hi {nmae}, {?team}x{/team} {} Asha", template.render(row("Asha", "", "")));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("nmae", "team")), template.getUnknownFields());
+        assertEquals("Hi {name", render("Hi {name", row("Asha", "", "")));
+    }
+
+    static void testRenderToAppendsToCallerBuffer() {
+        MessageTemplate<Map<String, String>> template = compile("[{name}]");
+        StringBuilder out = new StringBuilder("rows:");
+        template.renderTo(row("Asha", "", ""), out);
+        template.renderTo(row("Ravi", "", ""), out);
+        assertEquals("rows:[Asha][Ravi]", out.toString());
+    }
+
+    private static String render(String text, Map<String, String> row) {
+        return compile(text).render(row);
+    }
+
+    private static MessageTemplate<Map<String, String>> compile(String text) {
+        return MessageTemplate.compile(text, field -> Arrays.asList(FIELDS).contains(field)
+            ? (Function<Map<String, String>, String>) row -> row.get(field) : null);
+    }
+
+    private static Map<String, String> row(String name, String company, String department) {
+        Map<String, String> row = new HashMap<>();
+        row.put("name", name);
+        row.put("company", company);
+        row.put("department", department);
+        return row;
+    }
+}
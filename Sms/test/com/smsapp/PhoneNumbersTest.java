@@ -0,0 +1,62 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertEquals;
+
+final class PhoneNumbersTest {
+    private PhoneNumbersTest() {
+    }
+
+    static void testNationalFormsGetDefaultCountryCode() {
+        assertEquals(919876543210L, PhoneNumbers.normalize("9876543210", 91));
+        assertEquals(919876543210L, PhoneNumbers.normalize("09876543210", 91));
+        assertEquals(919876543210L, PhoneNumbers.normalize("98765-43210", 91));
+        assertEquals(919876543210L, PhoneNumbers.normalize("(98765) 43210", 91));
+    }
+
+    static void testInternationalPrefixes() {
+        assertEquals(919876543210L, PhoneNumbers.normalize("+91 98765-43210", 91));
+        assertEquals(919876543210L, PhoneNumbers.normalize("0091 98765 43210", 91));
+        assertEquals(919876543210L, PhoneNumbers.normalize("(+91) 98765 43210", 91));
+        assertEquals(447911123456L, PhoneNumbers.normalize("+44 7911 123456", 91));
+    }
+
+    // Spreadsheets drop the "+"; the roster template's sample is 919876543210
+    static void testLongNumbersWithoutPlusAreInternational() {
+        assertEquals(919876543210L, PhoneNumbers.normalize("919876543210", 91));
+        assertEquals(447911123456L, PhoneNumbers.normalize("447911123456", 91));
+        assertEquals(14155552671L, PhoneNumbers.normalize("14155552671", 91));
+        assertEquals(14155552671L, PhoneNumbers.normalize("1 (415) 555-2671", 91));
+    }
+
+    static void testTrunkMarkerAfterCountryCodeIsDropped() {
+        assertEquals(447911123456L, PhoneNumbers.normalize("+44 (0) 7911 123456", 91));
+        assertEquals(447911123456L, PhoneNumbers.normalize("+44(0)7911123456", 91));
+        assertEquals(447911123456L, PhoneNumbers.normalize("0044 (0)7911 123456", 91));
+    }
+
+    static void testDefaultCountryCodeIsUsedForNationalNumbers() {
+        assertEquals(447911123456L, PhoneNumbers.normalize("07911 123456", 44));
+        assertEquals(17911123456L, PhoneNumbers.normalize("7911123456", 1));
+    }
+
+    static void testRejectsGarbage() {
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.normalize("", 91));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.normalize("  -- ", 91));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.normalize("98765 43210 ext 12", 91));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.normalize("n/a", 91));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.normalize("98765 43210 / 98765 43211", 91));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.normalize("91+9876543210", 91));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.normalize("++919876543210", 91));
+    }
+
+    static void testRejectsWrongLengths() {
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.normalize("1234567890123456", 91)); // 16 digits
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.normalize("+1234567", 91)); // 7 digits
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.normalize("12345", 91)); // 7 with the country code
+    }
+
+    static void testFormat() {
+        assertEquals("+919876543210", PhoneNumbers.format(919876543210L));
+        assertEquals("", PhoneNumbers.format(PhoneNumbers.INVALID));
+    }
+}
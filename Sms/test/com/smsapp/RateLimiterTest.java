@@ -0,0 +1,76 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertEquals;
+import static com.smsapp.AllTests.assertTrue;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class RateLimiterTest {
+    private RateLimiterTest() {
+    }
+
+    static void testDailyCap() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.configure(1000, 10, 0, 3);
+        for (int i = 0; i < 3; i++) assertTrue(limiter.acquire(), "send " + (i + 1) + " is under the cap");
+        assertTrue(limiter.isCapReached(), "cap reached after 3 sends");
+        assertTrue(!limiter.acquire(), "4th send is over the cap");
+        assertEquals(3, limiter.getSentToday());
+    }
+
+    // Sends from before a restart (counted from the journal) use up today's cap, once
+    static void testStartDayCountsEarlierSends() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.configure(1000, 10, 0, 3);
+        limiter.startDay(ZoneId.of("Asia/Kolkata"), 2);
+        assertTrue(limiter.acquire(), "one send left under the cap");
+        assertTrue(limiter.isCapReached(), "2 earlier sends + 1 reach the cap");
+        limiter.startDay(ZoneId.of("Asia/Kolkata"), 2);
+        assertEquals(3, limiter.getSentToday());
+    }
+
+    // Stopping a sender that is waiting for a token must not use up the daily cap
+    static void testInterruptedWaitGivesPermitBack() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter();
+        limiter.configure(0.01, 1, 0, 2); // one token now, the next in 100 s
+        assertTrue(limiter.acquire(), "first send uses the burst token");
+
+        AtomicBoolean granted = new AtomicBoolean(true);
+        Thread waiter = new Thread(() -> granted.set(limiter.acquire()));
+        waiter.start();
+        while (waiter.getState() != Thread.State.TIMED_WAITING) Thread.sleep(5);
+        waiter.interrupt();
+        waiter.join(5000);
+
+        assertTrue(!granted.get(), "interrupted wait is not a permit");
+        assertEquals(1, limiter.getSentToday());
+        assertTrue(!limiter.isCapReached(), "the interrupted send does not count against the cap");
+    }
+
+    // A deferred send is neither retried nor reported as given up (so never dead-lettered)
+    static void testEngineSkipsDeferredResults() throws InterruptedException {
+        List<String> gaveUp = new ArrayList<>();
+        List<String> retried = new ArrayList<>();
+        new SendEngine(2).run(Arrays.asList("a", "b", "c"), (item, attempt, current, total) -> {
+            if (item.equals("a")) return SendResult.sent("{\"sent\":\"true\"}");
+            if (item.equals("b")) return SendResult.deferred("Daily cap reached");
+            return SendResult.failed("Invalid phone number");
+        }, RetryPolicy.withRetries(3), new SendEngine.RetryListener<String>() {
+            @Override
+            public void retrying(String item, int nextAttempt, long delayMillis, SendResult last) {
+                retried.add(item);
+            }
+
+            @Override
+            public void gaveUp(String item, int attempts, SendResult last) {
+                gaveUp.add(item);
+            }
+        }, () -> false);
+        assertEquals(Arrays.asList("c"), gaveUp);
+        assertEquals(0, retried.size());
+    }
+}
@@ -0,0 +1,47 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertEquals;
+import static com.smsapp.AllTests.assertThrows;
+import static com.smsapp.AllTests.assertTrue;
+
+final class RetryPolicyTest {
+    private RetryPolicyTest() {
+    }
+
+    // "Equal jitter": between half and all of base * 2^(attempt-1), capped at maxDelayMillis
+    static void testBackoffDoublesWithJitterUpToTheCap() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000);
+        long[] full = {100, 200, 400, 800, 1000, 1000};
+        for (int attempt = 1; attempt <= full.length; attempt++) {
+            for (int i = 0; i < 200; i++) {
+                long delay = policy.delayMillis(attempt, 0);
+                assertTrue(delay >= full[attempt - 1] / 2 && delay <= full[attempt - 1],
+                    "attempt " + attempt + " waited " + delay + " ms");
+            }
+        }
+        assertTrue(policy.delayMillis(1000, 0) <= 1000, "huge attempt numbers do not overflow");
+    }
+
+    // A server Retry-After is a lower bound, never shortened by the backoff
+    static void testRetryAfterIsALowerBound() {
+        RetryPolicy policy = new RetryPolicy(5, 100, 1000);
+        assertEquals(30_000, policy.delayMillis(1, 30_000));
+        assertEquals(30_000, policy.delayMillis(4, 30_000));
+        long delay = policy.delayMillis(4, 10);
+        assertTrue(delay >= 400 && delay <= 800, "short Retry-After keeps the backoff: " + delay);
+    }
+
+    static void testOnlyTransientFailuresAreRetried() {
+        RetryPolicy policy = RetryPolicy.withRetries(2);
+        assertEquals(3, policy.maxAttempts);
+        SendResult throttled = SendResult.classify(429, "Too Many Requests", false, 5000);
+        assertTrue(policy.shouldRetry(throttled, 1), "429 is retried");
+        assertTrue(policy.shouldRetry(throttled, 2), "second retry");
+        assertTrue(!policy.shouldRetry(throttled, 3), "out of attempts");
+        assertTrue(!policy.shouldRetry(SendResult.classify(400, "Invalid number", false, 0), 1), "400 is final");
+        assertTrue(!policy.shouldRetry(SendResult.deferred("Daily cap reached"), 1), "deferred is not retried");
+        assertTrue(!policy.shouldRetry(null, 1), "nothing to retry");
+        assertTrue(!RetryPolicy.NONE.shouldRetry(SendResult.transientFailure("timeout"), 1), "NONE never retries");
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(0, 1, 1));
+    }
+}
@@ -0,0 +1,97 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertArrayEquals;
+import static com.smsapp.AllTests.assertEquals;
+import static com.smsapp.AllTests.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class RosterColumnsTest {
+    private static final String[] HEADER = {"Name", "WhatsAppNumber", "DOB", "Department", "CompanyName"};
+    private static final String[] DEPARTMENTS = {"Sales", "Finance", "R&D", "Support"};
+
+    private RosterColumnsTest() {
+    }
+
+    // Every field reads back as it was, whichever way its column ended up stored
+    static void testCopyOfKeepsEveryField() {
+        for (int count : new int[] {0, 1, 300, 70_000}) {
+            List<Employee> rows = rows(count);
+            RosterColumns store = RosterColumns.copyOf(rows);
+            assertEquals(count, store.size());
+            assertSameRows(rows, store);
+        }
+    }
+
+    // Repeating values are dictionary-coded (byte codes up to 256 values, char codes beyond);
+    // mostly unique ones, or more than the dictionary holds, go to a UTF-8 arena
+    static void testColumnEncodings() {
+        String small = RosterColumns.copyOf(rows(300)).describe(HEADER);
+        assertEquals("Name=utf8 WhatsAppNumber=utf8 DOB=dict(84) Department=dict(4) CompanyName=dict(2)", small);
+
+        List<Employee> teams = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            teams.add(Employee.of(919800000000L + i, new String[] {"E" + i, "", "01/01", "Team " + i % 500}));
+        }
+        RosterColumns store = RosterColumns.copyOf(teams);
+        assertTrue(store.describe(HEADER).contains("Department=dict(500)"), store.describe(HEADER));
+        assertEquals("Team 499", store.get(1999).department());
+
+        String large = RosterColumns.copyOf(rows(70_000)).describe(HEADER);
+        assertTrue(large.startsWith("Name=utf8 "), large);
+    }
+
+    // Rows copied from another store (an incremental reload) match the originals
+    static void testCopyFromAnotherStore() {
+        List<Employee> rows = rows(1000);
+        RosterColumns first = RosterColumns.copyOf(rows);
+        List<Employee> combined = new ArrayList<>(first);
+        combined.add(Employee.of(447911123456L, new String[] {"Late Joiner", "+447911123456", "01/01"}));
+        RosterColumns second = RosterColumns.copyOf(combined);
+        assertSameRows(combined, second);
+        assertEquals("", second.get(1000).department());
+    }
+
+    static void testCopyColumnsIsAFreshArray() {
+        RosterColumns store = RosterColumns.copyOf(rows(5));
+        String[] columns = store.get(4).copyColumns();
+        assertArrayEquals(new String[] {"Employee 4", "+91 9800000004", "05/05", "Sales", ""}, columns);
+        columns[0] = "changed";
+        assertEquals("Employee 4", store.get(4).name());
+    }
+
+    static void assertSameRows(List<Employee> expected, RosterColumns actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Employee want = expected.get(i);
+            Employee got = actual.get(i);
+            assertEquals(want.phoneNumber(), got.phoneNumber());
+            assertEquals(want.phoneNumber(), actual.phoneNumber(i));
+            assertEquals(want.birthdayKey(), got.birthdayKey());
+            assertEquals(want.birthdayKey(), actual.birthdayKey(i));
+            assertEquals(want.phone(), got.phone());
+            for (int c = 0; c < HEADER.length + 1; c++) assertEquals(want.column(c), got.column(c));
+            assertEquals(got, actual.get(i));
+        }
+    }
+
+    // Names are unique, some with non-ASCII text; every fifth row is short (no company) and
+    // every seventh has a number that could not be read
+    static List<Employee> rows(int count) {
+        List<Employee> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = "Employee " + i + (i % 3 == 0 ? " Zoë Ñúñez 誕生日" : "");
+            boolean invalid = i % 7 == 6;
+            long number = invalid ? PhoneNumbers.INVALID : 919800000000L + i;
+            String phone = invalid ? "not a number" : "+91 98" + String.format("%08d", i);
+            String dob = String.format("%02d/%02d", i % 28 + 1, i % 12 + 1);
+            String department = DEPARTMENTS[i % DEPARTMENTS.length];
+            String[] columns = i % 5 == 4
+                ? new String[] {name, phone, dob, department}
+                : new String[] {name, phone, dob, department, i % 2 == 0 ? "Acme" : ""};
+            rows.add(Employee.of(number, columns));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,152 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertArrayEquals;
+import static com.smsapp.AllTests.assertEquals;
+import static com.smsapp.AllTests.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+final class RosterSnapshotTest {
+    private static final String[] HEADER = {"Name", "WhatsAppNumber", "DOB", "Department", "CompanyName"};
+
+    private RosterSnapshotTest() {
+    }
+
+    static void testRoundTrip() throws IOException {
+        for (int count : new int[] {0, 300, 70_000}) {
+            List<Employee> rows = RosterColumnsTest.rows(count);
+            File source = source("rows " + count);
+            try {
+                write(source, RosterColumns.copyOf(rows), 1234);
+                List<String> log = new ArrayList<>();
+                RosterSnapshot snapshot = read(source, log);
+                assertTrue(snapshot != null, "snapshot not used: " + log);
+                assertArrayEquals(HEADER, snapshot.columns);
+                assertEquals(1234, snapshot.parsedBytes);
+                assertEquals(Roster.checksum(source, source.length()), snapshot.sourceCrc);
+                RosterColumnsTest.assertSameRows(rows, snapshot.rows);
+            } finally {
+                delete(source);
+            }
+        }
+    }
+
+    // Same size and mtime but different content: the checksum catches it
+    static void testChangedSourceIsIgnored() throws IOException {
+        File source = source("Asha,9876543210");
+        try {
+            write(source, RosterColumns.copyOf(RosterColumnsTest.rows(10)), -1);
+            long modified = source.lastModified();
+            Files.write(source.toPath(), "Ravi,9876543210".getBytes(StandardCharsets.UTF_8));
+            source.setLastModified(modified);
+            List<String> log = new ArrayList<>();
+            assertEquals(null, read(source, log));
+            assertTrue(log.toString().contains("changed"), log.toString());
+
+            // Size or mtime mismatches are rejected without a word
+            log.clear();
+            assertEquals(null, RosterSnapshot.read(source, source.length() + 1, modified, log::add));
+            assertEquals(null, RosterSnapshot.read(source, source.length(), modified + 1, log::add));
+            assertEquals(0, log.size());
+        } finally {
+            delete(source);
+        }
+    }
+
+    // A snapshot cut short anywhere, or with a wrong magic or version, is ignored and never throws
+    static void testTruncatedOrForeignSnapshotsAreIgnored() throws IOException {
+        File source = source("truncated");
+        try {
+            write(source, RosterColumns.copyOf(RosterColumnsTest.rows(40)), 7);
+            File file = RosterSnapshot.fileFor(source);
+            byte[] good = Files.readAllBytes(file.toPath());
+            List<String> log = new ArrayList<>();
+            for (int length = 0; length < good.length; length++) {
+                Files.write(file.toPath(), Arrays.copyOf(good, length));
+                assertEquals(null, read(source, log));
+            }
+
+            byte[] bad = good.clone();
+            bad[0] ^= 1;
+            Files.write(file.toPath(), bad);
+            log.clear();
+            assertEquals(null, read(source, log));
+            assertTrue(log.get(0).contains("not a roster snapshot"), log.toString());
+
+            bad = good.clone();
+            bad[7]++;
+            Files.write(file.toPath(), bad);
+            log.clear();
+            assertEquals(null, read(source, log));
+            assertTrue(log.get(0).contains("different version"), log.toString());
+
+            bad = Arrays.copyOf(good, good.length + 1);
+            Files.write(file.toPath(), bad);
+            assertEquals(null, read(source, log));
+
+            Files.write(file.toPath(), good);
+            assertTrue(read(source, log) != null, "intact snapshot is used again");
+        } finally {
+            delete(source);
+        }
+    }
+
+    // Random damage past the header either fails the checks or still decodes to a well-formed
+    // store; it must never throw or allocate from a garbage length
+    static void testCorruptedSnapshotsNeverThrow() throws IOException {
+        File source = source("corrupted");
+        try {
+            write(source, RosterColumns.copyOf(RosterColumnsTest.rows(300)), 7);
+            File file = RosterSnapshot.fileFor(source);
+            byte[] good = Files.readAllBytes(file.toPath());
+            Random random = new Random(24);
+            for (int i = 0; i < 500; i++) {
+                byte[] bad = good.clone();
+                for (int flips = 1 + random.nextInt(4); flips > 0; flips--) {
+                    int at = 40 + random.nextInt(bad.length - 40);
+                    bad[at] = (byte) (i % 2 == 0 ? random.nextInt() : 0xFF);
+                }
+                Files.write(file.toPath(), bad);
+                RosterSnapshot snapshot = read(source, new ArrayList<>());
+                if (snapshot == null) continue;
+                for (int row = 0; row < snapshot.rows.size(); row++) {
+                    for (int c = 0; c < HEADER.length; c++) snapshot.rows.get(row).column(c);
+                }
+            }
+        } finally {
+            delete(source);
+        }
+    }
+
+    private static File source(String content) throws IOException {
+        File dir = Files.createTempDirectory("roster-snapshot").toFile();
+        File source = new File(dir, "employees.csv");
+        Files.write(source.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return source;
+    }
+
+    private static void write(File source, RosterColumns rows, long parsedBytes) throws IOException {
+        RosterSnapshot.write(source, source.length(), source.lastModified(),
+            Roster.checksum(source, source.length()), parsedBytes, HEADER, rows);
+    }
+
+    private static RosterSnapshot read(File source, List<String> log) {
+        return RosterSnapshot.read(source, source.length(), source.lastModified(), log::add);
+    }
+
+    private static void delete(File source) {
+        File dir = source.getParentFile();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) file.delete();
+        }
+        dir.delete();
+    }
+}
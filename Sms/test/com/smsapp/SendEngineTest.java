@@ -0,0 +1,101 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertEquals;
+import static com.smsapp.AllTests.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class SendEngineTest {
+    // Millisecond backoff so retries run straight away
+    private static final RetryPolicy FAST = new RetryPolicy(3, 1, 4);
+
+    private SendEngineTest() {
+    }
+
+    // A transient failure is re-dispatched with the next attempt number until it goes through
+    static void testTransientFailuresAreRetried() throws InterruptedException {
+        Map<String, List<Integer>> attempts = new ConcurrentHashMap<>();
+        Recorder recorder = new Recorder();
+        int dispatched = new SendEngine(4).run(Arrays.asList("a", "b"), (item, attempt, current, total) -> {
+            attempts.computeIfAbsent(item, k -> Collections.synchronizedList(new ArrayList<>())).add(attempt);
+            return item.equals("a") && attempt < 3 ? SendResult.transientFailure("timeout") : SendResult.sent("{}");
+        }, FAST, recorder, () -> false);
+
+        assertEquals(2, dispatched);
+        assertEquals(Arrays.asList(1, 2, 3), attempts.get("a"));
+        assertEquals(Arrays.asList(1), attempts.get("b"));
+        assertEquals(Arrays.asList("a:2", "a:3"), recorder.retried);
+        assertEquals(Collections.emptyList(), recorder.gaveUp);
+    }
+
+    static void testGivesUpWhenRetriesRunOut() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        Recorder recorder = new Recorder();
+        new SendEngine(1).run(Arrays.asList("a"), (item, attempt, current, total) -> {
+            calls.incrementAndGet();
+            return SendResult.classify(503, "Service Unavailable", false, 0);
+        }, FAST, recorder, () -> false);
+
+        assertEquals(3, calls.get());
+        assertEquals(Arrays.asList("a:3"), recorder.gaveUp);
+    }
+
+    static void testPermanentFailuresAreNotRetried() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        new SendEngine(2).run(Arrays.asList("a"), (item, attempt, current, total) ->
+            SendResult.classify(400, "Invalid phone number", false, 0), FAST, recorder, () -> false);
+
+        assertEquals(Collections.emptyList(), recorder.retried);
+        assertEquals(Arrays.asList("a:1"), recorder.gaveUp);
+    }
+
+    // A retry still waiting when the run is stopped is reported as given up, with its last failure
+    static void testStopReportsPendingRetries() throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        List<SendResult> lastResults = Collections.synchronizedList(new ArrayList<>());
+        SendResult timeout = SendResult.transientFailure("timeout");
+        Recorder recorder = new Recorder() {
+            @Override
+            public void retrying(String item, int nextAttempt, long delayMillis, SendResult last) {
+                super.retrying(item, nextAttempt, delayMillis, last);
+                stop.set(true);
+            }
+
+            @Override
+            public void gaveUp(String item, int attempts, SendResult last) {
+                super.gaveUp(item, attempts, last);
+                lastResults.add(last);
+            }
+        };
+        long start = System.nanoTime();
+        new SendEngine(2).run(Arrays.asList("a"), (item, attempt, current, total) -> timeout,
+            new RetryPolicy(3, 60_000, 60_000), recorder, stop::get);
+
+        assertTrue(System.nanoTime() - start < 10_000_000_000L, "stop did not wait out the backoff");
+        assertEquals(Arrays.asList("a:2"), recorder.retried);
+        assertEquals(Arrays.asList("a:1"), recorder.gaveUp);
+        assertTrue(lastResults.get(0) == timeout, "reported with the failure that queued the retry");
+    }
+
+    private static class Recorder implements SendEngine.RetryListener<String> {
+        final List<String> retried = Collections.synchronizedList(new ArrayList<>());
+        final List<String> gaveUp = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void retrying(String item, int nextAttempt, long delayMillis, SendResult last) {
+            retried.add(item + ":" + nextAttempt);
+        }
+
+        @Override
+        public void gaveUp(String item, int attempts, SendResult last) {
+            gaveUp.add(item + ":" + attempts);
+        }
+    }
+}
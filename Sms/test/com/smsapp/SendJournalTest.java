@@ -0,0 +1,143 @@
+package com.smsapp;
+
+import static com.smsapp.AllTests.assertEquals;
+import static com.smsapp.AllTests.assertThrows;
+import static com.smsapp.AllTests.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+final class SendJournalTest {
+    private static final String TODAY = LocalDate.now() + "/";
+
+    private SendJournalTest() {
+    }
+
+    // The last state per key wins; a torn last line is cut off and new records start on a clean line
+    static void testReplayTruncatesTornTail() throws Exception {
+        File file = write("1\tQUEUED\t" + TODAY + "911\t-\n" +
+            "2\tSENT\t" + TODAY + "911\tm1\n" +
+            "3\tQUEUED\t" + TODAY + "912\t-\n" +
+            "4\tSENT\t" + TODAY + "912\tm2"); // crash before the newline
+        try {
+            SendJournal journal = SendJournal.open(file);
+            try {
+                assertEquals(SendJournal.State.SENT, journal.stateOf(TODAY + "911"));
+                assertEquals(SendJournal.State.QUEUED, journal.stateOf(TODAY + "912"));
+                journal.awaitDurable(journal.record(TODAY + "912", SendJournal.State.FAILED, null));
+            } finally {
+                journal.close();
+            }
+            String[] lines = read(file).split("\n", -1);
+            assertEquals("", lines[lines.length - 1]);
+            assertTrue(lines[lines.length - 2].endsWith("\tFAILED\t" + TODAY + "912\t-"), lines[lines.length - 2]);
+            for (String line : lines) assertTrue(!line.contains("m2"), "torn line kept: " + line);
+        } finally {
+            file.delete();
+        }
+    }
+
+    // QUEUED with no outcome means the request may have gone out; lines from newer versions are skipped
+    static void testInDoubtCountedAtOpen() throws Exception {
+        File file = write("1\tQUEUED\t" + TODAY + "911\t-\n" +
+            "2\tQUEUED\t" + TODAY + "912\t-\n" +
+            "3\tDEFERRED\t" + TODAY + "912\t-\n" +
+            "4\tQUEUED\t" + TODAY + "913\t-\n" +
+            "5\tFROM_THE_FUTURE\t" + TODAY + "913\t-\n" +
+            "garbage\n");
+        try {
+            SendJournal journal = SendJournal.open(file);
+            try {
+                assertEquals(2, journal.getInDoubtAtOpen());
+                assertEquals(SendJournal.State.QUEUED, journal.stateOf(TODAY + "913"));
+                assertTrue(!journal.isCompleted(TODAY + "912"), "deferred is sent on resume");
+            } finally {
+                journal.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    static void testAwaitDurableWaitsForTheWrite() throws Exception {
+        File file = write("");
+        try {
+            SendJournal journal = SendJournal.open(file);
+            long seq = 0;
+            for (int i = 0; i < 1000; i++) seq = journal.record(TODAY + i, SendJournal.State.QUEUED, null);
+            journal.awaitDurable(seq);
+            assertEquals(1000, read(file).split("\n").length);
+            journal.close();
+
+            long late = journal.record(TODAY + "1", SendJournal.State.SENT, "m1");
+            assertThrows(IOException.class, () -> journal.awaitDurable(late));
+        } finally {
+            file.delete();
+        }
+    }
+
+    // Opening keeps the last line per key and drops keys of campaign days past the retention period
+    static void testOpenCompacts() throws Exception {
+        String old = LocalDate.now().minusDays(30) + "/";
+        File file = write("1\tSENT\t" + old + "911\tm0\n" +
+            "2\tQUEUED\t" + TODAY + "911\t-\n" +
+            "3\tSENT\t" + TODAY + "911\tm1\tinstance1\n" +
+            "4\tQUEUED\t" + TODAY + "912\t-\n");
+        try {
+            SendJournal.open(file).close();
+            assertEquals("3\tSENT\t" + TODAY + "911\tm1\tinstance1\n4\tQUEUED\t" + TODAY + "912\t-\n", read(file));
+            assertTrue(!new File(file.getPath() + ".tmp").exists(), "temporary copy left behind");
+
+            SendJournal journal = SendJournal.open(file);
+            try {
+                assertEquals(null, journal.stateOf(old + "911"));
+                assertEquals(SendJournal.State.SENT, journal.stateOf(TODAY + "911"));
+                assertEquals(1, journal.getInDoubtAtOpen());
+            } finally {
+                journal.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    // Daily cap seeding: SENT records per instance and day, across a reopen
+    static void testSentOnCountsPerInstance() throws Exception {
+        File file = write("");
+        ZoneId zone = ZoneId.systemDefault();
+        try {
+            SendJournal journal = SendJournal.open(file);
+            journal.record(TODAY + "911", SendJournal.State.SENT, "m1", "instance1");
+            journal.record(TODAY + "912", SendJournal.State.SENT, "m2", "instance1");
+            journal.record(TODAY + "913", SendJournal.State.SENT, "m3", "instance2");
+            journal.awaitDurable(journal.record(TODAY + "914", SendJournal.State.FAILED, null, null));
+            assertEquals(2, journal.sentOn(LocalDate.now(zone), zone, "instance1"));
+            journal.close();
+
+            journal = SendJournal.open(file);
+            try {
+                assertEquals(2, journal.sentOn(LocalDate.now(zone), zone, "instance1"));
+                assertEquals(1, journal.sentOn(LocalDate.now(zone), zone, "instance2"));
+                assertEquals(0, journal.sentOn(LocalDate.now(zone).minusDays(1), zone, "instance1"));
+            } finally {
+                journal.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static File write(String content) throws IOException {
+        File file = File.createTempFile("send-journal", ".log");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}